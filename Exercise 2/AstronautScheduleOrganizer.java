@@ -1,4 +1,21 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Queue;
 import java.util.Scanner;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -7,21 +24,73 @@ public class AstronautScheduleOrganizer {
     private static final Logger logger = Logger.getLogger(AstronautScheduleOrganizer.class.getName());
     // Scanner for user input
     private static final Scanner scanner = new Scanner(System.in);
-    // Singleton instance of ScheduleManager to manage tasks
-    private static final ScheduleManager scheduleManager = ScheduleManager.getInstance();
+    // Every schedule this process keeps; the organizer works on the one for the configured crew member and the
+    // day it started, opened in main
+    private static final ScheduleRegistry schedules = new ScheduleRegistry();
+    private static ScheduleKey scheduleKey;
+    private static ScheduleManager scheduleManager;
+    // Buffered renderer reused for every listing, so large schedules are not printed line by line
+    private static final TaskReportRenderer listing = new TaskReportRenderer(
+        new BufferedWriter(new OutputStreamWriter(new FileOutputStream(FileDescriptor.out), Charset.defaultCharset()), 1 << 16),
+        TaskReportRenderer.Format.PLAIN);
+    // Most completions offered for a partly typed description, and most results of a search
+    private static final int SUGGESTIONS = 10;
+    private static final int SEARCH_LIMIT = 50;
+    // Schedule notifications waiting to be printed before the next menu
+    private static final Queue<String> notifications = new ConcurrentLinkedQueue<>();
 
     public static void main(String[] args) {
         // Load configuration settings from the properties file
         ConfigurationManager.loadConfiguration("config.properties");
-        // Add an observer to notify when tasks change
-        scheduleManager.addObserver(message -> System.out.println("Notification: " + message));
+        ScheduleSettings settings = ConfigurationManager.getSettings();
+        // Open this crew member's schedule; its metrics beans are registered over JMX under its key
+        scheduleKey = new ScheduleKey(settings.getScheduleCrewMember(), LocalDate.now());
+        scheduleManager = schedules.getSchedule(scheduleKey);
+        boolean follower = settings.getReplicationRole() == ReplicationRole.FOLLOWER;
+        if (follower && (args.length == 0 || !args[0].equals("--server"))) {
+            System.out.println("A follower replica only serves reads; start it with --server");
+            System.exit(1);
+        }
+        // A follower's state comes from its leader, so it keeps no journal or archive of its own
+        if (!follower) {
+            // Restore the saved schedule and journal further changes, if persistence is configured
+            openJournal(settings);
+            // Move completed or past tasks to the cold archive as archive.policy says
+            openArchive(settings);
+        }
+        // Lead or follow log-shipping replication as replication.role says
+        ScheduleFollower replica = startReplication(settings);
+        // Apply the settings to the journal and archive just attached
+        schedules.applySettings(settings);
+        // Pick up edits to config.properties without a restart
+        ConfigurationManager.addListener(schedules::applySettings);
+        if (settings.isConfigWatch()) {
+            try {
+                ConfigurationManager.watch();
+            } catch (IOException e) {
+                logger.log(Level.WARNING, "Could not watch the configuration file for changes", e);
+            }
+        }
+        // "--batch <file>" (or "--batch -" for stdin) runs a command script without prompts and exits
+        if (args.length == 2 && args[0].equals("--batch")) {
+            System.exit(runBatch(args[1]) ? 0 : 1);
+        }
+        // "--server [port]" serves the schedule as a JSON API until the process is stopped
+        if (args.length >= 1 && args[0].equals("--server")) {
+            runServer(settings, args.length > 1 ? args[1] : String.valueOf(settings.getServerPort()), replica);
+            return;
+        }
+        // Add an observer to notify when tasks change; notifications are printed between prompts, so
+        // changes made by background sweeps never land in the middle of the user's input
+        scheduleManager.addSynchronousObserver(notifications::add);
 
         boolean running = true; // Flag to control the main loop
         while (running) {
             try {
+                printNotifications(); // Show what changed since the last prompt
                 displayMenu(); // Display the main menu options
                 // Get user input for menu choice
-                int choice = InputValidator.getIntInput(scanner, "Enter your choice: ", 1, 7);
+                int choice = InputValidator.getIntInput(scanner, "Enter your choice: ", 1, 9);
                 // Process the user's choice and determine if the application should keep running
                 running = processChoice(choice);
             } catch (Exception e) {
@@ -32,6 +101,133 @@ public class AstronautScheduleOrganizer {
         }
     }
 
+    // Attach the write-ahead journal configured in config.properties and close it cleanly on exit
+    private static void openJournal(ScheduleSettings settings) {
+        String directory = settings.getJournalDir();
+        if (directory.isEmpty()) {
+            return;
+        }
+        try {
+            ScheduleJournal journal = ScheduleJournal.open(Paths.get(directory), settings.getJournalFsync(),
+                settings.getJournalFsyncIntervalMillis(), settings.getJournalSnapshotEveryOps());
+            scheduleManager.attachJournal(journal);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    journal.close();
+                } catch (IOException e) {
+                    logger.log(Level.SEVERE, "Error closing schedule journal", e);
+                }
+            }));
+        } catch (IOException | IllegalArgumentException e) {
+            // Keep running memory-only rather than refusing to start
+            System.out.println("Could not open schedule journal: " + e.getMessage());
+            logger.log(Level.SEVERE, "Error opening schedule journal", e);
+        }
+    }
+
+    // Attach the task archive; without archive.dir it lives off-heap until the process exits
+    private static void openArchive(ScheduleSettings settings) {
+        String directory = settings.getArchiveDir();
+        try {
+            TaskArchive archive = directory.isEmpty() ? TaskArchive.offHeap() : TaskArchive.open(Paths.get(directory, "archive.bin"));
+            scheduleManager.attachArchive(archive);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    archive.close();
+                } catch (IOException e) {
+                    logger.log(Level.SEVERE, "Error closing task archive", e);
+                }
+            }));
+        } catch (IOException | InvalidPathException e) {
+            // Keep every task live rather than refusing to start
+            System.out.println("Could not open task archive: " + e.getMessage());
+            logger.log(Level.SEVERE, "Error opening task archive", e);
+        }
+    }
+
+    // Start the replication leader or follower; returns the follower, or null on other nodes
+    private static ScheduleFollower startReplication(ScheduleSettings settings) {
+        try {
+            switch (settings.getReplicationRole()) {
+                case LEADER:
+                    ReplicationLog log = new ReplicationLog(settings.getReplicationLogRetain());
+                    scheduleManager.attachReplicationLog(log);
+                    ReplicationLeader leader = new ReplicationLeader(scheduleManager, log,
+                        new InetSocketAddress(settings.getReplicationHost(), settings.getReplicationPort()),
+                        settings.getReplicationHeartbeatMillis());
+                    leader.start();
+                    Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                        try {
+                            leader.close();
+                        } catch (IOException e) {
+                            logger.log(Level.SEVERE, "Error stopping replication leader", e);
+                        }
+                    }));
+                    return null;
+                case FOLLOWER:
+                    ScheduleFollower follower = new ScheduleFollower(scheduleManager,
+                        new InetSocketAddress(settings.getReplicationLeaderHost(), settings.getReplicationLeaderPort()),
+                        settings.getReplicationHeartbeatMillis(), settings.getReplicationRetryMillis(), settings.getReplicationMaxLagMillis());
+                    follower.start();
+                    Runtime.getRuntime().addShutdownHook(new Thread(follower::close));
+                    return follower;
+                default:
+                    return null;
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            // Keep serving locally rather than refusing to start
+            System.out.println("Could not start replication: " + e.getMessage());
+            logger.log(Level.SEVERE, "Error starting replication", e);
+            return null;
+        }
+    }
+
+    // Run a BatchRunner script; returns false if it could not be read or any command failed
+    private static boolean runBatch(String source) {
+        Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(FileDescriptor.out), Charset.defaultCharset()), 1 << 16);
+        try (BufferedReader script = source.equals("-")
+                ? new BufferedReader(new InputStreamReader(System.in, Charset.defaultCharset()), 1 << 16)
+                : Files.newBufferedReader(Paths.get(source), Charset.defaultCharset())) {
+            return new BatchRunner(scheduleManager, out).run(script) == 0;
+        } catch (IOException | InvalidPathException e) {
+            System.out.println("Error: " + e.getMessage());
+            logger.log(Level.SEVERE, "Error running batch script", e);
+            return false;
+        }
+    }
+
+    // Start the HTTP server configured in config.properties; it stops with the process. On a follower
+    // replica it serves reads only.
+    private static void runServer(ScheduleSettings settings, String port, ScheduleFollower replica) {
+        // The JDK server closes kept-alive connections beyond this many idle ones (200 by default). The property is
+        // JVM-wide and read once, when the first server is created, so it is set here before that and an
+        // explicit -D setting still wins.
+        System.getProperties().putIfAbsent("sun.net.httpserver.maxIdleConnections", String.valueOf(settings.getServerMaxIdleConnections()));
+        try {
+            ScheduleServer server = new ScheduleServer(schedules, scheduleKey, new InetSocketAddress(settings.getServerHost(), Integer.parseInt(port)),
+                settings.getServerBacklog(), settings.getServerPlatformThreads());
+            if (replica != null) {
+                server.setReplica(replica);
+            }
+            server.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> server.stop(1)));
+            System.out.println("Serving the schedule on http://" + server.getAddress().getHostString() + ":"
+                + server.getAddress().getPort() + "/tasks (Ctrl+C to stop)");
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println("Could not start server: " + e.getMessage());
+            logger.log(Level.SEVERE, "Error starting schedule server", e);
+            System.exit(1);
+        }
+    }
+
+    // Print and clear the notifications queued since the last menu
+    private static void printNotifications() {
+        String message;
+        while ((message = notifications.poll()) != null) {
+            System.out.println("Notification: " + message);
+        }
+    }
+
     // Display the main menu options to the user
     private static void displayMenu() {
         System.out.println("\nAstronaut Daily Schedule Organizer");
@@ -41,7 +237,9 @@ public class AstronautScheduleOrganizer {
         System.out.println("4. Edit Task");
         System.out.println("5. Mark Task as Completed");
         System.out.println("6. View Tasks by Priority");
-        System.out.println("7. Exit");
+        System.out.println("7. Import Tasks from File");
+        System.out.println("8. Search Tasks");
+        System.out.println("9. Exit");
     }
 
     // Process the user's menu choice and execute corresponding actions
@@ -66,6 +264,12 @@ public class AstronautScheduleOrganizer {
                 viewTasksByPriority(); // View tasks by priority
                 break;
             case 7:
+                importTasks(); // Load tasks in bulk from a CSV or NDJSON file
+                break;
+            case 8:
+                searchTasks(); // Find tasks by part of their description
+                break;
+            case 9:
                 System.out.println("Exiting the application."); // Exit the application
                 return false; // Stop the main loop
             default:
@@ -96,7 +300,7 @@ public class AstronautScheduleOrganizer {
 
     // Remove an existing task from the schedule
     private static void removeTask() {
-        String description = InputValidator.getStringInput(scanner, "Enter task description to remove: ");
+        String description = getDescriptionInput("Enter task description to remove: ");
         try {
             // Remove the task from the schedule
             scheduleManager.removeTask(description);
@@ -110,12 +314,12 @@ public class AstronautScheduleOrganizer {
 
     // View all tasks in the schedule
     private static void viewTasks() {
-        scheduleManager.viewTasks().forEach(System.out::println); // Print each task
+        printTasks(scheduleManager.viewTasks()); // Print each task
     }
 
     // Edit an existing task's details
     private static void editTask() {
-        String description = InputValidator.getStringInput(scanner, "Enter task description to edit: ");
+        String description = getDescriptionInput("Enter task description to edit: ");
         try {
             // Get the current task and display its details
             Task task = scheduleManager.getTask(description);
@@ -127,16 +331,14 @@ public class AstronautScheduleOrganizer {
             String newEndTime = InputValidator.getTimeInput(scanner, "Enter new end time (HH:mm, press enter to keep current): ");
             String newPriority = InputValidator.getPriorityInput(scanner, "Enter new priority (LOW/MEDIUM/HIGH, press enter to keep current): ");
 
-            // Create an updated task with the new details
-            Task updatedTask = TaskFactory.createTask(
-                newDescription.isEmpty() ? task.getDescription() : newDescription,
-                newStartTime.isEmpty() ? task.getStartTime().toString() : newStartTime,
-                newEndTime.isEmpty() ? task.getEndTime().toString() : newEndTime,
-                newPriority.isEmpty() ? task.getPriority().toString() : newPriority
-            );
-
-            // Update the task in the schedule
-            scheduleManager.editTask(description, updatedTask);
+            // Update the task in the schedule, keeping the values of the task as it is when the edit applies,
+            // so a change made by another writer while the prompts were open is not overwritten
+            scheduleManager.editTask(description, current -> TaskFactory.createTask(
+                newDescription.isEmpty() ? current.getDescription() : newDescription,
+                newStartTime.isEmpty() ? current.getStartTime().toString() : newStartTime,
+                newEndTime.isEmpty() ? current.getEndTime().toString() : newEndTime,
+                newPriority.isEmpty() ? current.getPriority().toString() : newPriority
+            ));
             System.out.println("Task updated successfully.");
         } catch (TaskNotFoundException | TaskConflictException e) {
             // Handle errors related to task editing and log them
@@ -147,7 +349,7 @@ public class AstronautScheduleOrganizer {
 
     // Mark a task as completed
     private static void markTaskAsCompleted() {
-        String description = InputValidator.getStringInput(scanner, "Enter task description to mark as completed: ");
+        String description = getDescriptionInput("Enter task description to mark as completed: ");
         try {
             // Mark the specified task as completed
             scheduleManager.markTaskAsCompleted(description);
@@ -163,6 +365,72 @@ public class AstronautScheduleOrganizer {
     private static void viewTasksByPriority() {
         String priority = InputValidator.getPriorityInput(scanner, "Enter priority level to view (LOW/MEDIUM/HIGH): ");
         // Print tasks that match the specified priority level
-        scheduleManager.viewTasksByPriority(Priority.valueOf(priority.toUpperCase())).forEach(System.out::println);
+        printTasks(scheduleManager.viewTasksByPriority(Priority.valueOf(priority.toUpperCase())));
+    }
+
+    // Import tasks in bulk from a CSV or NDJSON file
+    private static void importTasks() {
+        String path = InputValidator.getStringInput(scanner, "Enter file to import (.csv or .ndjson): ");
+        try {
+            ImportResult result = new TaskImporter(scheduleManager).importFile(Paths.get(path));
+            System.out.println(result);
+            for (ImportResult.LineError error : result.getErrors()) {
+                System.out.println("  " + error);
+            }
+        } catch (IOException | InvalidPathException e) {
+            System.out.println("Error: " + e.getMessage());
+            logger.log(Level.WARNING, "Error importing tasks", e);
+        }
+    }
+
+    // Search task descriptions by whole words, falling back to any substring
+    private static void searchTasks() {
+        String query = InputValidator.getStringInput(scanner, "Enter search text: ");
+        List<Task> found = scheduleManager.searchByWords(query, SEARCH_LIMIT);
+        if (found.isEmpty()) {
+            found = scheduleManager.searchBySubstring(query, SEARCH_LIMIT);
+        }
+        if (found.isEmpty()) {
+            System.out.println("No matching tasks.");
+        } else {
+            printTasks(found);
+        }
+    }
+
+    // Read the description of an existing task, completing a partial one. A description typed in full is
+    // used as is; otherwise the tasks starting with the input, or else containing its words, are offered.
+    private static String getDescriptionInput(String prompt) {
+        String input = InputValidator.getStringInput(scanner, prompt);
+        if (input.isEmpty()) {
+            return input;
+        }
+        List<Task> matches = scheduleManager.searchByPrefix(input, SUGGESTIONS);
+        for (Task match : matches) {
+            if (match.getDescription().equals(input)) {
+                return input;
+            }
+        }
+        if (matches.isEmpty()) {
+            matches = scheduleManager.searchByWords(input, SUGGESTIONS);
+        }
+        if (matches.isEmpty()) {
+            return input; // Let the caller report the unknown task
+        }
+        for (int i = 0; i < matches.size(); i++) {
+            System.out.println((i + 1) + ". " + matches.get(i).getDescription());
+        }
+        int choice = InputValidator.getIntInput(scanner, "Choose a task (0 to keep what you typed): ", 0, matches.size());
+        return choice == 0 ? input : matches.get(choice - 1).getDescription();
+    }
+
+    // Print a task listing through the shared buffered renderer
+    private static void printTasks(Iterable<Task> tasks) {
+        System.out.flush(); // Keep earlier prompts ahead of the listing
+        try {
+            listing.render(tasks);
+        } catch (IOException e) {
+            System.out.println("Error: " + e.getMessage());
+            logger.log(Level.WARNING, "Error printing tasks", e);
+        }
     }
 }
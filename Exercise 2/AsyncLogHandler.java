@@ -0,0 +1,172 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+// Hands log records to a background thread that formats and writes them through the wrapped handler,
+// so logging callers never wait on console I/O. Records are written strictly in the order they were queued:
+// if the buffer stays full for OFFER_WAIT_MILLIS the record is dropped and counted, never written inline
+// ahead of the queued ones, and the writer reports the count in a warning once it catches up.
+// The source class and method are not inferred here, as that walks the caller's stack: hot callers name
+// them with Logger.logp, and records without them show the logger name instead.
+class AsyncLogHandler extends Handler {
+    private static final int MAX_BATCH = 512;
+    private static final long OFFER_WAIT_MILLIS = 10;
+
+    private final Handler delegate;
+    private final BlockingQueue<LogRecord> queue;
+    private final Thread writer;
+    private final AtomicLong dropped = new AtomicLong();
+    // Drops already reported by the writer thread
+    private long reportedDrops;
+    private volatile boolean running = true;
+
+    AsyncLogHandler(Handler delegate, int capacity) {
+        this.delegate = delegate;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        setLevel(delegate.getLevel());
+        writer = new Thread(this::drain, "async-log-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    // Replace every handler on the logger with an asynchronous wrapper around it
+    public static void install(Logger logger, int capacity) {
+        for (Handler handler : logger.getHandlers()) {
+            if (!(handler instanceof AsyncLogHandler)) {
+                logger.removeHandler(handler);
+                logger.addHandler(new AsyncLogHandler(handler, capacity));
+            }
+        }
+    }
+
+    @Override
+    public void publish(LogRecord record) {
+        if (!isLoggable(record)) {
+            return;
+        }
+        if (!running) {
+            // Closed: write inline, behind anything close left queued
+            flush();
+            delegate.publish(record);
+            return;
+        }
+        try {
+            if (!queue.offer(record, OFFER_WAIT_MILLIS, TimeUnit.MILLISECONDS)) {
+                dropped.incrementAndGet();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            dropped.incrementAndGet();
+        }
+    }
+
+    // Records discarded because the buffer stayed full
+    public long getDroppedRecords() {
+        return dropped.get();
+    }
+
+    @Override
+    public void setLevel(Level newLevel) {
+        super.setLevel(newLevel);
+        delegate.setLevel(newLevel);
+    }
+
+    // Wait until the writer thread has written every record queued so far. Only the writer thread drains the
+    // queue, so flushing never reorders records.
+    @Override
+    public void flush() {
+        if (Thread.currentThread() == writer) {
+            delegate.flush();
+            return;
+        }
+        if (!writer.isAlive()) {
+            // Closed: nothing else is draining the queue any more
+            List<LogRecord> pending = new ArrayList<>();
+            queue.drainTo(pending);
+            pending.forEach(delegate::publish);
+            delegate.flush();
+            return;
+        }
+        FlushRequest request = new FlushRequest();
+        try {
+            if (queue.offer(request, 1, TimeUnit.SECONDS)) {
+                request.done.await(1, TimeUnit.SECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        try {
+            writer.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        delegate.close();
+    }
+
+    private void drain() {
+        List<LogRecord> batch = new ArrayList<>(MAX_BATCH);
+        while (running || !queue.isEmpty()) {
+            try {
+                LogRecord first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, MAX_BATCH - 1);
+                for (LogRecord record : batch) {
+                    if (record instanceof FlushRequest) {
+                        delegate.flush();
+                        ((FlushRequest) record).done.countDown();
+                    } else {
+                        delegate.publish(record);
+                    }
+                }
+                if (queue.isEmpty()) {
+                    reportDrops();
+                }
+                delegate.flush();
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    // Runs on the writer thread once the queue is empty, so the warning follows every record queued before
+    // the drops
+    private void reportDrops() {
+        long total = dropped.get();
+        if (total != reportedDrops) {
+            LogRecord warning = new LogRecord(Level.WARNING, "Log buffer full: dropped {0} records");
+            warning.setLoggerName(AsyncLogHandler.class.getName());
+            warning.setParameters(new Object[] {total - reportedDrops});
+            delegate.publish(warning);
+            reportedDrops = total;
+        }
+    }
+
+    // Queued by flush; the writer thread flushes the delegate when it reaches it and releases the caller
+    private static final class FlushRequest extends LogRecord {
+        private static final long serialVersionUID = 1L;
+        private final transient CountDownLatch done = new CountDownLatch(1);
+
+        FlushRequest() {
+            super(Level.OFF, null);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+import java.util.Collections;
+import java.util.List;
+
+// Per-task outcome of ScheduleManager.addTasks (or of a SchedulePlan); the batch is applied only if every
+// task was accepted
+class BatchAddResult {
+    enum Status {
+        ACCEPTED,
+        DUPLICATE_DESCRIPTION,
+        CONFLICTS_WITH_EXISTING,
+        CONFLICTS_IN_BATCH,
+        // Left out by SchedulePlanner in favour of the heavier task(s) it overlaps
+        OUTWEIGHED
+    }
+
+    static class Entry {
+        private final Task task;
+        private final Status status;
+        private final String conflictingDescription;
+
+        Entry(Task task, Status status, String conflictingDescription) {
+            this.task = task;
+            this.status = status;
+            this.conflictingDescription = conflictingDescription;
+        }
+
+        public Task getTask() { return task; }
+        public Status getStatus() { return status; }
+        // Description of the task this one clashed with, or null when accepted
+        public String getConflictingDescription() { return conflictingDescription; }
+
+        @Override
+        public String toString() {
+            return status == Status.ACCEPTED
+                    ? task.getDescription() + ": " + status
+                    : task.getDescription() + ": " + status + " (" + conflictingDescription + ")";
+        }
+    }
+
+    private final boolean applied;
+    private final List<Entry> entries;
+
+    BatchAddResult(boolean applied, List<Entry> entries) {
+        this.applied = applied;
+        this.entries = Collections.unmodifiableList(entries);
+    }
+
+    public boolean isApplied() { return applied; }
+    // Entries in the order the tasks were submitted
+    public List<Entry> getEntries() { return entries; }
+
+    public long getRejectedCount() {
+        return entries.stream().filter(entry -> entry.getStatus() != Status.ACCEPTED).count();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Batch of %d tasks %s, %d rejected",
+            entries.size(), applied ? "applied" : "not applied", getRejectedCount());
+    }
+}
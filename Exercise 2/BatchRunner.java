@@ -0,0 +1,201 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Non-interactive driver for scripted schedules. Each line is one command with '|'-separated arguments:
+//   add|description|HH:mm|HH:mm|PRIORITY
+//   remove|description
+//   edit|description|new description|HH:mm|HH:mm|PRIORITY   (empty fields keep the current value)
+//   complete|description
+//   list             list|PRIORITY
+//   search|text      (tasks containing the words of text, or else text itself, in their descriptions)
+// Blank lines and lines starting with # are skipped. Output goes through one buffered writer and a
+// per-command timing summary is printed at the end.
+class BatchRunner {
+    enum Command {
+        ADD(5), REMOVE(2), EDIT(6), COMPLETE(2), LIST(1), SEARCH(2);
+
+        // Number of '|'-separated fields including the command name; LIST also takes an optional priority
+        final int fields;
+
+        Command(int fields) {
+            this.fields = fields;
+        }
+    }
+
+    // Count, failures and latency of one command type
+    static class CommandStats {
+        private long count;
+        private long failures;
+        private long totalNanos;
+        private long maxNanos;
+
+        void record(long nanos, boolean failed) {
+            count++;
+            if (failed) {
+                failures++;
+            }
+            totalNanos += nanos;
+            maxNanos = Math.max(maxNanos, nanos);
+        }
+
+        public long getCount() { return count; }
+        public long getFailures() { return failures; }
+        public long getTotalNanos() { return totalNanos; }
+        public long getMaxNanos() { return maxNanos; }
+    }
+
+    private static final Logger logger = Logger.getLogger(BatchRunner.class.getName());
+    // Most tasks a search command lists
+    private static final int SEARCH_LIMIT = 100;
+
+    private final ScheduleManager scheduleManager;
+    private final Writer out;
+    private final TaskReportRenderer listing;
+    private final Map<Command, CommandStats> stats = new EnumMap<>(Command.class);
+    private long lineNumber;
+    private long invalidLines;
+
+    public BatchRunner(ScheduleManager scheduleManager, Writer out) {
+        this.scheduleManager = scheduleManager;
+        this.out = out;
+        this.listing = new TaskReportRenderer(out, TaskReportRenderer.Format.PLAIN);
+        for (Command command : Command.values()) {
+            stats.put(command, new CommandStats());
+        }
+    }
+
+    // Run every command in the script, then print the summary and flush; returns the number of failed lines
+    public long run(BufferedReader script) throws IOException {
+        long started = System.nanoTime();
+        String line;
+        while ((line = script.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            execute(line);
+        }
+        printSummary(System.nanoTime() - started);
+        out.flush();
+        long failures = invalidLines;
+        for (CommandStats commandStats : stats.values()) {
+            failures += commandStats.failures;
+        }
+        return failures;
+    }
+
+    public Map<Command, CommandStats> getStats() {
+        return stats;
+    }
+
+    private void execute(String line) throws IOException {
+        String[] fields = line.split("\\|", -1);
+        Command command;
+        try {
+            command = Command.valueOf(fields[0].trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            invalidLines++;
+            error("Unknown command: " + fields[0].trim());
+            return;
+        }
+        boolean validArity = command == Command.LIST ? fields.length <= 2 : fields.length == command.fields;
+        if (!validArity) {
+            invalidLines++;
+            error("Usage: " + usage(command));
+            return;
+        }
+        for (int i = 1; i < fields.length; i++) {
+            fields[i] = fields[i].trim();
+        }
+
+        long started = System.nanoTime();
+        boolean failed = false;
+        try {
+            switch (command) {
+                case ADD:
+                    scheduleManager.addTask(TaskFactory.createTask(fields[1], fields[2], fields[3], fields[4]));
+                    break;
+                case REMOVE:
+                    scheduleManager.removeTask(fields[1]);
+                    break;
+                case EDIT:
+                    // Empty fields keep the task's values as they are when the edit applies, in one atomic step
+                    scheduleManager.editTask(fields[1], current -> TaskFactory.createTask(
+                        fields[2].isEmpty() ? current.getDescription() : fields[2],
+                        fields[3].isEmpty() ? current.getStartTime().toString() : fields[3],
+                        fields[4].isEmpty() ? current.getEndTime().toString() : fields[4],
+                        fields[5].isEmpty() ? current.getPriority().toString() : fields[5]));
+                    break;
+                case COMPLETE:
+                    scheduleManager.markTaskAsCompleted(fields[1]);
+                    break;
+                case LIST:
+                    listing.begin();
+                    Iterable<Task> tasks = fields.length == 1 || fields[1].isEmpty()
+                            ? scheduleManager.viewTasks()
+                            : scheduleManager.viewTasksByPriority(Priority.valueOf(fields[1].toUpperCase()));
+                    for (Task listed : tasks) {
+                        listing.write(listed);
+                    }
+                    listing.end();
+                    break;
+                case SEARCH:
+                    List<Task> found = scheduleManager.searchByWords(fields[1], SEARCH_LIMIT);
+                    if (found.isEmpty()) {
+                        found = scheduleManager.searchBySubstring(fields[1], SEARCH_LIMIT);
+                    }
+                    listing.begin();
+                    for (Task listed : found) {
+                        listing.write(listed);
+                    }
+                    listing.end();
+                    break;
+            }
+        } catch (IllegalArgumentException | TaskConflictException | TaskNotFoundException e) {
+            failed = true;
+            error("Error: " + e.getMessage());
+            logger.log(Level.FINE, "Batch command failed", e);
+        }
+        stats.get(command).record(System.nanoTime() - started, failed);
+    }
+
+    private void error(String message) throws IOException {
+        out.write("line " + lineNumber + ": " + message + "\n");
+    }
+
+    private void printSummary(long elapsedNanos) throws IOException {
+        long commands = 0;
+        StringBuilder summary = new StringBuilder("\nCommand    Count  Failed   Avg us   Max us\n");
+        for (Map.Entry<Command, CommandStats> entry : stats.entrySet()) {
+            CommandStats commandStats = entry.getValue();
+            if (commandStats.count == 0) {
+                continue;
+            }
+            commands += commandStats.count;
+            summary.append(String.format("%-8s %7d %7d %8.1f %8.1f%n", entry.getKey(), commandStats.count, commandStats.failures,
+                commandStats.totalNanos / 1000.0 / commandStats.count, commandStats.maxNanos / 1000.0));
+        }
+        double seconds = elapsedNanos / 1e9;
+        summary.append(String.format("%d commands from %d lines in %.3f s (%.0f commands/s), %d invalid lines%n",
+            commands, lineNumber, seconds, seconds > 0 ? commands / seconds : 0.0, invalidLines));
+        out.write(summary.toString());
+    }
+
+    private static String usage(Command command) {
+        switch (command) {
+            case ADD: return "add|description|HH:mm|HH:mm|PRIORITY";
+            case REMOVE: return "remove|description";
+            case EDIT: return "edit|description|new description|HH:mm|HH:mm|PRIORITY";
+            case COMPLETE: return "complete|description";
+            case SEARCH: return "search|text";
+            default: return "list or list|PRIORITY";
+        }
+    }
+}
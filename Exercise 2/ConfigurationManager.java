@@ -1,40 +1,147 @@
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.logging.Handler;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 class ConfigurationManager {
     // Logger for logging configuration-related events and errors
     private static final Logger logger = Logger.getLogger(ConfigurationManager.class.getName());
-    // Properties object to hold configuration settings
-    private static Properties properties = new Properties();
+    // Current typed settings; replaced as a whole on every successful (re)load, so readers never see a mix
+    private static volatile ScheduleSettings settings = ScheduleSettings.DEFAULTS;
+    // Notified with the new settings after each reload
+    private static final List<Consumer<ScheduleSettings>> listeners = new CopyOnWriteArrayList<>();
+    // File passed to loadConfiguration; watched for changes once watch() is called
+    private static volatile Path configurationFile;
+    private static Thread watcher;
 
     // Load configuration settings from the specified file
     public static void loadConfiguration(String filename) {
-        try (FileInputStream input = new FileInputStream(filename)) {
+        configurationFile = Paths.get(filename).toAbsolutePath();
+        reload();
+    }
+
+    // Re-read the configuration file and publish it; a file that fails to parse leaves the current settings in place
+    public static void reload() {
+        Path file = configurationFile;
+        if (file == null) {
+            return;
+        }
+        ScheduleSettings loaded;
+        try (FileInputStream input = new FileInputStream(file.toFile())) {
             // Load properties from the configuration file
+            Properties properties = new Properties();
             properties.load(input);
-            // Configure logging settings based on the properties loaded
-            configureLogging();
-        } catch (IOException e) {
+            loaded = ScheduleSettings.from(properties);
+        } catch (IOException | IllegalArgumentException e) {
             // Log an error if the configuration file cannot be loaded
             logger.log(Level.SEVERE, "Error loading configuration file", e);
+            return;
+        }
+        settings = loaded;
+        // Configure logging settings based on the properties loaded
+        configureLogging(loaded);
+        for (Consumer<ScheduleSettings> listener : listeners) {
+            try {
+                listener.accept(loaded);
+            } catch (RuntimeException e) {
+                logger.log(Level.SEVERE, "Error applying configuration", e);
+            }
+        }
+    }
+
+    // Reload whenever the configuration file changes, on a daemon thread; call after loadConfiguration
+    public static synchronized void watch() throws IOException {
+        Path file = configurationFile;
+        if (watcher != null || file == null) {
+            return;
         }
+        // Editors often replace the file rather than rewrite it, so watch the directory for both
+        WatchService service = FileSystems.getDefault().newWatchService();
+        file.getParent().register(service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        watcher = new Thread(() -> watchLoop(service, file), "config-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    public static void addListener(Consumer<ScheduleSettings> listener) {
+        listeners.add(listener);
+    }
+
+    public static void removeListener(Consumer<ScheduleSettings> listener) {
+        listeners.remove(listener);
     }
 
-    // Configure logging level based on properties
-    private static void configureLogging() {
-        // Get the log level from properties, default to "INFO" if not specified
-        String logLevel = properties.getProperty("log.level", "INFO");
-        // Set the console handler's log level
-        System.setProperty("java.util.logging.ConsoleHandler.level", logLevel);
-        // Set the logger's level to the specified log level
-        Logger.getLogger("").setLevel(Level.parse(logLevel));
+    // The settings currently in force
+    public static ScheduleSettings getSettings() {
+        return settings;
     }
 
     // Retrieve a property value by its key
     public static String getProperty(String key) {
-        return properties.getProperty(key);
+        return settings.getProperty(key, null);
+    }
+
+    // Retrieve a property value, falling back to the default if it is not set
+    public static String getProperty(String key, String defaultValue) {
+        return settings.getProperty(key, defaultValue);
+    }
+
+    // Configure logging level and delivery based on the settings
+    private static void configureLogging(ScheduleSettings loaded) {
+        Level logLevel = loaded.getLogLevel();
+        Logger rootLogger = Logger.getLogger("");
+        // Set the logger's level so disabled messages are rejected before any formatting
+        rootLogger.setLevel(logLevel);
+        // The console handler already exists, so set its level directly rather than via system properties
+        for (Handler handler : rootLogger.getHandlers()) {
+            handler.setLevel(logLevel);
+        }
+        // Move console output off the calling threads unless asynchronous logging is switched off.
+        // Once installed the async handler stays, so turning it off takes a restart.
+        if (loaded.isLogAsync()) {
+            AsyncLogHandler.install(rootLogger, loaded.getLogAsyncQueueSize());
+        }
+    }
+
+    private static void watchLoop(WatchService service, Path file) {
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    Object context = event.context();
+                    if (context instanceof Path && file.getFileName().equals(context)) {
+                        changed = true;
+                    }
+                }
+                key.reset();
+                if (changed) {
+                    // Let the writer finish; a save usually raises several events in quick succession
+                    Thread.sleep(100);
+                    WatchKey more;
+                    while ((more = service.poll()) != null) {
+                        more.pollEvents();
+                        more.reset();
+                    }
+                    logger.log(Level.INFO, "Reloading configuration from {0}", file);
+                    reload();
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Stopped
+        }
     }
 }
@@ -0,0 +1,347 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+// Text index over task descriptions for prefix, substring and word search, ignoring case. Every indexed
+// description gets an int id, and three structures map text to ids:
+// - whole descriptions, in a sorted map, so a prefix search is one range scan in O(log n + k)
+// - words, also sorted, so the word being typed can be matched as a prefix
+// - three-character sequences (trigrams); a substring search walks the shortest list among its trigrams
+//   and checks only those descriptions
+// Ids only grow, so the lists are appended to in order. A removed task leaves its id in the word and
+// trigram lists, where searches skip it, until dead ids outnumber live ones and the index is rebuilt.
+// Not thread-safe; ScheduleManager guards it with its lock.
+class DescriptionIndex {
+    static final Comparator<Task> BY_DESCRIPTION = Comparator.comparing((Task task) -> fold(task.getDescription()))
+            .thenComparing(Task::getDescription);
+
+    private static final int TRIGRAM = 3;
+
+    // Indexed by id; null once the task is removed
+    private Task[] tasks = new Task[64];
+    private String[] folded = new String[64];
+    private int nextId;
+    private int live;
+    private final TreeMap<String, IdList> byDescription = new TreeMap<>();
+    private final TreeMap<String, IdList> byWord = new TreeMap<>();
+    private final TrigramTable byTrigram = new TrigramTable();
+
+    public int size() {
+        return live;
+    }
+
+    public void add(Task task) {
+        if (nextId == tasks.length) {
+            tasks = Arrays.copyOf(tasks, tasks.length * 2);
+            folded = Arrays.copyOf(folded, folded.length * 2);
+        }
+        int id = nextId++;
+        String text = fold(task.getDescription());
+        tasks[id] = task;
+        folded[id] = text;
+        live++;
+        byDescription.computeIfAbsent(text, key -> new IdList()).add(id);
+        for (String word : tokenize(text)) {
+            byWord.computeIfAbsent(word, key -> new IdList()).add(id);
+        }
+        for (int i = 0; i + TRIGRAM <= text.length(); i++) {
+            byTrigram.listFor(trigram(text, i)).add(id);
+        }
+    }
+
+    // Remove the indexed task with this task's description; false if there is none
+    public boolean remove(Task task) {
+        String text = fold(task.getDescription());
+        IdList ids = byDescription.get(text);
+        if (ids == null) {
+            return false;
+        }
+        for (int i = 0; i < ids.size; i++) {
+            int id = ids.ids[i];
+            if (tasks[id].getDescription().equals(task.getDescription())) {
+                ids.removeAt(i);
+                if (ids.size == 0) {
+                    byDescription.remove(text);
+                }
+                tasks[id] = null;
+                folded[id] = null;
+                live--;
+                if (nextId - live > Math.max(live, 1024)) {
+                    rebuild();
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // At most limit tasks whose description starts with the prefix, alphabetically
+    public List<Task> prefix(String prefix, int limit) {
+        String key = fold(prefix);
+        List<Task> found = new ArrayList<>(Math.min(Math.max(limit, 0), 1024));
+        for (Map.Entry<String, IdList> entry : byDescription.tailMap(key, true).entrySet()) {
+            if (found.size() >= limit || !entry.getKey().startsWith(key)) {
+                break;
+            }
+            collect(entry.getValue(), found, limit);
+        }
+        return found;
+    }
+
+    // At most limit tasks whose description contains the text, alphabetically. When more match, which
+    // ones are returned is unspecified: the search stops as soon as it has enough.
+    public List<Task> substring(String text, int limit) {
+        String key = fold(text);
+        List<Task> found = new ArrayList<>();
+        if (key.length() < TRIGRAM) {
+            // Too short for the trigram lists; scan the descriptions in order until enough match
+            for (Map.Entry<String, IdList> entry : byDescription.entrySet()) {
+                if (found.size() >= limit) {
+                    break;
+                }
+                if (entry.getKey().contains(key)) {
+                    collect(entry.getValue(), found, limit);
+                }
+            }
+            return found;
+        }
+        IdList shortest = null;
+        for (int i = 0; i + TRIGRAM <= key.length(); i++) {
+            IdList ids = byTrigram.get(trigram(key, i));
+            if (ids == null) {
+                return Collections.emptyList();
+            }
+            if (shortest == null || ids.size < shortest.size) {
+                shortest = ids;
+            }
+        }
+        for (int i = 0; i < shortest.size && found.size() < limit; i++) {
+            int id = shortest.ids[i];
+            if (tasks[id] != null && folded[id].contains(key)) {
+                found.add(tasks[id]);
+            }
+        }
+        found.sort(BY_DESCRIPTION);
+        return found;
+    }
+
+    // At most limit tasks whose description contains every word of the query, alphabetically. Unless the
+    // query ends in a space or punctuation, its last word may be unfinished and matches as a prefix, so the
+    // search can follow typing. When more match, which ones are returned is unspecified.
+    public List<Task> words(String query, int limit) {
+        List<String> terms = tokenize(fold(query));
+        if (terms.isEmpty()) {
+            return Collections.emptyList();
+        }
+        String partial = Character.isLetterOrDigit(query.charAt(query.length() - 1)) ? terms.remove(terms.size() - 1) : null;
+        List<IdList> complete = new ArrayList<>(terms.size());
+        for (String term : terms) {
+            IdList ids = byWord.get(term);
+            if (ids == null) {
+                return Collections.emptyList();
+            }
+            complete.add(ids);
+        }
+        List<Task> found = new ArrayList<>();
+        if (complete.isEmpty()) {
+            // Only an unfinished word: gather the tasks of each word it begins, skipping repeats
+            Set<Task> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (Map.Entry<String, IdList> entry : byWord.tailMap(partial, true).entrySet()) {
+                if (found.size() >= limit || !entry.getKey().startsWith(partial)) {
+                    break;
+                }
+                IdList ids = entry.getValue();
+                for (int i = 0; i < ids.size && found.size() < limit; i++) {
+                    Task task = tasks[ids.ids[i]];
+                    if (task != null && seen.add(task)) {
+                        found.add(task);
+                    }
+                }
+            }
+        } else {
+            complete.sort(Comparator.comparingInt(ids -> ids.size));
+            IdList shortest = complete.get(0);
+            for (int i = 0; i < shortest.size && found.size() < limit; i++) {
+                int id = shortest.ids[i];
+                if (tasks[id] != null && containsAll(complete, id) && (partial == null || hasWordStartingWith(folded[id], partial))) {
+                    found.add(tasks[id]);
+                }
+            }
+        }
+        found.sort(BY_DESCRIPTION);
+        return found;
+    }
+
+    // Renumber the live tasks so the lists no longer carry removed ids
+    private void rebuild() {
+        List<Task> remaining = new ArrayList<>(live);
+        for (int id = 0; id < nextId; id++) {
+            if (tasks[id] != null) {
+                remaining.add(tasks[id]);
+            }
+        }
+        tasks = new Task[Math.max(64, remaining.size() * 2)];
+        folded = new String[tasks.length];
+        nextId = 0;
+        live = 0;
+        byDescription.clear();
+        byWord.clear();
+        byTrigram.clear();
+        remaining.forEach(this::add);
+    }
+
+    // The live tasks under one folded description. Several differ only in case and are listed by id, so
+    // they are put in BY_DESCRIPTION order before the limit picks the first of them.
+    private void collect(IdList ids, List<Task> found, int limit) {
+        if (ids.size == 1) {
+            found.add(tasks[ids.ids[0]]);
+            return;
+        }
+        List<Task> group = new ArrayList<>(ids.size);
+        for (int i = 0; i < ids.size; i++) {
+            group.add(tasks[ids.ids[i]]);
+        }
+        group.sort(BY_DESCRIPTION);
+        found.addAll(group.subList(0, Math.min(group.size(), limit - found.size())));
+    }
+
+    private static boolean containsAll(List<IdList> lists, int id) {
+        for (int i = 1; i < lists.size(); i++) {
+            if (!lists.get(i).contains(id)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean hasWordStartingWith(String text, String prefix) {
+        for (String word : tokenize(text)) {
+            if (word.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Runs of letters and digits, in order
+    private static List<String> tokenize(String text) {
+        List<String> found = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                found.add(text.substring(start, i));
+                start = -1;
+            }
+        }
+        return found;
+    }
+
+    static String fold(String text) {
+        return text.toLowerCase(Locale.ROOT);
+    }
+
+    private static long trigram(String text, int at) {
+        return (long) text.charAt(at) << 32 | (long) text.charAt(at + 1) << 16 | text.charAt(at + 2);
+    }
+
+    // Open-addressing map from packed trigram to id list, without a boxed key or entry per trigram.
+    // Entries are never removed; emptied lists go when the index is rebuilt.
+    private static final class TrigramTable {
+        // Trigram + 1, so 0 marks an empty slot
+        private long[] keys = new long[1024];
+        private IdList[] lists = new IdList[1024];
+        private int count;
+
+        IdList get(long trigram) {
+            int mask = keys.length - 1;
+            for (int slot = slot(trigram, mask); keys[slot] != 0; slot = (slot + 1) & mask) {
+                if (keys[slot] == trigram + 1) {
+                    return lists[slot];
+                }
+            }
+            return null;
+        }
+
+        IdList listFor(long trigram) {
+            int mask = keys.length - 1;
+            int slot = slot(trigram, mask);
+            for (; keys[slot] != 0; slot = (slot + 1) & mask) {
+                if (keys[slot] == trigram + 1) {
+                    return lists[slot];
+                }
+            }
+            IdList list = new IdList();
+            keys[slot] = trigram + 1;
+            lists[slot] = list;
+            if (++count * 2 > keys.length) {
+                grow();
+            }
+            return list;
+        }
+
+        void clear() {
+            Arrays.fill(keys, 0);
+            Arrays.fill(lists, null);
+            count = 0;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            IdList[] oldLists = lists;
+            keys = new long[oldKeys.length * 2];
+            lists = new IdList[oldKeys.length * 2];
+            int mask = keys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != 0) {
+                    int slot = slot(oldKeys[i] - 1, mask);
+                    while (keys[slot] != 0) {
+                        slot = (slot + 1) & mask;
+                    }
+                    keys[slot] = oldKeys[i];
+                    lists[slot] = oldLists[i];
+                }
+            }
+        }
+
+        private static int slot(long trigram, int mask) {
+            long hash = trigram * 0x9E3779B97F4A7C15L;
+            return (int) (hash >>> 32) & mask;
+        }
+    }
+
+    // Ascending ids; an id repeated straight after itself (a word or trigram seen twice in one description)
+    // is stored once
+    private static final class IdList {
+        int[] ids = new int[2];
+        int size;
+
+        void add(int id) {
+            if (size > 0 && ids[size - 1] == id) {
+                return;
+            }
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+
+        boolean contains(int id) {
+            return Arrays.binarySearch(ids, 0, size, id) >= 0;
+        }
+
+        void removeAt(int index) {
+            System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+            size--;
+        }
+    }
+}
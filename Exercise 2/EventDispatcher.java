@@ -0,0 +1,188 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Delivers ScheduleEvents asynchronously. Every observer gets its own bounded ring buffer and dispatch
+// thread, so a slow observer only delays itself; it receives whatever has queued up as one batch.
+// Synchronous observers are instead called on the publishing thread, one event at a time.
+class EventDispatcher {
+    enum Backpressure {
+        // Publisher waits for room in a full buffer
+        BLOCK,
+        // Oldest queued event is discarded to make room
+        DROP_OLDEST,
+        // New event is discarded
+        DROP_NEWEST
+    }
+
+    private static final Logger logger = Logger.getLogger(EventDispatcher.class.getName());
+    private static final int MAX_BATCH = 256;
+
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final List<ScheduleObserver> synchronousObservers = new CopyOnWriteArrayList<>();
+    private final ThreadFactory threadFactory = Threads.factory("schedule-observer");
+    private final ScheduleMetrics metrics;
+    // Buffer size for new subscriptions, and the policy for all of them; see configure
+    private volatile int queueSize;
+    private volatile Backpressure backpressure;
+
+    EventDispatcher(ScheduleMetrics metrics, ScheduleSettings settings) {
+        this.metrics = metrics;
+        configure(settings);
+    }
+
+    // Apply reloaded settings. The backpressure policy changes for every observer at once; a new buffer size
+    // only applies to observers subscribed afterwards, as existing buffers cannot be resized in place.
+    public void configure(ScheduleSettings settings) {
+        queueSize = settings.getObserverQueueSize();
+        backpressure = settings.getObserverBackpressure();
+        for (Subscription subscription : subscriptions) {
+            subscription.backpressure = backpressure;
+        }
+    }
+
+    public void subscribe(ScheduleObserver observer) {
+        Subscription subscription = new Subscription(observer, queueSize, backpressure, metrics);
+        subscriptions.add(subscription);
+        threadFactory.newThread(subscription::run).start();
+    }
+
+    // Deliver to the observer on the publishing thread, before publish returns. Nothing is buffered, so the
+    // observer must be quick: it delays the writer that published the event.
+    public void subscribeSynchronous(ScheduleObserver observer) {
+        synchronousObservers.add(observer);
+    }
+
+    // Stop delivering to the observer once the events already queued for it have been handed over
+    public void unsubscribe(ScheduleObserver observer) {
+        if (synchronousObservers.remove(observer)) {
+            return;
+        }
+        for (Subscription subscription : subscriptions) {
+            if (subscription.observer == observer) {
+                subscriptions.remove(subscription);
+                subscription.running = false;
+                return;
+            }
+        }
+    }
+
+    // Stop delivering to every observer; asynchronous ones still get the events already queued for them, then
+    // their dispatch threads exit
+    public void close() {
+        synchronousObservers.clear();
+        for (Subscription subscription : subscriptions) {
+            subscriptions.remove(subscription);
+            subscription.running = false;
+        }
+    }
+
+    public void publish(ScheduleEvent event) {
+        long started = metrics.start();
+        for (Subscription subscription : subscriptions) {
+            subscription.offer(event);
+        }
+        if (!synchronousObservers.isEmpty()) {
+            List<ScheduleEvent> single = Collections.singletonList(event);
+            for (ScheduleObserver observer : synchronousObservers) {
+                try {
+                    observer.onEvents(single);
+                } catch (RuntimeException e) {
+                    logger.log(Level.WARNING, "Observer failed to handle schedule events", e);
+                }
+            }
+        }
+        metrics.record(ScheduleMetrics.Operation.OBSERVER_PUBLISH, started);
+    }
+
+    // Events waiting across all observers
+    public int queueDepth() {
+        int depth = 0;
+        for (Subscription subscription : subscriptions) {
+            depth += subscription.queue.size();
+        }
+        return depth;
+    }
+
+    // Events discarded by the DROP_* policies since startup
+    public long droppedEvents() {
+        long dropped = 0;
+        for (Subscription subscription : subscriptions) {
+            dropped += subscription.dropped.get();
+        }
+        return dropped;
+    }
+
+    private static class Subscription {
+        private final ScheduleObserver observer;
+        private final BlockingQueue<ScheduleEvent> queue;
+        private volatile Backpressure backpressure;
+        private final ScheduleMetrics metrics;
+        private final AtomicLong dropped = new AtomicLong();
+        private volatile boolean running = true;
+
+        Subscription(ScheduleObserver observer, int capacity, Backpressure backpressure, ScheduleMetrics metrics) {
+            this.observer = observer;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+            this.backpressure = backpressure;
+            this.metrics = metrics;
+        }
+
+        void offer(ScheduleEvent event) {
+            switch (backpressure) {
+                case BLOCK:
+                    try {
+                        queue.put(event);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        dropped.incrementAndGet();
+                    }
+                    break;
+                case DROP_OLDEST:
+                    while (!queue.offer(event)) {
+                        if (queue.poll() != null) {
+                            dropped.incrementAndGet();
+                        }
+                    }
+                    break;
+                case DROP_NEWEST:
+                    if (!queue.offer(event)) {
+                        dropped.incrementAndGet();
+                    }
+                    break;
+            }
+        }
+
+        void run() {
+            List<ScheduleEvent> batch = new ArrayList<>(MAX_BATCH);
+            List<ScheduleEvent> view = Collections.unmodifiableList(batch);
+            while (running || !queue.isEmpty()) {
+                try {
+                    ScheduleEvent first = queue.poll(100, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    batch.add(first);
+                    queue.drainTo(batch, MAX_BATCH - 1);
+                    long started = metrics.start();
+                    observer.onEvents(view);
+                    metrics.record(ScheduleMetrics.Operation.OBSERVER_DELIVERY, started);
+                } catch (InterruptedException e) {
+                    return;
+                } catch (RuntimeException e) {
+                    logger.log(Level.WARNING, "Observer failed to handle schedule events", e);
+                } finally {
+                    batch.clear();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,139 @@
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+// Minimal parser for one flat JSON object whose values are strings, numbers, booleans or null, such as
+// an NDJSON task row or an API request body. Nested values are rejected. Reports failure by returning
+// false instead of throwing, so callers can collect per-line errors cheaply.
+class FlatJson {
+    private FlatJson() {
+    }
+
+    // Parse bytes[from, to) into key/value pairs (values as text, null as null); false if malformed
+    static boolean parse(byte[] bytes, int from, int to, Map<String, String> out) {
+        int[] position = {skipSpace(bytes, from, to)};
+        if (position[0] >= to || bytes[position[0]] != '{') {
+            return false;
+        }
+        position[0] = skipSpace(bytes, position[0] + 1, to);
+        if (position[0] < to && bytes[position[0]] == '}') {
+            return skipSpace(bytes, position[0] + 1, to) == to;
+        }
+        while (true) {
+            String key = readString(bytes, position, to);
+            if (key == null) {
+                return false;
+            }
+            position[0] = skipSpace(bytes, position[0], to);
+            if (position[0] >= to || bytes[position[0]] != ':') {
+                return false;
+            }
+            position[0] = skipSpace(bytes, position[0] + 1, to);
+            if (position[0] >= to) {
+                return false;
+            }
+            String value;
+            if (bytes[position[0]] == '"') {
+                value = readString(bytes, position, to);
+                if (value == null) {
+                    return false;
+                }
+            } else {
+                int start = position[0];
+                while (position[0] < to && bytes[position[0]] != ',' && bytes[position[0]] != '}'
+                        && bytes[position[0]] > ' ') {
+                    position[0]++;
+                }
+                String literal = new String(bytes, start, position[0] - start, StandardCharsets.UTF_8);
+                if (literal.isEmpty() || literal.charAt(0) == '{' || literal.charAt(0) == '[') {
+                    return false;
+                }
+                value = literal.equals("null") ? null : literal;
+            }
+            out.put(key, value);
+            position[0] = skipSpace(bytes, position[0], to);
+            if (position[0] >= to) {
+                return false;
+            }
+            if (bytes[position[0]] == '}') {
+                return skipSpace(bytes, position[0] + 1, to) == to;
+            }
+            if (bytes[position[0]] != ',') {
+                return false;
+            }
+            position[0] = skipSpace(bytes, position[0] + 1, to);
+        }
+    }
+
+    private static int skipSpace(byte[] bytes, int at, int to) {
+        while (at < to && (bytes[at] == ' ' || bytes[at] == '\t' || bytes[at] == '\r' || bytes[at] == '\n')) {
+            at++;
+        }
+        return at;
+    }
+
+    // Read a quoted string starting at position[0], leaving position[0] after the closing quote
+    private static String readString(byte[] bytes, int[] position, int to) {
+        int at = position[0];
+        if (at >= to || bytes[at] != '"') {
+            return null;
+        }
+        int start = ++at;
+        while (at < to && bytes[at] != '"' && bytes[at] != '\\') {
+            at++;
+        }
+        if (at < to && bytes[at] == '"') {
+            position[0] = at + 1;
+            return new String(bytes, start, at - start, StandardCharsets.UTF_8);
+        }
+        // Slow path for escapes
+        StringBuilder value = new StringBuilder(new String(bytes, start, at - start, StandardCharsets.UTF_8));
+        int runStart = at;
+        while (at < to) {
+            byte b = bytes[at];
+            if (b == '"') {
+                value.append(new String(bytes, runStart, at - runStart, StandardCharsets.UTF_8));
+                position[0] = at + 1;
+                return value.toString();
+            }
+            if (b != '\\') {
+                at++;
+                continue;
+            }
+            value.append(new String(bytes, runStart, at - runStart, StandardCharsets.UTF_8));
+            if (at + 1 >= to) {
+                return null;
+            }
+            byte escaped = bytes[at + 1];
+            at += 2;
+            switch (escaped) {
+                case '"': value.append('"'); break;
+                case '\\': value.append('\\'); break;
+                case '/': value.append('/'); break;
+                case 'b': value.append('\b'); break;
+                case 'f': value.append('\f'); break;
+                case 'n': value.append('\n'); break;
+                case 'r': value.append('\r'); break;
+                case 't': value.append('\t'); break;
+                case 'u':
+                    if (at + 4 > to) {
+                        return null;
+                    }
+                    int code = 0;
+                    for (int i = 0; i < 4; i++) {
+                        int digit = Character.digit(bytes[at + i], 16);
+                        if (digit < 0) {
+                            return null;
+                        }
+                        code = code * 16 + digit;
+                    }
+                    value.append((char) code);
+                    at += 4;
+                    break;
+                default:
+                    return null;
+            }
+            runStart = at;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,211 @@
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Gap index over one day at one-second resolution. A segment tree keeps, for every range of seconds, the
+// number of tasks covering its least-covered second and the runs of such seconds touching each end and
+// anywhere inside, so "earliest gap of at least L seconds after t" is answered in O(log n) whatever the number
+// of tasks. Occupying or releasing a task adds +1 or -1 to a whole range lazily, in O(log n) however long the
+// task is. Nodes are only created where a task boundary splits a range, so a sparse day takes a few
+// kilobytes rather than a full tree. Occupancy is rounded outwards to whole seconds, so reported gaps never
+// overlap a task. Not thread-safe for writes; ScheduleManager guards it with its lock. Queries never modify
+// the tree, so they can run under a shared read lock.
+class FreeTimeIndex {
+    static final int SECONDS_PER_DAY = 24 * 60 * 60;
+    private static final int LEAVES = Integer.highestOneBit(SECONDS_PER_DAY - 1) << 1;
+    private static final int ROOT = 0;
+
+    // Per node, in parallel arrays: index of the left child (the right one follows it; 0 for a node without
+    // children, whose range is uniformly covered), the least coverage in the range including this node's own
+    // pending addition, the addition still to be applied to the children, and the runs of least-covered
+    // seconds at the left edge, at the right edge and anywhere
+    private int[] left = new int[64];
+    private int[] min = new int[64];
+    private int[] pending = new int[64];
+    private int[] prefix = new int[64];
+    private int[] suffix = new int[64];
+    private int[] best = new int[64];
+    private int nodes;
+
+    FreeTimeIndex() {
+        newNode(0, LEAVES);
+        // Padding past the end of the day counts as occupied so no run extends into it
+        update(ROOT, 0, LEAVES, SECONDS_PER_DAY, LEAVES, 1);
+    }
+
+    public void occupy(Task task) {
+        update(task, 1);
+    }
+
+    public void release(Task task) {
+        update(task, -1);
+    }
+
+    // Maximal free runs of at least minLength seconds inside [from, to), in time order
+    public List<TimeSlot> freeSlots(int from, int to, int minLength) {
+        List<TimeSlot> slots = new ArrayList<>();
+        int cursor = from;
+        while (cursor < to) {
+            int start = findRun(cursor, to, Math.max(minLength, 1));
+            if (start < 0) {
+                break;
+            }
+            int end = firstOccupied(start, to);
+            slots.add(new TimeSlot(toTime(start), toTime(end)));
+            cursor = end;
+        }
+        return slots;
+    }
+
+    // Earliest second in [from, to) that starts a free run of at least length seconds ending by 'to', or -1
+    public int findRun(int from, int to, int length) {
+        int[] carry = new int[1];
+        return findRun(ROOT, 0, LEAVES, from, to, length, carry, 0);
+    }
+
+    static int startSecond(LocalTime time) {
+        return time.toSecondOfDay();
+    }
+
+    static int endSecond(LocalTime time) {
+        return time.toSecondOfDay() + (time.getNano() > 0 ? 1 : 0);
+    }
+
+    static LocalTime toTime(int second) {
+        return second >= SECONDS_PER_DAY ? LocalTime.MAX : LocalTime.ofSecondOfDay(second);
+    }
+
+    private void update(Task task, int delta) {
+        int from;
+        int to;
+        if (task.getStartTime().isBefore(task.getEndTime())) {
+            from = startSecond(task.getStartTime());
+            to = endSecond(task.getEndTime());
+        } else {
+            // An empty or inverted task blocks any task strictly containing [end, start]; reserve that span
+            from = startSecond(task.getEndTime());
+            to = Math.max(endSecond(task.getStartTime()), from + 1);
+        }
+        update(ROOT, 0, LEAVES, from, Math.min(to, SECONDS_PER_DAY), delta);
+    }
+
+    // Add delta to the coverage of [from, to); a range covering a whole node stops there
+    private void update(int node, int nodeFrom, int nodeTo, int from, int to, int delta) {
+        if (nodeTo <= from || nodeFrom >= to) {
+            return;
+        }
+        if (nodeFrom >= from && nodeTo <= to) {
+            min[node] += delta;
+            if (left[node] != 0) {
+                pending[node] += delta;
+            }
+            return;
+        }
+        int half = (nodeTo - nodeFrom) / 2;
+        if (left[node] == 0) {
+            // Split a uniform range; the children start with its coverage, so nothing is pending yet
+            int child = newNode(min[node], half);
+            newNode(min[node], half);
+            left[node] = child;
+        }
+        int middle = nodeFrom + half;
+        update(left[node], nodeFrom, middle, from, to, delta);
+        update(left[node] + 1, middle, nodeTo, from, to, delta);
+        pull(node, half);
+    }
+
+    private int newNode(int coverage, int size) {
+        if (nodes == left.length) {
+            int capacity = 2 * nodes;
+            left = Arrays.copyOf(left, capacity);
+            min = Arrays.copyOf(min, capacity);
+            pending = Arrays.copyOf(pending, capacity);
+            prefix = Arrays.copyOf(prefix, capacity);
+            suffix = Arrays.copyOf(suffix, capacity);
+            best = Arrays.copyOf(best, capacity);
+        }
+        int node = nodes++;
+        min[node] = coverage;
+        prefix[node] = size;
+        suffix[node] = size;
+        best[node] = size;
+        return node;
+    }
+
+    // Combine the two children of a node whose children each span 'half' seconds
+    private void pull(int node, int half) {
+        int leftChild = left[node];
+        int rightChild = leftChild + 1;
+        int least = Math.min(min[leftChild], min[rightChild]);
+        boolean leftLeast = min[leftChild] == least;
+        boolean rightLeast = min[rightChild] == least;
+        int leftPrefix = leftLeast ? prefix[leftChild] : 0;
+        int leftSuffix = leftLeast ? suffix[leftChild] : 0;
+        int rightPrefix = rightLeast ? prefix[rightChild] : 0;
+        int rightSuffix = rightLeast ? suffix[rightChild] : 0;
+        min[node] = least + pending[node];
+        prefix[node] = leftPrefix == half ? half + rightPrefix : leftPrefix;
+        suffix[node] = rightSuffix == half ? half + leftSuffix : rightSuffix;
+        best[node] = Math.max(Math.max(leftLeast ? best[leftChild] : 0, rightLeast ? best[rightChild] : 0),
+            leftSuffix + rightPrefix);
+    }
+
+    // Left-to-right descent; carry holds the free run ending just before the current node, clipped to 'from'.
+    // offset is the addition still pending from the node's ancestors.
+    private int findRun(int node, int nodeFrom, int nodeTo, int from, int to, int length, int[] carry, int offset) {
+        if (nodeTo <= from || nodeFrom >= to) {
+            return -1;
+        }
+        int size = nodeTo - nodeFrom;
+        boolean free = min[node] + offset == 0;
+        int freePrefix = free ? prefix[node] : 0;
+        if (nodeFrom >= from && nodeTo <= to) {
+            if (carry[0] + freePrefix >= length) {
+                return nodeFrom - carry[0];
+            }
+            if ((free ? best[node] : 0) < length) {
+                carry[0] = freePrefix == size ? carry[0] + size : (free ? suffix[node] : 0);
+                return -1;
+            }
+        }
+        if (left[node] == 0) {
+            // Uniform range that only partly overlaps [from, to)
+            if (!free) {
+                carry[0] = 0;
+                return -1;
+            }
+            int overlapFrom = Math.max(nodeFrom, from);
+            int overlapTo = Math.min(nodeTo, to);
+            if (carry[0] + overlapTo - overlapFrom >= length) {
+                return overlapFrom - carry[0];
+            }
+            carry[0] += overlapTo - overlapFrom;
+            return -1;
+        }
+        int middle = nodeFrom + size / 2;
+        int childOffset = offset + pending[node];
+        int found = findRun(left[node], nodeFrom, middle, from, to, length, carry, childOffset);
+        return found >= 0 ? found : findRun(left[node] + 1, middle, nodeTo, from, to, length, carry, childOffset);
+    }
+
+    // First occupied second in [from, to), or 'to' if the whole range is free
+    private int firstOccupied(int from, int to) {
+        int found = firstOccupied(ROOT, 0, LEAVES, from, to, 0);
+        return found < 0 ? to : found;
+    }
+
+    private int firstOccupied(int node, int nodeFrom, int nodeTo, int from, int to, int offset) {
+        boolean free = min[node] + offset == 0;
+        if (nodeTo <= from || nodeFrom >= to || (free && best[node] == nodeTo - nodeFrom)) {
+            return -1;
+        }
+        if (left[node] == 0) {
+            return Math.max(nodeFrom, from);
+        }
+        int middle = (nodeFrom + nodeTo) / 2;
+        int childOffset = offset + pending[node];
+        int found = firstOccupied(left[node], nodeFrom, middle, from, to, childOffset);
+        return found >= 0 ? found : firstOccupied(left[node] + 1, middle, nodeTo, from, to, childOffset);
+    }
+}
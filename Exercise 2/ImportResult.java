@@ -0,0 +1,61 @@
+import java.util.Collections;
+import java.util.List;
+
+// Outcome of a TaskImporter run: per-line problems plus the result of adding the rows in bulk
+class ImportResult {
+    static class LineError {
+        private final long line;
+        private final String message;
+
+        LineError(long line, String message) {
+            this.line = line;
+            this.message = message;
+        }
+
+        public long getLine() { return line; }
+        public String getMessage() { return message; }
+
+        @Override
+        public String toString() {
+            return "line " + line + ": " + message;
+        }
+    }
+
+    private final long linesRead;
+    private final int tasksParsed;
+    private final long errorCount;
+    private final List<LineError> errors;
+    private final BatchAddResult batchResult;
+    private final long elapsedNanos;
+
+    ImportResult(long linesRead, int tasksParsed, long errorCount, List<LineError> errors,
+                 BatchAddResult batchResult, long elapsedNanos) {
+        this.linesRead = linesRead;
+        this.tasksParsed = tasksParsed;
+        this.errorCount = errorCount;
+        this.errors = Collections.unmodifiableList(errors);
+        this.batchResult = batchResult;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public long getLinesRead() { return linesRead; }
+    // Rows that parsed into a valid task
+    public int getTasksParsed() { return tasksParsed; }
+    // All rows that were rejected, by the parser or by the schedule
+    public long getErrorCount() { return errorCount; }
+    // The first rejected rows, in line order; capped, see TaskImporter.MAX_REPORTED_ERRORS
+    public List<LineError> getErrors() { return errors; }
+    public BatchAddResult getBatchResult() { return batchResult; }
+    public long getElapsedNanos() { return elapsedNanos; }
+
+    // True if the file's tasks were added to the schedule; false means none of them were
+    public boolean isApplied() {
+        return batchResult.isApplied();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Imported %d lines in %d ms: %d tasks parsed, %d rejected, batch %s",
+            linesRead, elapsedNanos / 1_000_000, tasksParsed, errorCount, batchResult.isApplied() ? "applied" : "not applied");
+    }
+}
@@ -0,0 +1,75 @@
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+// Time-ordered task index that answers overlap queries in O(log n + k)
+class IntervalIndex implements Iterable<Task> {
+    // Order by start time; end time and description break ties so distinct tasks never collapse into one entry
+    static final Comparator<Task> BY_START_TIME = Comparator.comparing(Task::getStartTime)
+            .thenComparing(Task::getEndTime)
+            .thenComparing(Task::getDescription);
+
+    private final ConcurrentSkipListSet<Task> tasks = new ConcurrentSkipListSet<>(BY_START_TIME);
+
+    public boolean add(Task task) {
+        return tasks.add(task);
+    }
+
+    public boolean remove(Task task) {
+        return tasks.remove(task);
+    }
+
+    public int size() {
+        return tasks.size();
+    }
+
+    public boolean isEmpty() {
+        return tasks.isEmpty();
+    }
+
+    // Read-only, time-ordered view of the indexed tasks
+    public NavigableSet<Task> tasks() {
+        return Collections.unmodifiableNavigableSet(tasks);
+    }
+
+    @Override
+    public Iterator<Task> iterator() {
+        return tasks().iterator();
+    }
+
+    // Return the earliest indexed task that conflicts with the given one, or null if there is none
+    public Task findConflict(Task task) {
+        List<Task> conflicts = findConflicts(task);
+        return conflicts.isEmpty() ? null : conflicts.get(0);
+    }
+
+    // Return every indexed task that conflicts with the given one, in start-time order.
+    // Indexed tasks never conflict with each other, so proper intervals (start < end) are also ordered by
+    // end time. Walking backwards from the last task starting before task.end, we can stop at the first
+    // proper interval that ends at or before task.start: nothing earlier can reach into the new task.
+    public List<Task> findConflicts(Task task) {
+        List<Task> conflicts = new ArrayList<>();
+        Iterator<Task> candidates = tasks.headSet(probe(task.getEndTime()), false).descendingIterator();
+        while (candidates.hasNext()) {
+            Task candidate = candidates.next();
+            if (task.conflicts(candidate)) {
+                conflicts.add(candidate);
+            } else if (candidate.getStartTime().isBefore(candidate.getEndTime())
+                    && !candidate.getEndTime().isAfter(task.getStartTime())) {
+                break;
+            }
+        }
+        Collections.reverse(conflicts);
+        return conflicts;
+    }
+
+    // Search key that sorts before every real task starting at the given time
+    static Task probe(LocalTime startTime) {
+        return new Task("", startTime, LocalTime.MIN, Priority.LOW);
+    }
+}
@@ -0,0 +1,48 @@
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+
+// One dated instance of a RecurringTask, produced on demand for a query window
+class Occurrence {
+    private static final DateTimeFormatter DATE_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+    private final RecurringTask source;
+    private final LocalDateTime start;
+    private final LocalDateTime end;
+
+    Occurrence(RecurringTask source, LocalDateTime start, LocalDateTime end) {
+        this.source = source;
+        this.start = start;
+        this.end = end;
+    }
+
+    public RecurringTask getSource() { return source; }
+    public String getDescription() { return source.getDescription(); }
+    public Priority getPriority() { return source.getPriority(); }
+    public LocalDateTime getStart() { return start; }
+    public LocalDateTime getEnd() { return end; }
+
+    public boolean overlaps(LocalDateTime from, LocalDateTime to) {
+        return start.isBefore(to) && from.isBefore(end);
+    }
+
+    // The part of this occurrence falling on the given date as a single-day Task, or null if it misses the
+    // date. A part running to midnight ends at LocalTime.MAX, since Task cannot express 24:00.
+    public Task toTask(LocalDate date) {
+        LocalDateTime dayStart = date.atStartOfDay();
+        LocalDateTime dayEnd = dayStart.plusDays(1);
+        if (!overlaps(dayStart, dayEnd)) {
+            return null;
+        }
+        LocalTime from = start.isAfter(dayStart) ? start.toLocalTime() : LocalTime.MIN;
+        LocalTime to = end.isBefore(dayEnd) ? end.toLocalTime() : LocalTime.MAX;
+        return new Task(getDescription(), from, to, getPriority());
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s - %s: %s [%s]",
+            start.format(DATE_TIME_FORMAT), end.format(DATE_TIME_FORMAT), getDescription(), getPriority());
+    }
+}
@@ -0,0 +1,9 @@
+// JMX view of one ScheduleManager operation's call count and latency, in microseconds
+public interface OperationMetricsMXBean {
+    long getCount();
+    double getMeanMicros();
+    double getP50Micros();
+    double getP99Micros();
+    double getP999Micros();
+    double getMaxMicros();
+}
@@ -0,0 +1,192 @@
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+// Immutable, size-augmented AVL tree of tasks. Insert and remove copy only the O(log n) nodes on the
+// path they touch and share the rest, so every version stays valid for readers that still hold it.
+final class PersistentTaskTree implements Iterable<Task> {
+    private static final Comparator<Task> ORDER = IntervalIndex.BY_START_TIME;
+    static final PersistentTaskTree EMPTY = new PersistentTaskTree(null);
+
+    private static final class Node {
+        final Task task;
+        final Node left;
+        final Node right;
+        final int height;
+        final int size;
+
+        Node(Task task, Node left, Node right) {
+            this.task = task;
+            this.left = left;
+            this.right = right;
+            this.height = Math.max(height(left), height(right)) + 1;
+            this.size = size(left) + size(right) + 1;
+        }
+    }
+
+    private final Node root;
+
+    private PersistentTaskTree(Node root) {
+        this.root = root;
+    }
+
+    // Build a balanced tree from tasks already in ORDER, in O(n)
+    static PersistentTaskTree fromSorted(Task[] sorted) {
+        return new PersistentTaskTree(build(sorted, 0, sorted.length));
+    }
+
+    public int size() {
+        return size(root);
+    }
+
+    public PersistentTaskTree with(Task task) {
+        return new PersistentTaskTree(insert(root, task));
+    }
+
+    public PersistentTaskTree without(Task task) {
+        return new PersistentTaskTree(remove(root, task));
+    }
+
+    // Task at the given position in time order, in O(log n)
+    public Task get(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size());
+        }
+        Node node = root;
+        while (true) {
+            int leftSize = size(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index == leftSize) {
+                return node.task;
+            } else {
+                index -= leftSize + 1;
+                node = node.right;
+            }
+        }
+    }
+
+    @Override
+    public Iterator<Task> iterator() {
+        return new InOrder(root, null, true);
+    }
+
+    // In-order iteration starting at the first task ordered at or after (or strictly after) the key
+    public Iterator<Task> iteratorFrom(Task key, boolean inclusive) {
+        return new InOrder(root, key, inclusive);
+    }
+
+    private static Node build(Task[] sorted, int from, int to) {
+        if (from >= to) {
+            return null;
+        }
+        int middle = (from + to) >>> 1;
+        return new Node(sorted[middle], build(sorted, from, middle), build(sorted, middle + 1, to));
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static Node insert(Node node, Task task) {
+        if (node == null) {
+            return new Node(task, null, null);
+        }
+        int order = ORDER.compare(task, node.task);
+        if (order < 0) {
+            return balance(node.task, insert(node.left, task), node.right);
+        } else if (order > 0) {
+            return balance(node.task, node.left, insert(node.right, task));
+        }
+        return new Node(task, node.left, node.right);
+    }
+
+    private static Node remove(Node node, Task task) {
+        if (node == null) {
+            return null;
+        }
+        int order = ORDER.compare(task, node.task);
+        if (order < 0) {
+            return balance(node.task, remove(node.left, task), node.right);
+        } else if (order > 0) {
+            return balance(node.task, node.left, remove(node.right, task));
+        }
+        if (node.left == null) {
+            return node.right;
+        }
+        if (node.right == null) {
+            return node.left;
+        }
+        Node successor = node.right;
+        while (successor.left != null) {
+            successor = successor.left;
+        }
+        return balance(successor.task, node.left, remove(node.right, successor.task));
+    }
+
+    private static Node balance(Task task, Node left, Node right) {
+        int skew = height(left) - height(right);
+        if (skew > 1) {
+            if (height(left.left) < height(left.right)) {
+                left = rotateLeft(left.task, left.left, left.right);
+            }
+            return new Node(left.task, left.left, new Node(task, left.right, right));
+        }
+        if (skew < -1) {
+            if (height(right.right) < height(right.left)) {
+                right = rotateRight(right.task, right.left, right.right);
+            }
+            return new Node(right.task, new Node(task, left, right.left), right.right);
+        }
+        return new Node(task, left, right);
+    }
+
+    private static Node rotateLeft(Task task, Node left, Node right) {
+        return new Node(right.task, new Node(task, left, right.left), right.right);
+    }
+
+    private static Node rotateRight(Task task, Node left, Node right) {
+        return new Node(left.task, left.left, new Node(task, left.right, right));
+    }
+
+    // Stack-based in-order walk; O(log n) to position, O(1) amortized per step
+    private static final class InOrder implements Iterator<Task> {
+        private final Deque<Node> path = new ArrayDeque<>();
+
+        InOrder(Node root, Task key, boolean inclusive) {
+            Node node = root;
+            while (node != null) {
+                int order = key == null ? -1 : ORDER.compare(key, node.task);
+                if (order < 0 || (order == 0 && inclusive)) {
+                    path.push(node);
+                    node = node.left;
+                } else {
+                    node = node.right;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !path.isEmpty();
+        }
+
+        @Override
+        public Task next() {
+            if (path.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            Node node = path.pop();
+            for (Node next = node.right; next != null; next = next.left) {
+                path.push(next);
+            }
+            return node.task;
+        }
+    }
+}
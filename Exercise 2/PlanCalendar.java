@@ -0,0 +1,163 @@
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+// Mission-long plan of recurring and multi-day tasks. Only the rules are stored: an insert checks the new
+// rule against each existing rule, and queries expand occurrences lazily inside the requested window, so
+// memory and insert cost do not grow with the horizon. Each ScheduleManager owns one and writes to it under
+// its write lock, checking its own day's tasks against the rules' occurrences on that day, and journals and
+// replicates the rules with its tasks (see ScheduleManager.addRecurringTask).
+class PlanCalendar {
+    private static final Comparator<Occurrence> BY_START = Comparator.comparing(Occurrence::getStart)
+            .thenComparing(Occurrence::getEnd)
+            .thenComparing(Occurrence::getDescription);
+
+    // Copy-on-write: readers iterate a stable list without locking, writers are serialized on this object
+    private volatile List<RecurringTask> tasks = Collections.emptyList();
+    private final Map<String, RecurringTask> byDescription = new ConcurrentHashMap<>();
+
+    public synchronized void add(RecurringTask task) throws TaskConflictException {
+        checkCanAdd(task);
+        put(task);
+    }
+
+    // Reject a task that reuses a description or has an occurrence overlapping another task's
+    public synchronized void checkCanAdd(RecurringTask task) throws TaskConflictException {
+        if (byDescription.containsKey(task.getDescription())) {
+            throw new TaskConflictException("Recurring task already exists: " + task.getDescription());
+        }
+        for (RecurringTask existing : tasks) {
+            if (task.conflicts(existing)) {
+                throw new TaskConflictException("Task conflicts with recurring task: " + existing.getDescription());
+            }
+        }
+    }
+
+    // Add without checking, for tasks validated before they were journaled (replay and replication)
+    synchronized void put(RecurringTask task) {
+        RecurringTask replaced = byDescription.put(task.getDescription(), task);
+        List<RecurringTask> updated = new ArrayList<>(tasks);
+        if (replaced != null) {
+            updated.remove(replaced);
+        }
+        updated.add(task);
+        tasks = Collections.unmodifiableList(updated);
+    }
+
+    // Replace every task, for a replica loading its leader's checkpoint
+    synchronized void replaceAll(Collection<RecurringTask> replacement) {
+        byDescription.clear();
+        for (RecurringTask task : replacement) {
+            byDescription.put(task.getDescription(), task);
+        }
+        tasks = Collections.unmodifiableList(new ArrayList<>(byDescription.values()));
+    }
+
+    public synchronized RecurringTask remove(String description) throws TaskNotFoundException {
+        RecurringTask task = discard(description);
+        if (task == null) {
+            throw new TaskNotFoundException("Task not found: " + description);
+        }
+        return task;
+    }
+
+    // Remove the task if present; returns it, or null if there was none
+    synchronized RecurringTask discard(String description) {
+        RecurringTask task = byDescription.remove(description);
+        if (task != null) {
+            List<RecurringTask> updated = new ArrayList<>(tasks);
+            updated.remove(task);
+            tasks = Collections.unmodifiableList(updated);
+        }
+        return task;
+    }
+
+    public RecurringTask get(String description) {
+        return byDescription.get(description);
+    }
+
+    public List<RecurringTask> getTasks() {
+        return tasks;
+    }
+
+    public int size() {
+        return tasks.size();
+    }
+
+    // Occurrences overlapping [from, to) in start order. Each rule contributes a lazy iterator and a heap
+    // merges their heads, so only as many occurrences are built as the caller consumes.
+    public Stream<Occurrence> occurrences(LocalDateTime from, LocalDateTime to) {
+        List<Iterator<Occurrence>> sources = new ArrayList<>();
+        for (RecurringTask task : tasks) {
+            Iterator<Occurrence> iterator = task.occurrences(from, to);
+            if (iterator.hasNext()) {
+                sources.add(iterator);
+            }
+        }
+        Iterator<Occurrence> merged = new MergingIterator(sources);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(merged,
+            Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    // The given date as single-day Tasks, clipped at midnight, ready for a ScheduleManager or a report
+    public List<Task> tasksOn(LocalDate date) {
+        List<Task> day = new ArrayList<>();
+        occurrences(date.atStartOfDay(), date.plusDays(1).atStartOfDay())
+            .forEach(occurrence -> day.add(occurrence.toTask(date)));
+        day.sort(IntervalIndex.BY_START_TIME);
+        return day;
+    }
+
+    private static final class MergingIterator implements Iterator<Occurrence> {
+        private final PriorityQueue<Head> heads;
+
+        MergingIterator(List<Iterator<Occurrence>> sources) {
+            heads = new PriorityQueue<>(Math.max(1, sources.size()), (a, b) -> BY_START.compare(a.occurrence, b.occurrence));
+            for (Iterator<Occurrence> source : sources) {
+                heads.add(new Head(source.next(), source));
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !heads.isEmpty();
+        }
+
+        @Override
+        public Occurrence next() {
+            Head head = heads.poll();
+            if (head == null) {
+                throw new NoSuchElementException();
+            }
+            Occurrence current = head.occurrence;
+            if (head.rest.hasNext()) {
+                head.occurrence = head.rest.next();
+                heads.add(head);
+            }
+            return current;
+        }
+    }
+
+    private static final class Head {
+        Occurrence occurrence;
+        final Iterator<Occurrence> rest;
+
+        Head(Occurrence occurrence, Iterator<Occurrence> rest) {
+            this.occurrence = occurrence;
+            this.rest = rest;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+// Lazy answer to a TaskQuery. Nothing is read until the stream is consumed, and the scan stops as soon as
+// the consumer does (e.g. after limit(n)). getExamined() counts every task the scan touched, matching or
+// not; compare it with the number of results to see how selective the chosen index was.
+class QueryResult {
+    private final TaskQuery query;
+    private final String plan;
+    private final Stream<Task> tasks;
+    // Written by the thread consuming the stream; read it from that thread once the stream is done
+    private long examined;
+    private long matched;
+
+    QueryResult(TaskQuery query, String plan, List<Iterator<Task>> sources) {
+        this.query = query;
+        this.plan = plan;
+        Iterator<Task> merged = sources.size() == 1 ? sources.get(0) : new MergingIterator(sources);
+        Iterator<Task> filtered = new Iterator<Task>() {
+            private Task next;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null && merged.hasNext()) {
+                    Task candidate = merged.next();
+                    examined++;
+                    if (query.matches(candidate)) {
+                        next = candidate;
+                        matched++;
+                    }
+                }
+                return next != null;
+            }
+
+            @Override
+            public Task next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Task current = next;
+                next = null;
+                return current;
+            }
+        };
+        this.tasks = StreamSupport.stream(Spliterators.spliteratorUnknownSize(filtered,
+            Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.DISTINCT), false);
+    }
+
+    public TaskQuery getQuery() { return query; }
+
+    // Which index answered the query, e.g. "start-time index" or "priority index [HIGH]"
+    public String getPlan() { return plan; }
+
+    // Matching tasks in the scanned index's order (time order for the live schedule, archive order for
+    // history); like any stream it can be consumed once
+    public Stream<Task> stream() { return tasks; }
+
+    public long getExamined() { return examined; }
+
+    public long getMatched() { return matched; }
+
+    @Override
+    public String toString() {
+        return query + " via " + plan + ": matched " + matched + " of " + examined + " examined";
+    }
+
+    // Time-ordered merge of a few time-ordered sources (one per priority bucket)
+    private static final class MergingIterator implements Iterator<Task> {
+        private final List<Iterator<Task>> sources;
+        private final Task[] heads;
+
+        MergingIterator(List<Iterator<Task>> sources) {
+            this.sources = List.copyOf(sources);
+            this.heads = new Task[this.sources.size()];
+            for (int i = 0; i < heads.length; i++) {
+                Iterator<Task> source = this.sources.get(i);
+                heads[i] = source.hasNext() ? source.next() : null;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            for (Task head : heads) {
+                if (head != null) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public Task next() {
+            int earliest = -1;
+            for (int i = 0; i < heads.length; i++) {
+                if (heads[i] != null && (earliest < 0 || IntervalIndex.BY_START_TIME.compare(heads[i], heads[earliest]) < 0)) {
+                    earliest = i;
+                }
+            }
+            if (earliest < 0) {
+                throw new NoSuchElementException();
+            }
+            Task current = heads[earliest];
+            Iterator<Task> source = sources.get(earliest);
+            heads[earliest] = source.hasNext() ? source.next() : null;
+            return current;
+        }
+    }
+}
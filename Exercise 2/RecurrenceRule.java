@@ -0,0 +1,152 @@
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.EnumSet;
+import java.util.Objects;
+import java.util.Set;
+
+// The dates on which a RecurringTask occurs: once, every n days, or on chosen weekdays every n weeks,
+// starting on a date and optionally ending on another (inclusive). Dates are computed on demand, so an
+// open-ended rule costs the same as a one-off.
+class RecurrenceRule {
+    enum Frequency {
+        ONCE, DAILY, WEEKLY
+    }
+
+    private final Frequency frequency;
+    private final LocalDate start;
+    // Inclusive; null for open-ended rules
+    private final LocalDate until;
+    private final int interval;
+    // Bit (dayOfWeek - 1) is set for every weekday a WEEKLY rule occurs on
+    private final int weekdays;
+
+    private RecurrenceRule(Frequency frequency, LocalDate start, LocalDate until, int interval, int weekdays) {
+        if (interval < 1) {
+            throw new IllegalArgumentException("Recurrence interval must be at least 1");
+        }
+        if (until != null && until.isBefore(start)) {
+            throw new IllegalArgumentException("Recurrence ends before it starts");
+        }
+        if (frequency == Frequency.WEEKLY && weekdays == 0) {
+            throw new IllegalArgumentException("Weekly recurrence needs at least one weekday");
+        }
+        this.frequency = frequency;
+        this.start = Objects.requireNonNull(start, "start");
+        this.until = until;
+        this.interval = interval;
+        this.weekdays = weekdays;
+    }
+
+    public static RecurrenceRule once(LocalDate date) {
+        return new RecurrenceRule(Frequency.ONCE, date, date, 1, 0);
+    }
+
+    // Every intervalDays days from start
+    public static RecurrenceRule daily(LocalDate start, int intervalDays) {
+        return new RecurrenceRule(Frequency.DAILY, start, null, intervalDays, 0);
+    }
+
+    // The given weekdays of every intervalWeeks-th week, counting the week containing start as the first
+    public static RecurrenceRule weekly(LocalDate start, int intervalWeeks, Set<DayOfWeek> days) {
+        int mask = 0;
+        for (DayOfWeek day : days) {
+            mask |= 1 << (day.getValue() - 1);
+        }
+        return new RecurrenceRule(Frequency.WEEKLY, start, null, intervalWeeks, mask);
+    }
+
+    // Rebuild a rule from its stored fields (see ScheduleMutation); weekdayMask as getWeekdayMask returns it
+    static RecurrenceRule of(Frequency frequency, LocalDate start, LocalDate until, int interval, int weekdayMask) {
+        return new RecurrenceRule(frequency, start, until, interval, weekdayMask);
+    }
+
+    // The same rule ending on the given date (inclusive)
+    public RecurrenceRule until(LocalDate lastDate) {
+        return new RecurrenceRule(frequency, start, lastDate, interval, weekdays);
+    }
+
+    public Frequency getFrequency() { return frequency; }
+    public LocalDate getStart() { return start; }
+    public LocalDate getUntil() { return until; }
+    public int getInterval() { return interval; }
+
+    // Bit (dayOfWeek - 1) set for every weekday of a WEEKLY rule
+    int getWeekdayMask() { return weekdays; }
+
+    public Set<DayOfWeek> getWeekdays() {
+        Set<DayOfWeek> days = EnumSet.noneOf(DayOfWeek.class);
+        for (DayOfWeek day : DayOfWeek.values()) {
+            if ((weekdays & (1 << (day.getValue() - 1))) != 0) {
+                days.add(day);
+            }
+        }
+        return days;
+    }
+
+    // Length in days after which the pattern repeats; 0 for a one-off
+    public int periodDays() {
+        switch (frequency) {
+            case DAILY: return interval;
+            case WEEKLY: return 7 * interval;
+            default: return 0;
+        }
+    }
+
+    public boolean occursOn(LocalDate date) {
+        return date.equals(firstOnOrAfter(date));
+    }
+
+    // Earliest occurrence date on or after the given one, or null if the rule has ended by then
+    public LocalDate firstOnOrAfter(LocalDate date) {
+        LocalDate candidate = date.isBefore(start) ? start : date;
+        switch (frequency) {
+            case ONCE:
+                candidate = candidate.equals(start) ? start : null;
+                break;
+            case DAILY:
+                long offset = ChronoUnit.DAYS.between(start, candidate);
+                candidate = start.plusDays((offset + interval - 1) / interval * interval);
+                break;
+            case WEEKLY:
+                candidate = firstWeeklyOnOrAfter(candidate);
+                break;
+        }
+        return candidate == null || (until != null && candidate.isAfter(until)) ? null : candidate;
+    }
+
+    // candidate is on or after start; at most two weeks are scanned day by day after skipping inactive weeks
+    private LocalDate firstWeeklyOnOrAfter(LocalDate candidate) {
+        LocalDate firstMonday = start.minusDays(start.getDayOfWeek().getValue() - 1);
+        while (true) {
+            long week = ChronoUnit.DAYS.between(firstMonday, candidate) / 7;
+            long skip = (interval - week % interval) % interval;
+            if (skip > 0) {
+                candidate = firstMonday.plusWeeks(week + skip);
+                continue;
+            }
+            for (int day = candidate.getDayOfWeek().getValue(); day <= 7; day++, candidate = candidate.plusDays(1)) {
+                if ((weekdays & (1 << (day - 1))) != 0) {
+                    return candidate;
+                }
+            }
+            // candidate is now the next Monday, which starts an inactive week unless interval is 1
+        }
+    }
+
+    @Override
+    public String toString() {
+        String pattern;
+        switch (frequency) {
+            case DAILY:
+                pattern = interval == 1 ? "daily" : "every " + interval + " days";
+                break;
+            case WEEKLY:
+                pattern = (interval == 1 ? "weekly on " : "every " + interval + " weeks on ") + getWeekdays();
+                break;
+            default:
+                return "on " + start;
+        }
+        return pattern + " from " + start + (until == null ? "" : " until " + until);
+    }
+}
@@ -0,0 +1,197 @@
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+// A task that occurs on every date of a RecurrenceRule, starting at a time of day and lasting a duration
+// that may run past midnight. Occurrences are produced lazily for a requested window and never stored.
+class RecurringTask {
+    private static final long NANOS_PER_DAY = 86_400_000_000_000L;
+
+    private final String description;
+    private final LocalTime startTime;
+    private final Duration duration;
+    private final Priority priority;
+    private final RecurrenceRule rule;
+    // Whole days an occurrence can reach past its start date
+    private final int spanDays;
+
+    public RecurringTask(String description, LocalTime startTime, Duration duration, Priority priority, RecurrenceRule rule) {
+        this.description = Objects.requireNonNull(description, "description");
+        this.startTime = Objects.requireNonNull(startTime, "startTime");
+        this.duration = Objects.requireNonNull(duration, "duration");
+        this.priority = Objects.requireNonNull(priority, "priority");
+        this.rule = Objects.requireNonNull(rule, "rule");
+        if (duration.isNegative() || duration.isZero()) {
+            throw new IllegalArgumentException("Duration must be positive: " + description);
+        }
+        this.spanDays = (int) ((startTime.toNanoOfDay() + duration.toNanos() - 1) / NANOS_PER_DAY);
+        // A daily task may run past midnight, but not into its next occurrence
+        int gap = minGapDays();
+        if (gap != Integer.MAX_VALUE && duration.toNanos() > gap * NANOS_PER_DAY) {
+            throw new IllegalArgumentException("Occurrences of " + description + " would overlap each other");
+        }
+    }
+
+    // A one-off task on a date, which may end on a later date
+    public static RecurringTask once(String description, LocalDateTime start, LocalDateTime end, Priority priority) {
+        return new RecurringTask(description, start.toLocalTime(), Duration.between(start, end), priority,
+            RecurrenceRule.once(start.toLocalDate()));
+    }
+
+    public String getDescription() { return description; }
+    public LocalTime getStartTime() { return startTime; }
+    public Duration getDuration() { return duration; }
+    public Priority getPriority() { return priority; }
+    public RecurrenceRule getRule() { return rule; }
+
+    // Occurrences overlapping [from, to), in start order
+    public Iterator<Occurrence> occurrences(LocalDateTime from, LocalDateTime to) {
+        return new Iterator<Occurrence>() {
+            // Occurrences starting up to spanDays before the window can still reach into it
+            private LocalDate nextDate = rule.firstOnOrAfter(from.toLocalDate().minusDays(spanDays));
+            private Occurrence next = advance();
+
+            private Occurrence advance() {
+                while (nextDate != null) {
+                    LocalDateTime start = nextDate.atTime(startTime);
+                    if (!start.isBefore(to)) {
+                        nextDate = null;
+                        return null;
+                    }
+                    nextDate = rule.firstOnOrAfter(nextDate.plusDays(1));
+                    LocalDateTime end = start.plus(duration);
+                    if (end.isAfter(from)) {
+                        return new Occurrence(RecurringTask.this, start, end);
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Occurrence next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                Occurrence current = next;
+                next = advance();
+                return current;
+            }
+        };
+    }
+
+    // True if any occurrence of this task overlaps any occurrence of the other. Both patterns repeat with
+    // their periods once both have started, so only one joint period (the lcm) after the later start needs
+    // checking, however far ahead either rule runs; the rule with the longer period is walked.
+    public boolean conflicts(RecurringTask other) {
+        if (!timesOfDayMayOverlap(other)) {
+            return false;
+        }
+        RecurringTask walked = rule.periodDays() >= other.rule.periodDays() ? this : other;
+        RecurringTask probed = walked == this ? other : this;
+        // Occurrences can only meet where both rules are live, give or take the longest span
+        long reach = Math.max(spanDays, other.spanDays) + 1L;
+        LocalDate laterStart = max(rule.getStart(), other.rule.getStart());
+        LocalDate from = laterStart.minusDays(reach);
+        LocalDate to = min(rule.getUntil(), other.rule.getUntil());
+        long period = lcm(rule.periodDays(), other.rule.periodDays());
+        if (period > 0) {
+            LocalDate periodEnd = laterStart.plusDays(period);
+            to = to == null || periodEnd.isBefore(to) ? periodEnd : to;
+        }
+        to = to.plusDays(reach);
+        if (to.isBefore(from)) {
+            return false;
+        }
+        Iterator<Occurrence> walk = walked.occurrences(from.atStartOfDay(), to.plusDays(1).atStartOfDay());
+        while (walk.hasNext()) {
+            Occurrence occurrence = walk.next();
+            if (probed.occurrences(occurrence.getStart(), occurrence.getEnd()).hasNext()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Cheap pre-check on times of day alone: tasks shorter than a day whose daily windows are disjoint never meet
+    private boolean timesOfDayMayOverlap(RecurringTask other) {
+        long day = NANOS_PER_DAY;
+        if (duration.toNanos() >= day || other.duration.toNanos() >= day) {
+            return true;
+        }
+        long start = startTime.toNanoOfDay();
+        long end = start + duration.toNanos();
+        long otherStart = other.startTime.toNanoOfDay();
+        long otherEnd = otherStart + other.duration.toNanos();
+        // Compare on a circular day: shift the other window by -1, 0 and +1 days
+        for (long shift = -day; shift <= day; shift += day) {
+            if (start < otherEnd + shift && otherStart + shift < end) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Shortest number of days between consecutive occurrence dates, or MAX_VALUE for a one-off
+    private int minGapDays() {
+        int period = rule.periodDays();
+        if (period == 0) {
+            return Integer.MAX_VALUE;
+        }
+        int gap = Integer.MAX_VALUE;
+        LocalDate previous = rule.firstOnOrAfter(rule.getStart());
+        LocalDate limit = rule.getStart().plusDays(2L * period);
+        while (previous != null) {
+            LocalDate next = rule.firstOnOrAfter(previous.plusDays(1));
+            if (next == null || next.isAfter(limit)) {
+                break;
+            }
+            gap = (int) Math.min(gap, ChronoUnit.DAYS.between(previous, next));
+            previous = next;
+        }
+        return gap;
+    }
+
+    private static long lcm(long a, long b) {
+        if (a == 0 || b == 0) {
+            return 0;
+        }
+        long x = a;
+        long y = b;
+        while (y != 0) {
+            long t = x % y;
+            x = y;
+            y = t;
+        }
+        return a / x * b;
+    }
+
+    private static LocalDate max(LocalDate a, LocalDate b) {
+        return a.isAfter(b) ? a : b;
+    }
+
+    // Earlier of two optional end dates, null meaning open-ended
+    private static LocalDate min(LocalDate a, LocalDate b) {
+        if (a == null) {
+            return b;
+        }
+        if (b == null) {
+            return a;
+        }
+        return a.isBefore(b) ? a : b;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s +%s: %s [%s] %s", startTime, duration, description, priority, rule);
+    }
+}
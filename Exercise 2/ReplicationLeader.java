@@ -0,0 +1,263 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+// Leader side of log-shipping replication. Each follower connects over TCP and sends the log epoch and
+// the last sequence number it applied; the leader resumes from there if its ReplicationLog still holds
+// the following entries, or sends a checkpoint first. From then on one thread per follower streams
+// frames, each an int length, the payload and an int CRC32 of the payload, as in the journal:
+//   MUTATIONS   type, leader head, first sequence, count, then count x (length, ScheduleMutation bytes)
+//   HEARTBEAT   type, leader head (sent when nothing was logged for a heartbeat interval)
+//   CHECKPOINT  type, epoch, sequence, task count, recurring task count; then CHECKPOINT_TASKS frames
+//               (type, count, tasks) and CHECKPOINT_RECURRING frames (type, count, recurring tasks)
+// Batches are bounded by MAX_BATCH_ENTRIES and MAX_FRAME_BYTES. A log entry too large for any frame a
+// follower accepts (MAX_FRAME_LENGTH), e.g. a huge ADD_ALL, is shipped as a checkpoint instead, whose
+// chunks hold any number of tasks.
+class ReplicationLeader implements AutoCloseable {
+    static final byte MUTATIONS = 1;
+    static final byte HEARTBEAT = 2;
+    static final byte CHECKPOINT = 3;
+    static final byte CHECKPOINT_TASKS = 4;
+    static final byte CHECKPOINT_RECURRING = 5;
+    static final int MAX_FRAME_BYTES = 1 << 20;
+    // Largest frame a follower reads; anything longer is taken for a corrupt stream
+    static final int MAX_FRAME_LENGTH = 64 << 20;
+    private static final int MAX_BATCH_ENTRIES = 4096;
+    // A follower that has not sent its position within this many heartbeat intervals is dropped
+    static final int TIMEOUT_HEARTBEATS = 5;
+
+    private static final Logger logger = Logger.getLogger(ReplicationLeader.class.getName());
+
+    private final ScheduleManager scheduleManager;
+    private final ReplicationLog log;
+    private final long heartbeatMillis;
+    private final int maxFrameLength;
+    // Target size of batches and checkpoint chunks
+    private final int frameBytes;
+    private final ServerSocket serverSocket;
+    private final ExecutorService executor;
+    private final Set<Socket> followers = ConcurrentHashMap.newKeySet();
+    private volatile boolean closed;
+
+    // The schedule must already have the log attached (ScheduleManager.attachReplicationLog)
+    public ReplicationLeader(ScheduleManager scheduleManager, ReplicationLog log, InetSocketAddress address,
+                             long heartbeatMillis) throws IOException {
+        this(scheduleManager, log, address, heartbeatMillis, MAX_FRAME_LENGTH);
+    }
+
+    // With frames capped below MAX_FRAME_LENGTH, so tests can reach the limit with small schedules
+    ReplicationLeader(ScheduleManager scheduleManager, ReplicationLog log, InetSocketAddress address,
+                      long heartbeatMillis, int maxFrameLength) throws IOException {
+        this.scheduleManager = scheduleManager;
+        this.log = log;
+        this.heartbeatMillis = heartbeatMillis;
+        this.maxFrameLength = Math.min(maxFrameLength, MAX_FRAME_LENGTH);
+        this.frameBytes = Math.min(MAX_FRAME_BYTES, this.maxFrameLength);
+        this.serverSocket = new ServerSocket();
+        serverSocket.bind(address);
+        // Each follower holds its thread for as long as it is connected, so the pool is unbounded: a fixed
+        // pool would leave followers beyond its size queued with no error
+        this.executor = Executors.newCachedThreadPool(Threads.factory("replication-leader"));
+    }
+
+    public void start() {
+        executor.execute(this::acceptLoop);
+        logger.log(Level.INFO, "Replication leader listening on {0}", serverSocket.getLocalSocketAddress());
+    }
+
+    public InetSocketAddress getAddress() {
+        return (InetSocketAddress) serverSocket.getLocalSocketAddress();
+    }
+
+    public int getFollowerCount() {
+        return followers.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        serverSocket.close();
+        for (Socket follower : followers) {
+            follower.close();
+        }
+        executor.shutdownNow();
+    }
+
+    private void acceptLoop() {
+        while (!closed) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                // Only the handshake is read, so this bounds how long a silent connection holds a thread
+                socket.setSoTimeout((int) Math.min(Integer.MAX_VALUE, heartbeatMillis * TIMEOUT_HEARTBEATS));
+                followers.add(socket);
+                executor.execute(() -> serve(socket));
+            } catch (IOException e) {
+                if (!closed) {
+                    logger.log(Level.WARNING, "Error accepting follower", e);
+                }
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (Socket follower = socket;
+             DataInputStream in = new DataInputStream(new BufferedInputStream(follower.getInputStream()));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(follower.getOutputStream(), MAX_FRAME_BYTES + 64))) {
+            long epoch = in.readLong();
+            long sent = in.readLong();
+            FrameWriter frames = new FrameWriter(out);
+            if (epoch != log.getEpoch() || !log.canResumeAfter(sent)) {
+                sent = sendCheckpoint(frames);
+            }
+            logger.log(Level.INFO, "Follower {0} streaming from sequence {1}", new Object[] {follower.getRemoteSocketAddress(), sent + 1});
+            while (!closed) {
+                List<byte[]> batch = log.read(sent, MAX_BATCH_ENTRIES, frameBytes, heartbeatMillis);
+                if (batch == null) {
+                    // Fell further behind than the log retains, e.g. a slow link during a burst
+                    sent = sendCheckpoint(frames);
+                } else if (batch.isEmpty()) {
+                    frames.start(1 + 8).put(HEARTBEAT).putLong(log.head());
+                    frames.send();
+                } else {
+                    // The read stops once past frameBytes, so its last entry may not fit; it goes in the next batch
+                    int length = 1 + 8 + 8 + 4;
+                    int count = 0;
+                    while (count < batch.size() && length + 4 + batch.get(count).length <= maxFrameLength) {
+                        length += 4 + batch.get(count).length;
+                        count++;
+                    }
+                    if (count == 0) {
+                        // The next entry alone is too large for a frame; the checkpoint covers it, in chunks
+                        logger.log(Level.INFO, "Mutation {0} is too large for a frame ({1} bytes); sending a checkpoint",
+                            new Object[] {sent + 1, batch.get(0).length});
+                        sent = sendCheckpoint(frames);
+                        continue;
+                    }
+                    ByteBuffer frame = frames.start(length).put(MUTATIONS).putLong(log.head()).putLong(sent + 1).putInt(count);
+                    for (byte[] entry : batch.subList(0, count)) {
+                        frame.putInt(entry.length).put(entry);
+                    }
+                    frames.send();
+                    sent += count;
+                }
+                out.flush();
+            }
+        } catch (SocketException e) {
+            logger.log(Level.INFO, "Follower {0} disconnected", socket.getRemoteSocketAddress());
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Error streaming to follower " + socket.getRemoteSocketAddress(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            followers.remove(socket);
+        }
+    }
+
+    // Send the whole schedule in chunks; returns the sequence number it covers
+    private long sendCheckpoint(FrameWriter frames) throws IOException {
+        ReplicationLog.Checkpoint checkpoint = scheduleManager.replicationCheckpoint();
+        List<Task> tasks = checkpoint.getTasks();
+        List<RecurringTask> recurringTasks = checkpoint.getRecurringTasks();
+        frames.start(1 + 8 + 8 + 4 + 4).put(CHECKPOINT).putLong(log.getEpoch()).putLong(checkpoint.getSequence())
+            .putInt(tasks.size()).putInt(recurringTasks.size());
+        frames.send();
+        ByteBuffer chunk = startChunk(frames);
+        int count = 0;
+        for (Task task : tasks) {
+            byte[] description = task.getDescription().getBytes(StandardCharsets.UTF_8);
+            int size = ScheduleMutation.encodedTaskSize(description);
+            if (size > frameBytes - 1 - 4) {
+                throw new IOException("Task record too large for a checkpoint: " + task.getDescription());
+            }
+            if (chunk.remaining() < size) {
+                sendChunk(frames, chunk, CHECKPOINT_TASKS, count);
+                chunk = startChunk(frames);
+                count = 0;
+            }
+            ScheduleMutation.encodeTask(chunk, task, description);
+            count++;
+        }
+        if (count > 0) {
+            sendChunk(frames, chunk, CHECKPOINT_TASKS, count);
+            chunk = startChunk(frames);
+            count = 0;
+        }
+        for (RecurringTask task : recurringTasks) {
+            byte[] description = task.getDescription().getBytes(StandardCharsets.UTF_8);
+            int size = ScheduleMutation.encodedRecurringTaskSize(description);
+            if (size > frameBytes - 1 - 4) {
+                throw new IOException("Recurring task record too large for a checkpoint: " + task.getDescription());
+            }
+            if (chunk.remaining() < size) {
+                sendChunk(frames, chunk, CHECKPOINT_RECURRING, count);
+                chunk = startChunk(frames);
+                count = 0;
+            }
+            ScheduleMutation.encodeRecurringTask(chunk, task, description);
+            count++;
+        }
+        if (count > 0) {
+            sendChunk(frames, chunk, CHECKPOINT_RECURRING, count);
+        }
+        logger.log(Level.INFO, "Sent checkpoint of {0} tasks at sequence {1}", new Object[] {tasks.size(), checkpoint.getSequence()});
+        return checkpoint.getSequence();
+    }
+
+    // A checkpoint frame with room for records after its type and count, which sendChunk fills in
+    private ByteBuffer startChunk(FrameWriter frames) {
+        ByteBuffer chunk = frames.start(frameBytes).limit(frameBytes);
+        chunk.position(1 + 4);
+        return chunk;
+    }
+
+    private static void sendChunk(FrameWriter frames, ByteBuffer chunk, byte type, int count) throws IOException {
+        chunk.put(0, type).putInt(1, count);
+        frames.send();
+    }
+
+    // Builds one frame at a time in a reused buffer and writes it with its length and CRC32
+    private static final class FrameWriter {
+        private final DataOutputStream out;
+        private final CRC32 crc = new CRC32();
+        private ByteBuffer frame = ByteBuffer.allocate(1 << 16);
+
+        FrameWriter(DataOutputStream out) {
+            this.out = out;
+        }
+
+        // The buffer for the next frame, cleared and able to hold at least length bytes
+        ByteBuffer start(int length) {
+            if (frame.capacity() < length) {
+                frame = ByteBuffer.allocate(Math.max(length, frame.capacity() * 2));
+            }
+            frame.clear();
+            return frame;
+        }
+
+        void send() throws IOException {
+            int length = frame.position();
+            crc.reset();
+            crc.update(frame.array(), 0, length);
+            out.writeInt(length);
+            out.write(frame.array(), 0, length);
+            out.writeInt((int) crc.getValue());
+        }
+    }
+}
@@ -0,0 +1,78 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+// The leader's ordered mutation log for replication. ScheduleManager appends each mutation's encoded form
+// under its write lock, numbering them 1, 2, 3, ...; the last 'retain' entries are kept in a ring so a
+// follower that reconnects can resume where it stopped. A follower further behind gets a checkpoint.
+// The epoch identifies this log, so positions from another leader (or an earlier run) are never reused.
+class ReplicationLog {
+    // A copy of the schedule and the position of the last mutation it includes
+    static final class Checkpoint {
+        private final long sequence;
+        private final List<Task> tasks;
+        private final List<RecurringTask> recurringTasks;
+
+        Checkpoint(long sequence, List<Task> tasks, List<RecurringTask> recurringTasks) {
+            this.sequence = sequence;
+            this.tasks = tasks;
+            this.recurringTasks = recurringTasks;
+        }
+
+        public long getSequence() { return sequence; }
+        public List<Task> getTasks() { return tasks; }
+        public List<RecurringTask> getRecurringTasks() { return recurringTasks; }
+    }
+
+    private final long epoch = ThreadLocalRandom.current().nextLong();
+    private final byte[][] entries;
+    private long head;
+
+    public ReplicationLog(int retain) {
+        if (retain <= 0) {
+            throw new IllegalArgumentException("Replication log must retain at least one entry");
+        }
+        entries = new byte[retain][];
+    }
+
+    public long getEpoch() { return epoch; }
+
+    public synchronized long head() {
+        return head;
+    }
+
+    // Record the next mutation and wake waiting senders; returns its sequence number
+    public synchronized long append(byte[] mutation) {
+        head++;
+        entries[(int) (head % entries.length)] = mutation;
+        notifyAll();
+        return head;
+    }
+
+    // True if every entry after the given position is still retained
+    public synchronized boolean canResumeAfter(long sequence) {
+        return sequence <= head && head - sequence <= entries.length;
+    }
+
+    // Entries following 'after', at most maxCount of them and about maxBytes in total, waiting up to
+    // timeoutMillis for the first to arrive. Empty on timeout; null if the entries have been overwritten.
+    public synchronized List<byte[]> read(long after, int maxCount, int maxBytes, long timeoutMillis) throws InterruptedException {
+        long deadline = System.nanoTime() + timeoutMillis * 1_000_000L;
+        long remaining = timeoutMillis;
+        while (head == after && remaining > 0) {
+            wait(remaining);
+            remaining = (deadline - System.nanoTime()) / 1_000_000L;
+        }
+        if (!canResumeAfter(after)) {
+            return null;
+        }
+        List<byte[]> batch = new ArrayList<>((int) Math.min(maxCount, head - after));
+        int bytes = 0;
+        for (long sequence = after + 1; sequence <= head && batch.size() < maxCount && bytes < maxBytes; sequence++) {
+            byte[] entry = entries[(int) (sequence % entries.length)];
+            batch.add(entry);
+            bytes += entry.length;
+        }
+        return batch;
+    }
+}
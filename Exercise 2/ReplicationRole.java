@@ -0,0 +1,9 @@
+// What this node does in log-shipping replication (replication.role in config.properties)
+enum ReplicationRole {
+    // Standalone schedule
+    NONE,
+    // Streams its mutation log to followers (ReplicationLeader)
+    LEADER,
+    // Read-only replica of a leader's schedule (ScheduleFollower)
+    FOLLOWER
+}
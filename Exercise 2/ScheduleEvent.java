@@ -0,0 +1,79 @@
+// Typed change notification published to ScheduleObservers; text is only formatted if an observer asks for it
+class ScheduleEvent {
+    enum Type {
+        ADDED, BATCH_ADDED, REMOVED, UPDATED, COMPLETED, ARCHIVED, RECURRING_ADDED, RECURRING_REMOVED
+    }
+
+    private final Type type;
+    private final String description;
+    // The task after the change; null for removals, batches and recurring tasks
+    private final Task task;
+    private final int count;
+
+    private ScheduleEvent(Type type, String description, Task task, int count) {
+        this.type = type;
+        this.description = description;
+        this.task = task;
+        this.count = count;
+    }
+
+    public static ScheduleEvent added(Task task) {
+        return new ScheduleEvent(Type.ADDED, task.getDescription(), task, 1);
+    }
+
+    public static ScheduleEvent batchAdded(int count) {
+        return new ScheduleEvent(Type.BATCH_ADDED, null, null, count);
+    }
+
+    public static ScheduleEvent removed(String description) {
+        return new ScheduleEvent(Type.REMOVED, description, null, 1);
+    }
+
+    public static ScheduleEvent updated(String oldDescription, Task task) {
+        return new ScheduleEvent(Type.UPDATED, oldDescription, task, 1);
+    }
+
+    public static ScheduleEvent completed(Task task) {
+        return new ScheduleEvent(Type.COMPLETED, task.getDescription(), task, 1);
+    }
+
+    public static ScheduleEvent archived(int count) {
+        return new ScheduleEvent(Type.ARCHIVED, null, null, count);
+    }
+
+    // Recurring tasks are not Tasks, so these carry only the description
+    public static ScheduleEvent recurringAdded(String description) {
+        return new ScheduleEvent(Type.RECURRING_ADDED, description, null, 1);
+    }
+
+    public static ScheduleEvent recurringRemoved(String description) {
+        return new ScheduleEvent(Type.RECURRING_REMOVED, description, null, 1);
+    }
+
+    public Type getType() { return type; }
+    // Description the event refers to; for updates, the description before the edit
+    public String getDescription() { return description; }
+    public Task getTask() { return task; }
+    // Number of tasks affected
+    public int getCount() { return count; }
+
+    // The notification text ScheduleManager used to send before events were typed
+    public String toMessage() {
+        switch (type) {
+            case ADDED: return "Task added: " + description;
+            case BATCH_ADDED: return "Tasks added: " + count;
+            case REMOVED: return "Task removed: " + description;
+            case UPDATED: return "Task updated: " + description;
+            case COMPLETED: return "Task marked as completed: " + description;
+            case ARCHIVED: return "Tasks archived: " + count;
+            case RECURRING_ADDED: return "Recurring task added: " + description;
+            case RECURRING_REMOVED: return "Recurring task removed: " + description;
+            default: throw new IllegalStateException("Unknown event type: " + type);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return toMessage();
+    }
+}
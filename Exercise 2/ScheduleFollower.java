@@ -0,0 +1,272 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+// Follower side of log-shipping replication (see ReplicationLeader for the wire format). A background
+// thread connects to the leader, resumes from the last applied sequence number, and applies each batch to
+// the local ScheduleManager in one step; after a disconnect it keeps retrying and catches up from the
+// leader's log. Reads go to the local schedule. Lag is reported in mutations (leader head minus applied)
+// and in milliseconds since the replica was last known to be caught up; heartbeats refresh the latter
+// while the leader is idle, so a healthy replica stays within a heartbeat interval or two. A connection
+// that delivers nothing for ReplicationLeader.TIMEOUT_HEARTBEATS intervals is treated as dead and
+// reopened, so a leader that vanished without closing the socket does not stall the replica forever.
+class ScheduleFollower implements AutoCloseable {
+    private static final Logger logger = Logger.getLogger(ScheduleFollower.class.getName());
+
+    private final ScheduleManager scheduleManager;
+    private final InetSocketAddress leader;
+    private final long retryMillis;
+    private final long maxLagMillis;
+    private final int readTimeoutMillis;
+    private final CRC32 crc = new CRC32();
+    // Reused for every frame; only the worker thread touches these
+    private byte[] frame = new byte[1 << 16];
+    private volatile boolean running;
+    private volatile Thread worker;
+    private volatile Socket socket;
+    private volatile boolean connected;
+    // Replication position; only the worker thread writes these
+    private volatile long epoch;
+    private volatile long applied;
+    private volatile long leaderHead;
+    private volatile long caughtUpNanos = System.nanoTime();
+    private volatile long checkpoints;
+
+    // heartbeatMillis is the leader's replication.heartbeat.ms
+    public ScheduleFollower(ScheduleManager scheduleManager, InetSocketAddress leader, long heartbeatMillis,
+                            long retryMillis, long maxLagMillis) {
+        this.scheduleManager = scheduleManager;
+        this.leader = leader;
+        this.retryMillis = retryMillis;
+        this.maxLagMillis = maxLagMillis;
+        this.readTimeoutMillis = (int) Math.min(Integer.MAX_VALUE, heartbeatMillis * ReplicationLeader.TIMEOUT_HEARTBEATS);
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        worker = Threads.factory("replication-follower").newThread(this::run);
+        worker.start();
+    }
+
+    // Stop following; the schedule keeps what it has applied, and start() resumes from there
+    public void stop() {
+        Thread stopping;
+        synchronized (this) {
+            running = false;
+            stopping = worker;
+            worker = null;
+        }
+        closeSocket();
+        if (stopping != null) {
+            stopping.interrupt();
+            try {
+                stopping.join(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // Failover: stop following so this node's schedule can take writes (and lead with a new log)
+    public void promote() {
+        stop();
+        logger.log(Level.INFO, "Replica promoted at sequence {0}; lag was {1} mutations",
+            new Object[] {applied, getLagOps()});
+    }
+
+    @Override
+    public void close() {
+        stop();
+    }
+
+    public ScheduleManager getSchedule() { return scheduleManager; }
+    public boolean isFollowing() { return running; }
+    public boolean isConnected() { return connected; }
+    public long getAppliedSequence() { return applied; }
+
+    // Checkpoints loaded so far; each means the leader could not resume from its log
+    public long getCheckpointCount() { return checkpoints; }
+
+    // Mutations the leader had logged, as of its last frame, that are not yet applied here
+    public long getLagOps() {
+        return Math.max(0, leaderHead - applied);
+    }
+
+    // Time since this replica last held everything the leader had logged
+    public long getLagMillis() {
+        return getLagOps() == 0 && connected ? 0 : (System.nanoTime() - caughtUpNanos) / 1_000_000L;
+    }
+
+    // True while reads here are no staler than replication.max.lag.ms
+    public boolean isFresh() {
+        return (System.nanoTime() - caughtUpNanos) / 1_000_000L <= maxLagMillis;
+    }
+
+    private void run() {
+        while (running) {
+            try (Socket connection = new Socket()) {
+                socket = connection;
+                if (!running) {
+                    return;
+                }
+                connection.connect(leader, (int) Math.max(1000, retryMillis));
+                connection.setTcpNoDelay(true);
+                connection.setSoTimeout(readTimeoutMillis);
+                connected = true;
+                logger.log(Level.INFO, "Following {0} from sequence {1}", new Object[] {leader, applied + 1});
+                follow(connection);
+            } catch (SocketTimeoutException e) {
+                if (running) {
+                    logger.log(Level.WARNING, "No frame from {0} in {1} ms; reconnecting", new Object[] {leader, readTimeoutMillis});
+                }
+            } catch (IOException e) {
+                if (running) {
+                    logger.log(Level.FINE, "Replication connection to " + leader + " lost", e);
+                }
+            } finally {
+                connected = false;
+                socket = null;
+            }
+            if (running) {
+                try {
+                    Thread.sleep(retryMillis);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void follow(Socket connection) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(connection.getOutputStream()));
+        out.writeLong(epoch);
+        out.writeLong(applied);
+        out.flush();
+        DataInputStream in = new DataInputStream(new BufferedInputStream(connection.getInputStream(), 1 << 16));
+        while (running) {
+            ByteBuffer payload = readFrame(in);
+            switch (payload.get()) {
+                case ReplicationLeader.MUTATIONS:
+                    applyMutations(payload);
+                    break;
+                case ReplicationLeader.HEARTBEAT:
+                    observeHead(payload.getLong());
+                    break;
+                case ReplicationLeader.CHECKPOINT:
+                    applyCheckpoint(payload, in);
+                    break;
+                default:
+                    throw new IOException("Unknown replication frame type");
+            }
+        }
+    }
+
+    private void applyMutations(ByteBuffer payload) throws IOException {
+        long head = payload.getLong();
+        long first = payload.getLong();
+        int count = payload.getInt();
+        if (first != applied + 1) {
+            throw new IOException("Replication gap: expected sequence " + (applied + 1) + " but got " + first);
+        }
+        List<ScheduleMutation> batch = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int length = payload.getInt();
+            batch.add(ScheduleMutation.decode(payload.slice().limit(length)));
+            payload.position(payload.position() + length);
+        }
+        scheduleManager.replicate(batch);
+        applied += count;
+        observeHead(head);
+    }
+
+    // The checkpoint's tasks follow in CHECKPOINT_TASKS frames and its recurring tasks in CHECKPOINT_RECURRING
+    // frames; the schedule is replaced once all arrive
+    private void applyCheckpoint(ByteBuffer header, DataInputStream in) throws IOException {
+        long checkpointEpoch = header.getLong();
+        long sequence = header.getLong();
+        int total = header.getInt();
+        int recurringTotal = header.getInt();
+        List<Task> tasks = new ArrayList<>(total);
+        while (tasks.size() < total) {
+            ByteBuffer chunk = checkpointFrame(in, ReplicationLeader.CHECKPOINT_TASKS);
+            int count = chunk.getInt();
+            for (int i = 0; i < count; i++) {
+                tasks.add(ScheduleMutation.decodeTask(chunk));
+            }
+        }
+        List<RecurringTask> recurringTasks = new ArrayList<>(recurringTotal);
+        while (recurringTasks.size() < recurringTotal) {
+            ByteBuffer chunk = checkpointFrame(in, ReplicationLeader.CHECKPOINT_RECURRING);
+            int count = chunk.getInt();
+            for (int i = 0; i < count; i++) {
+                recurringTasks.add(ScheduleMutation.decodeRecurringTask(chunk));
+            }
+        }
+        scheduleManager.replaceAll(tasks, recurringTasks);
+        epoch = checkpointEpoch;
+        applied = sequence;
+        // Sequence numbers restart with a new leader's log, so the old head no longer applies
+        leaderHead = sequence;
+        caughtUpNanos = System.nanoTime();
+        checkpoints++;
+    }
+
+    private ByteBuffer checkpointFrame(DataInputStream in, byte type) throws IOException {
+        ByteBuffer chunk = readFrame(in);
+        if (chunk.get() != type) {
+            throw new IOException("Checkpoint interrupted by another frame");
+        }
+        return chunk;
+    }
+
+    // The next frame's payload, in a buffer reused by the following call
+    private ByteBuffer readFrame(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length <= 0 || length > ReplicationLeader.MAX_FRAME_LENGTH) {
+            throw new IOException("Invalid replication frame length: " + length);
+        }
+        if (frame.length < length) {
+            frame = new byte[Math.max(length, frame.length * 2)];
+        }
+        in.readFully(frame, 0, length);
+        int checksum = in.readInt();
+        crc.reset();
+        crc.update(frame, 0, length);
+        if ((int) crc.getValue() != checksum) {
+            throw new IOException("Replication frame checksum mismatch");
+        }
+        return ByteBuffer.wrap(frame, 0, length);
+    }
+
+    private void observeHead(long head) {
+        leaderHead = Math.max(leaderHead, head);
+        if (applied >= head) {
+            caughtUpNanos = System.nanoTime();
+        }
+    }
+
+    private void closeSocket() {
+        Socket current = socket;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (IOException e) {
+                logger.log(Level.FINE, "Error closing replication connection", e);
+            }
+        }
+    }
+}
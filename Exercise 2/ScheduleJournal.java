@@ -0,0 +1,507 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+// Append-only write-ahead journal plus compact snapshots for a ScheduleManager.
+// Files in the directory are numbered by generation: snapshot-<g>.bin holds the state after every
+// journal-<n>.log with n <= g, so recovery loads the newest snapshot and replays the newer journals.
+// Snapshots hold the tasks followed by the recurring tasks, which recovery hands over as ADD_RECURRING
+// records; version 1 snapshots, written before recurring tasks existed, have only the tasks.
+class ScheduleJournal implements AutoCloseable {
+    enum FsyncPolicy {
+        // Write and fsync every record before the mutation is applied
+        ALWAYS,
+        // Buffer records; each writer waits for an fsync covering its record, and writers that arrive while
+        // one fsync runs share the next (group commit)
+        GROUP,
+        // Buffer records, hand them to the operating system on a short timer and leave durability to it
+        NONE
+    }
+
+    private static final Logger logger = Logger.getLogger(ScheduleJournal.class.getName());
+    private static final int JOURNAL_MAGIC = 0x534A524E; // "SJRN"
+    private static final int SNAPSHOT_MAGIC = 0x53534E50; // "SSNP"
+    private static final int FORMAT_VERSION = 1;
+    private static final int SNAPSHOT_VERSION = 2;
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final Path directory;
+    // Tunable at runtime through configure
+    private volatile FsyncPolicy fsyncPolicy;
+    private volatile long snapshotEveryOps;
+    private long fsyncIntervalMillis;
+    private ScheduledFuture<?> drainTimer;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final CRC32 crc = new CRC32();
+    // Drains the buffer for NONE
+    private final ScheduledExecutorService background;
+    // Writes snapshots, so a large one never holds up the drain timer
+    private final ExecutorService snapshots;
+    private final AtomicBoolean snapshotPending = new AtomicBoolean();
+    // One group-commit fsync at a time; writers queued behind it usually find their record already covered
+    private final Object syncLock = new Object();
+    private FileChannel channel;
+    private long generation;
+    private long opsSinceSnapshot;
+    // Records appended so far (guarded by this) and how many of them are known to be on disk
+    private long appended;
+    private volatile long durable;
+
+    private ScheduleJournal(Path directory, FsyncPolicy fsyncPolicy, long fsyncIntervalMillis, long snapshotEveryOps) {
+        this.directory = directory;
+        this.background = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "schedule-journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.snapshots = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "schedule-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        configure(fsyncPolicy, fsyncIntervalMillis, snapshotEveryOps);
+    }
+
+    public static ScheduleJournal open(Path directory, FsyncPolicy fsyncPolicy, long fsyncIntervalMillis,
+                                       long snapshotEveryOps) throws IOException {
+        Files.createDirectories(directory);
+        return new ScheduleJournal(directory, fsyncPolicy, fsyncIntervalMillis, snapshotEveryOps);
+    }
+
+    // Change durability and snapshot frequency without reopening; records already buffered are flushed
+    // under the new policy
+    public synchronized void configure(FsyncPolicy fsyncPolicy, long fsyncIntervalMillis, long snapshotEveryOps) {
+        this.snapshotEveryOps = snapshotEveryOps;
+        if (fsyncPolicy == this.fsyncPolicy && fsyncIntervalMillis == this.fsyncIntervalMillis) {
+            return;
+        }
+        if (drainTimer != null) {
+            drainTimer.cancel(false);
+            drainTimer = null;
+        }
+        if (fsyncPolicy == FsyncPolicy.ALWAYS && channel != null) {
+            try {
+                drainBuffer();
+                channel.force(false);
+                durable = appended;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Error flushing schedule journal", e);
+            }
+        }
+        this.fsyncPolicy = fsyncPolicy;
+        this.fsyncIntervalMillis = fsyncIntervalMillis;
+        if (fsyncPolicy == FsyncPolicy.NONE && !background.isShutdown()) {
+            drainTimer = background.scheduleWithFixedDelay(this::flushQuietly, fsyncIntervalMillis, fsyncIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Feed the newest readable snapshot's tasks, its recurring tasks as ADD_RECURRING records, and then every
+    // newer journal record to the given consumers.
+    // The journals must follow the snapshot without a gap, and only the last one may end in a torn record,
+    // as a crash during an append leaves; that tail is cut off so later runs find a clean file. Anything else
+    // means records are missing, and replaying the ones after them could build a schedule that never
+    // existed, so recovery fails instead.
+    public synchronized void recover(Consumer<Task> snapshotTask, Consumer<ScheduleMutation> journalRecord) throws IOException {
+        long snapshotGeneration = 0;
+        List<Long> snapshots = generations("snapshot-", ".bin");
+        long newestSnapshot = snapshots.isEmpty() ? 0 : snapshots.get(snapshots.size() - 1);
+        for (int i = snapshots.size() - 1; i >= 0; i--) {
+            if (readSnapshot(snapshotPath(snapshots.get(i)), snapshotTask, journalRecord)) {
+                snapshotGeneration = snapshots.get(i);
+                break;
+            }
+        }
+        List<Long> journals = new ArrayList<>();
+        for (long journalGeneration : generations("journal-", ".log")) {
+            if (journalGeneration > snapshotGeneration) {
+                journals.add(journalGeneration);
+            }
+        }
+        long lastGeneration = snapshotGeneration;
+        long[] replayed = new long[1];
+        for (int i = 0; i < journals.size(); i++) {
+            Path path = journalPath(journals.get(i));
+            if (journals.get(i) != lastGeneration + 1) {
+                throw new IOException("Cannot replay " + path + ": journal generation " + (lastGeneration + 1) + " is missing");
+            }
+            long valid = readJournal(path, record -> {
+                journalRecord.accept(record);
+                replayed[0]++;
+            });
+            if (valid < Files.size(path)) {
+                if (i < journals.size() - 1) {
+                    throw new IOException("Journal " + path + " is damaged at byte " + valid + " and newer journals follow it");
+                }
+                cutTornTail(path, valid);
+            }
+            lastGeneration = journals.get(i);
+        }
+        // The journals a newer, unreadable snapshot replaced were deleted when it was written
+        if (lastGeneration < newestSnapshot) {
+            throw new IOException("Snapshot " + snapshotPath(newestSnapshot) + " is unreadable and the journals it replaced are gone");
+        }
+        generation = lastGeneration;
+        logger.log(Level.INFO, "Recovered schedule from snapshot {0} and {1} journal records",
+                new Object[] {snapshotGeneration, replayed[0]});
+    }
+
+    // Record one mutation; callers append in the order mutations are applied
+    public long append(ScheduleMutation mutation) {
+        return append(mutation.encode());
+    }
+
+    // Under GROUP, block until the record with the given sequence number is fsynced. Call it after releasing
+    // the lock held while appending, so other writers can append meanwhile and share the same fsync.
+    public void awaitDurable(long sequence) throws IOException {
+        if (fsyncPolicy != FsyncPolicy.GROUP || durable >= sequence) {
+            return;
+        }
+        synchronized (syncLock) {
+            if (durable >= sequence) {
+                return;
+            }
+            FileChannel current;
+            long covered;
+            synchronized (this) {
+                if (channel == null) {
+                    // Closed; close forces the file first
+                    return;
+                }
+                drainBuffer();
+                current = channel;
+                covered = appended;
+            }
+            try {
+                current.force(false);
+            } catch (ClosedChannelException e) {
+                // Rotated or closed meanwhile; both force the file before closing it
+            }
+            durable = Math.max(durable, covered);
+        }
+    }
+
+    // Record one mutation already encoded with ScheduleMutation.encode; returns its sequence number for
+    // awaitDurable
+    public synchronized long append(byte[] payload) {
+        try {
+            if (channel == null) {
+                startGeneration(generation + 1);
+            }
+            crc.reset();
+            crc.update(payload);
+            if (buffer.remaining() < payload.length + 8) {
+                drainBuffer();
+            }
+            if (buffer.remaining() < payload.length + 8) {
+                ByteBuffer frame = ByteBuffer.allocate(payload.length + 8);
+                frame.putInt(payload.length).putInt((int) crc.getValue()).put(payload).flip();
+                writeFully(frame);
+            } else {
+                buffer.putInt(payload.length).putInt((int) crc.getValue()).put(payload);
+            }
+            appended++;
+            if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+                drainBuffer();
+                channel.force(false);
+                durable = appended;
+            }
+            opsSinceSnapshot++;
+            return appended;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error writing schedule journal", e);
+        }
+    }
+
+    // True once enough records have accumulated that a new snapshot would shorten recovery
+    public synchronized boolean needsSnapshot() {
+        return opsSinceSnapshot >= snapshotEveryOps;
+    }
+
+    // Run the given checkpoint on the snapshot thread unless one is already queued
+    public void requestSnapshot(Runnable checkpoint) {
+        if (snapshotPending.compareAndSet(false, true)) {
+            snapshots.execute(() -> {
+                try {
+                    checkpoint.run();
+                } catch (RuntimeException e) {
+                    logger.log(Level.SEVERE, "Error writing schedule snapshot", e);
+                } finally {
+                    snapshotPending.set(false);
+                }
+            });
+        }
+    }
+
+    // Seal the current journal and start the next one; returns the generation a snapshot taken now covers.
+    // Callers must block appends (hold the schedule's write lock) while rotating.
+    public synchronized long rotate() throws IOException {
+        long sealed = generation;
+        if (channel != null) {
+            drainBuffer();
+            channel.force(false);
+            channel.close();
+            channel = null;
+            durable = appended;
+        }
+        startGeneration(sealed + 1);
+        opsSinceSnapshot = 0;
+        return sealed;
+    }
+
+    // Write the snapshot for a sealed generation, then delete the files it supersedes
+    public void writeSnapshot(long snapshotGeneration, Collection<Task> tasks, Collection<RecurringTask> recurringTasks)
+            throws IOException {
+        Path target = snapshotPath(snapshotGeneration);
+        Path temporary = directory.resolve(target.getFileName() + ".tmp");
+        ByteBuffer out = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        CRC32 checksum = new CRC32();
+        try (FileChannel file = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            out.putInt(SNAPSHOT_MAGIC).putInt(SNAPSHOT_VERSION).putLong(snapshotGeneration).putInt(tasks.size());
+            for (Task task : tasks) {
+                byte[] description = task.getDescription().getBytes(StandardCharsets.UTF_8);
+                int size = ScheduleMutation.encodedTaskSize(description);
+                if (out.remaining() < size + 4) {
+                    flushSnapshotBuffer(file, out, checksum);
+                }
+                if (out.remaining() < size + 4) {
+                    throw new IOException("Task record too large for snapshot: " + task.getDescription());
+                }
+                ScheduleMutation.encodeTask(out, task, description);
+            }
+            out.putInt(recurringTasks.size());
+            for (RecurringTask task : recurringTasks) {
+                byte[] description = task.getDescription().getBytes(StandardCharsets.UTF_8);
+                int size = ScheduleMutation.encodedRecurringTaskSize(description);
+                if (out.remaining() < size + 4) {
+                    flushSnapshotBuffer(file, out, checksum);
+                }
+                if (out.remaining() < size + 4) {
+                    throw new IOException("Recurring task record too large for snapshot: " + task.getDescription());
+                }
+                ScheduleMutation.encodeRecurringTask(out, task, description);
+            }
+            flushSnapshotBuffer(file, out, checksum);
+            out.putInt((int) checksum.getValue()).flip();
+            while (out.hasRemaining()) {
+                file.write(out);
+            }
+            file.force(true);
+        }
+        Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        for (long old : generations("snapshot-", ".bin")) {
+            if (old < snapshotGeneration) {
+                Files.deleteIfExists(snapshotPath(old));
+            }
+        }
+        for (long old : generations("journal-", ".log")) {
+            if (old <= snapshotGeneration) {
+                Files.deleteIfExists(journalPath(old));
+            }
+        }
+        logger.log(Level.INFO, "Wrote schedule snapshot {0} with {1} tasks", new Object[] {snapshotGeneration, tasks.size()});
+    }
+
+    // Push buffered records to the file, and fsync them unless the policy is NONE; called by the drain timer
+    public void flush() throws IOException {
+        FileChannel current;
+        synchronized (this) {
+            if (channel == null) {
+                return;
+            }
+            drainBuffer();
+            current = channel;
+        }
+        if (fsyncPolicy != FsyncPolicy.NONE) {
+            try {
+                current.force(false);
+            } catch (ClosedChannelException e) {
+                // Rotated or closed meanwhile; both force the file before closing it
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        background.shutdown();
+        snapshots.shutdown();
+        try {
+            background.awaitTermination(10, TimeUnit.SECONDS);
+            snapshots.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            if (channel != null) {
+                drainBuffer();
+                channel.force(false);
+                channel.close();
+                channel = null;
+                durable = appended;
+            }
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Error flushing schedule journal", e);
+        }
+    }
+
+    private void startGeneration(long next) throws IOException {
+        generation = next;
+        channel = FileChannel.open(journalPath(next), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(16);
+        header.putInt(JOURNAL_MAGIC).putInt(FORMAT_VERSION).putLong(next).flip();
+        writeFully(header);
+    }
+
+    private void drainBuffer() throws IOException {
+        buffer.flip();
+        writeFully(buffer);
+        buffer.clear();
+    }
+
+    private void writeFully(ByteBuffer source) throws IOException {
+        while (source.hasRemaining()) {
+            channel.write(source);
+        }
+    }
+
+    private static void flushSnapshotBuffer(FileChannel file, ByteBuffer out, CRC32 checksum) throws IOException {
+        out.flip();
+        checksum.update(out.duplicate());
+        while (out.hasRemaining()) {
+            file.write(out);
+        }
+        out.clear();
+    }
+
+    // Load a snapshot through a read-only mapping; returns false if it is truncated or corrupt
+    private boolean readSnapshot(Path path, Consumer<Task> snapshotTask, Consumer<ScheduleMutation> journalRecord) throws IOException {
+        try (FileChannel file = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = file.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot too large to map: " + path);
+            }
+            MappedByteBuffer data = file.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            int version = size < 24 || data.getInt() != SNAPSHOT_MAGIC ? 0 : data.getInt();
+            if (version != 1 && version != SNAPSHOT_VERSION) {
+                logger.log(Level.WARNING, "Ignoring unreadable snapshot {0}", path);
+                return false;
+            }
+            CRC32 checksum = new CRC32();
+            checksum.update(data.duplicate().position(0).limit((int) size - 4));
+            if ((int) checksum.getValue() != data.getInt((int) size - 4)) {
+                logger.log(Level.WARNING, "Ignoring corrupt snapshot {0}", path);
+                return false;
+            }
+            data.getLong();
+            int count = data.getInt();
+            for (int i = 0; i < count; i++) {
+                snapshotTask.accept(ScheduleMutation.decodeTask(data));
+            }
+            int recurringCount = version == 1 ? 0 : data.getInt();
+            for (int i = 0; i < recurringCount; i++) {
+                journalRecord.accept(ScheduleMutation.addRecurring(ScheduleMutation.decodeRecurringTask(data)));
+            }
+            return true;
+        }
+    }
+
+    // Replay one journal file up to the first torn or corrupt record; returns the length of the intact part
+    private long readJournal(Path path, Consumer<ScheduleMutation> journalRecord) throws IOException {
+        try (FileChannel file = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = file.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Journal too large to map: " + path);
+            }
+            if (size < 16) {
+                // Torn while its header was being written, so it holds no records
+                return 0;
+            }
+            MappedByteBuffer data = file.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (data.getInt() != JOURNAL_MAGIC || data.getInt() != FORMAT_VERSION) {
+                throw new IOException("Unreadable journal header in " + path);
+            }
+            data.getLong();
+            long valid = data.position();
+            CRC32 checksum = new CRC32();
+            while (data.remaining() >= 8) {
+                int length = data.getInt();
+                int expected = data.getInt();
+                if (length < 0 || length > data.remaining()) {
+                    break;
+                }
+                ByteBuffer payload = data.slice().limit(length);
+                checksum.reset();
+                checksum.update(payload.duplicate());
+                if ((int) checksum.getValue() != expected) {
+                    break;
+                }
+                journalRecord.accept(ScheduleMutation.decode(payload));
+                data.position(data.position() + length);
+                valid = data.position();
+            }
+            return valid;
+        }
+    }
+
+    private static void cutTornTail(Path path, long valid) throws IOException {
+        logger.log(Level.WARNING, "Cutting torn tail of journal {0} at byte {1}", new Object[] {path, valid});
+        try (FileChannel file = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            file.truncate(valid);
+            file.force(true);
+        }
+    }
+
+    private List<Long> generations(String prefix, String suffix) throws IOException {
+        List<Long> result = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(prefix) && name.endsWith(suffix))
+                    .forEach(name -> {
+                        try {
+                            result.add(Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length())));
+                        } catch (NumberFormatException e) {
+                            logger.log(Level.WARNING, "Ignoring unexpected file {0}", name);
+                        }
+                    });
+        }
+        result.sort(null);
+        return result;
+    }
+
+    private Path journalPath(long journalGeneration) {
+        return directory.resolve(String.format("journal-%016d.log", journalGeneration));
+    }
+
+    private Path snapshotPath(long snapshotGeneration) {
+        return directory.resolve(String.format("snapshot-%016d.bin", snapshotGeneration));
+    }
+}
@@ -0,0 +1,34 @@
+import java.time.LocalDate;
+import java.util.Objects;
+
+// Identifies one independent schedule: a crew member's timeline for a single day
+class ScheduleKey {
+    private final String crewMember;
+    private final LocalDate date;
+
+    public ScheduleKey(String crewMember, LocalDate date) {
+        this.crewMember = Objects.requireNonNull(crewMember, "crewMember");
+        this.date = Objects.requireNonNull(date, "date");
+    }
+
+    public String getCrewMember() { return crewMember; }
+    public LocalDate getDate() { return date; }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ScheduleKey)) return false;
+        ScheduleKey other = (ScheduleKey) o;
+        return crewMember.equals(other.crewMember) && date.equals(other.date);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * crewMember.hashCode() + date.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return crewMember + "@" + date;
+    }
+}
@@ -1,93 +1,1130 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.management.JMException;
 
 class ScheduleManager {
-    private static ScheduleManager instance;
-    private final ConcurrentSkipListSet<Task> tasks;
-    private final List<ScheduleObserver> observers;
-    private static final Logger logger = Logger.getLogger(ScheduleManager.class.getName());
+    private final IntervalIndex tasks;
+    private final Map<String, Task> tasksByDescription;
+    private final Map<Priority, NavigableSet<Task>> tasksByPriority;
+    private final Map<Priority, AtomicInteger> taskCounts;
+    private final Map<Priority, AtomicInteger> openTaskCounts;
+    private final EventDispatcher observers;
+    // Latency histograms and gauges; disabled (one volatile read per call) until switched on
+    private final ScheduleMetrics metrics;
+    // Writers hold the write lock across check-and-apply so every mutation is atomic across all indexes.
+    // Events are published after the lock is released, so a full observer buffer never blocks other writers.
+    // Single-index reads go straight to the concurrent structures, full views read the published snapshot,
+    // and priority views use optimistic reads.
+    private final StampedLock lock;
+    // Write-ahead journal; null while the schedule is memory-only
+    private volatile ScheduleJournal journal;
+    // Mutation log shipped to followers; null unless this schedule leads replication
+    private volatile ReplicationLog replicationLog;
+    // Latest published version of the schedule; readers take it without locking
+    private volatile ScheduleSnapshot current;
+    // Working copy of the snapshot tree, published together with the version at the end of each mutation
+    private PersistentTaskTree tree;
+    // Set while applying a large change; the tree is then rebuilt once from the interval index
+    private boolean treeDeferred;
+    // Priority weights for plan(); replaced as a whole when settings are reloaded
+    private volatile SchedulePlanner planner;
+    // Cold store for completed or past tasks; null while everything stays live
+    private volatile TaskArchive archive;
+    // Tasks completed since the last archive sweep, so COMPLETED sweeps never scan the schedule; guarded by
+    // the write lock, and entries removed or edited meanwhile are skipped when swept
+    private final List<Task> completedSinceSweep = new ArrayList<>();
+    // Gap index for free-slot queries; built on first use, then maintained with every insert and delete
+    private volatile FreeTimeIndex freeTime;
+    // Text index for description searches; built on first use, then maintained with every insert and delete
+    private volatile DescriptionIndex descriptionIndex;
+    // The day this schedule's tasks fall on, and the recurring and multi-day tasks planned across days
+    private final LocalDate date;
+    private final PlanCalendar calendar = new PlanCalendar();
+    // The calendar's occurrences on 'date' as single-day tasks: new tasks must not overlap them. Replaced
+    // under the write lock whenever the calendar changes
+    private volatile IntervalIndex recurringToday = new IntervalIndex();
+    // Messages use {0} parameters so nothing is formatted unless the level is enabled, and logp names the
+    // source, so no stack walk is needed to infer it
+    private static final String CLASS_NAME = ScheduleManager.class.getName();
+    private static final Logger logger = Logger.getLogger(CLASS_NAME);
 
-    private ScheduleManager() {
-        tasks = new ConcurrentSkipListSet<>(Comparator.comparing(Task::getStartTime));
-        observers = new ArrayList<>();
+    // A schedule for today
+    ScheduleManager() {
+        this(LocalDate.now());
     }
 
-    public static synchronized ScheduleManager getInstance() {
-        if (instance == null) {
-            instance = new ScheduleManager();
+    ScheduleManager(LocalDate date) {
+        this.date = date;
+        tasks = new IntervalIndex();
+        tasksByDescription = new ConcurrentHashMap<>();
+        tasksByPriority = new EnumMap<>(Priority.class);
+        taskCounts = new EnumMap<>(Priority.class);
+        openTaskCounts = new EnumMap<>(Priority.class);
+        for (Priority priority : Priority.values()) {
+            tasksByPriority.put(priority, new ConcurrentSkipListSet<>(IntervalIndex.BY_START_TIME));
+            taskCounts.put(priority, new AtomicInteger());
+            openTaskCounts.put(priority, new AtomicInteger());
         }
-        return instance;
+        ScheduleSettings settings = ConfigurationManager.getSettings();
+        planner = planner(settings);
+        metrics = new ScheduleMetrics();
+        metrics.setEnabled(settings.isMetricsEnabled());
+        observers = new EventDispatcher(metrics, settings);
+        metrics.gauge("tasks", () -> current.size());
+        metrics.gauge("observer.queue.depth", observers::queueDepth);
+        metrics.gauge("observer.dropped", observers::droppedEvents);
+        metrics.gauge("archived", () -> {
+            TaskArchive activeArchive = archive;
+            return activeArchive == null ? 0 : activeArchive.size();
+        });
+        lock = new StampedLock();
+        current = ScheduleSnapshot.EMPTY;
+        tree = PersistentTaskTree.EMPTY;
     }
 
     public void addTask(Task task) throws TaskConflictException {
-        for (Task existingTask : tasks) {
-            if (task.conflicts(existingTask)) {
-                String errorMessage = "Task conflicts with existing task: " + existingTask.getDescription();
-                logger.log(Level.WARNING, errorMessage);
-                throw new TaskConflictException(errorMessage);
+        long started = metrics.start();
+        try {
+            long sequence;
+            long stamp = lock.writeLock();
+            try {
+                checkCanInsert(task, null);
+                sequence = journal(ScheduleMutation.add(task));
+                insert(task);
+                publish();
+            } finally {
+                lock.unlockWrite(stamp);
             }
+            commitJournal(sequence);
+            observers.publish(ScheduleEvent.added(task));
+            logger.logp(Level.INFO, CLASS_NAME, "addTask", "Task added: {0}", task.getDescription());
+        } finally {
+            metrics.record(ScheduleMetrics.Operation.ADD_TASK, started);
+        }
+    }
+
+    // Add a whole batch atomically: either every task is added or none is. The batch is sorted once and
+    // swept in start-time order against both the live schedule and the tasks already staged from it.
+    public BatchAddResult addTasks(Collection<Task> batch) {
+        long started = metrics.start();
+        try {
+            if (batch.isEmpty()) {
+                // Nothing to journal, replicate or announce
+                return new BatchAddResult(true, Collections.emptyList());
+            }
+            List<Task> sorted = new ArrayList<>(batch);
+            sorted.sort(IntervalIndex.BY_START_TIME);
+            Map<Task, BatchAddResult.Entry> outcomes = new IdentityHashMap<>();
+            boolean applied;
+            long sequence = 0;
+            long stamp = lock.writeLock();
+            try {
+                IntervalIndex staged = new IntervalIndex();
+                Map<String, Task> stagedByDescription = new HashMap<>();
+                for (Task task : sorted) {
+                    outcomes.put(task, stage(task, staged, stagedByDescription));
+                }
+                applied = staged.size() == sorted.size();
+                if (applied) {
+                    sequence = journal(ScheduleMutation.addAll(new ArrayList<>(staged.tasks())));
+                    // Path-copying each task of a batch bigger than the schedule costs more than one rebuild
+                    treeDeferred = sorted.size() > tree.size();
+                    for (Task task : staged) {
+                        insert(task);
+                    }
+                    rebuildTreeIfDeferred();
+                    publish();
+                }
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            commitJournal(sequence);
+
+            List<BatchAddResult.Entry> entries = new ArrayList<>(batch.size());
+            for (Task task : batch) {
+                entries.add(outcomes.get(task));
+            }
+            BatchAddResult result = new BatchAddResult(applied, entries);
+            if (applied) {
+                observers.publish(ScheduleEvent.batchAdded(sorted.size()));
+            }
+            logger.logp(applied ? Level.INFO : Level.WARNING, CLASS_NAME, "addTasks", "{0}", result);
+            return result;
+        } finally {
+            metrics.record(ScheduleMetrics.Operation.ADD_TASKS, started);
         }
-        tasks.add(task);
-        notifyObservers("Task added: " + task.getDescription());
-        logger.log(Level.INFO, "Task added: " + task.getDescription());
     }
 
     public void removeTask(String description) throws TaskNotFoundException {
-        Task taskToRemove = getTask(description);
-        tasks.remove(taskToRemove);
-        notifyObservers("Task removed: " + description);
-        logger.log(Level.INFO, "Task removed: " + description);
+        long started = metrics.start();
+        try {
+            long sequence;
+            long stamp = lock.writeLock();
+            try {
+                Task task = lookup(description);
+                sequence = journal(ScheduleMutation.remove(description));
+                delete(task);
+                publish();
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            commitJournal(sequence);
+            observers.publish(ScheduleEvent.removed(description));
+            logger.logp(Level.INFO, CLASS_NAME, "removeTask", "Task removed: {0}", description);
+        } finally {
+            metrics.record(ScheduleMetrics.Operation.REMOVE_TASK, started);
+        }
     }
 
+    // Every task in time order, as an unmodifiable view of the current snapshot; nothing is copied
     public List<Task> viewTasks() {
-        return new ArrayList<>(tasks);
+        long started = metrics.start();
+        try {
+            return current.tasks();
+        } finally {
+            metrics.record(ScheduleMetrics.Operation.VIEW_TASKS, started);
+        }
+    }
+
+    // One page of tasks starting at or after fromTime; continue with snapshot().pageAfter for stable paging
+    public List<Task> viewTasks(LocalTime fromTime, int limit) {
+        long started = metrics.start();
+        try {
+            return current.page(fromTime, limit);
+        } finally {
+            metrics.record(ScheduleMetrics.Operation.VIEW_TASKS, started);
+        }
+    }
+
+    // The latest consistent version of the schedule, in O(1)
+    public ScheduleSnapshot snapshot() {
+        return current;
     }
 
     public Task getTask(String description) throws TaskNotFoundException {
-        return tasks.stream()
-                .filter(task -> task.getDescription().equals(description))
-                .findFirst()
-                .orElseThrow(() -> new TaskNotFoundException("Task not found: " + description));
+        long started = metrics.start();
+        try {
+            return lookup(description);
+        } finally {
+            metrics.record(ScheduleMetrics.Operation.GET_TASK, started);
+        }
     }
 
+    // Replace a task in one step: either the updated task is in the schedule or the original is untouched
     public void editTask(String oldDescription, Task updatedTask) throws TaskNotFoundException, TaskConflictException {
-        removeTask(oldDescription);
+        editTask(oldDescription, originalTask -> updatedTask);
+    }
+
+    // Replace a task with one derived from its current version, e.g. a partial update. The edit runs under
+    // the write lock, so no other write lands between reading the task and replacing it; it must be quick.
+    // Returns the updated task.
+    public Task editTask(String oldDescription, UnaryOperator<Task> edit) throws TaskNotFoundException, TaskConflictException {
+        long started = metrics.start();
         try {
-            addTask(updatedTask);
-        } catch (TaskConflictException e) {
-            // If the updated task conflicts, add the original task back
-            addTask(getTask(oldDescription));
-            throw e;
+            Task updatedTask;
+            long sequence;
+            long stamp = lock.writeLock();
+            try {
+                Task originalTask = lookup(oldDescription);
+                updatedTask = edit.apply(originalTask);
+                checkCanInsert(updatedTask, originalTask);
+                sequence = journal(ScheduleMutation.edit(oldDescription, updatedTask));
+                delete(originalTask);
+                insert(updatedTask);
+                publish();
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            commitJournal(sequence);
+            observers.publish(ScheduleEvent.updated(oldDescription, updatedTask));
+            logger.logp(Level.INFO, CLASS_NAME, "editTask", "Task updated: {0}", oldDescription);
+            return updatedTask;
+        } finally {
+            metrics.record(ScheduleMetrics.Operation.EDIT_TASK, started);
         }
     }
 
-    public void markTaskAsCompleted(String description) throws TaskNotFoundException {
-        Task task = getTask(description);
-        task.setCompleted(true);
-        notifyObservers("Task marked as completed: " + description);
-        logger.log(Level.INFO, "Task marked as completed: " + description);
+    // Returns the task, completed, as the write left it
+    public Task markTaskAsCompleted(String description) throws TaskNotFoundException {
+        long started = metrics.start();
+        try {
+            Task task;
+            long sequence = 0;
+            long stamp = lock.writeLock();
+            try {
+                task = lookup(description);
+                if (!task.isCompleted()) {
+                    sequence = journal(ScheduleMutation.complete(description));
+                    complete(task);
+                    publish();
+                }
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            commitJournal(sequence);
+            observers.publish(ScheduleEvent.completed(task));
+            logger.logp(Level.INFO, CLASS_NAME, "markTaskAsCompleted", "Task marked as completed: {0}", description);
+            return task;
+        } finally {
+            metrics.record(ScheduleMetrics.Operation.COMPLETE_TASK, started);
+        }
     }
 
     public List<Task> viewTasksByPriority(Priority priority) {
-        return tasks.stream()
-                .filter(task -> task.getPriority() == priority)
-                .collect(Collectors.toList());
+        long started = metrics.start();
+        try {
+            NavigableSet<Task> bucket = tasksByPriority.get(priority);
+            return readConsistently(() -> new ArrayList<>(bucket));
+        } finally {
+            metrics.record(ScheduleMetrics.Operation.VIEW_BY_PRIORITY, started);
+        }
+    }
+
+    // Tasks matching the query, in time order, as a lazy stream over the live indexes (weakly consistent,
+    // like viewTasksByPriority's buckets). The window becomes a subSet range scan; when the query leaves out
+    // some priorities, only the buckets of the selected ones are scanned and merged.
+    public QueryResult query(TaskQuery query) {
+        long started = metrics.start();
+        try {
+            Set<Priority> priorities = query.getPriorities();
+            int selected = 0;
+            for (Priority priority : priorities) {
+                selected += taskCounts.get(priority).get();
+            }
+            List<Iterator<Task>> sources = new ArrayList<>(priorities.size());
+            String plan;
+            if (priorities.size() < Priority.values().length && selected < current.size()) {
+                for (Priority priority : priorities) {
+                    sources.add(query.candidates(tasksByPriority.get(priority)));
+                }
+                plan = "priority index " + priorities;
+            } else {
+                sources.add(query.candidates(tasks.tasks()));
+                plan = "start-time index";
+            }
+            return new QueryResult(query, plan, sources);
+        } finally {
+            metrics.record(ScheduleMetrics.Operation.QUERY, started);
+        }
+    }
+
+    // Number of tasks at the given priority; skip list size() is linear, so counts are kept alongside the buckets
+    public int countTasksByPriority(Priority priority) {
+        long started = metrics.start();
+        try {
+            return taskCounts.get(priority).get();
+        } finally {
+            metrics.record(ScheduleMetrics.Operation.COUNT_BY_PRIORITY, started);
+        }
+    }
+
+    // Number of tasks at the given priority that are not yet completed
+    public int countOpenTasksByPriority(Priority priority) {
+        long started = metrics.start();
+        try {
+            return openTaskCounts.get(priority).get();
+        } finally {
+            metrics.record(ScheduleMetrics.Operation.COUNT_BY_PRIORITY, started);
+        }
+    }
+
+    // Free stretches of at least minLength between from and to, in time order, answered from the gap index.
+    // Gaps are whole seconds, so a sub-second gap between two tasks is not reported.
+    public List<TimeSlot> findFreeSlots(Duration minLength, LocalTime from, LocalTime to) {
+        long started = metrics.start();
+        try {
+            FreeTimeIndex index = freeTimeIndex();
+            int minSeconds = (int) Math.min(FreeTimeIndex.SECONDS_PER_DAY, minLength.toSeconds() + (minLength.toNanosPart() > 0 ? 1 : 0));
+            long stamp = lock.readLock();
+            try {
+                return index.freeSlots(FreeTimeIndex.endSecond(from), FreeTimeIndex.startSecond(to) + (to.equals(LocalTime.MAX) ? 1 : 0), minSeconds);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        } finally {
+            metrics.record(ScheduleMetrics.Operation.FIND_FREE_SLOTS, started);
+        }
+    }
+
+    // At most limit tasks whose description starts with the prefix, ignoring case, alphabetically.
+    // Cheap enough to run on every keystroke of an autocomplete prompt.
+    public List<Task> searchByPrefix(String prefix, int limit) {
+        return search(index -> index.prefix(prefix, limit));
+    }
+
+    // At most limit tasks whose description contains the text anywhere, ignoring case (see DescriptionIndex)
+    public List<Task> searchBySubstring(String text, int limit) {
+        return search(index -> index.substring(text, limit));
+    }
+
+    // At most limit tasks whose description contains every word of the query; the last word matches as a
+    // prefix unless the query ends in a space (see DescriptionIndex)
+    public List<Task> searchByWords(String query, int limit) {
+        return search(index -> index.words(query, limit));
     }
 
+    private List<Task> search(Function<DescriptionIndex, List<Task>> lookup) {
+        long started = metrics.start();
+        try {
+            DescriptionIndex index = descriptionIndex();
+            long stamp = lock.readLock();
+            try {
+                return lookup.apply(index);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        } finally {
+            metrics.record(ScheduleMetrics.Operation.SEARCH, started);
+        }
+    }
+
+    // Choose the heaviest conflict-free subset of the candidates by priority weight (see SchedulePlanner),
+    // keeping every existing task. Nothing changes until the plan is committed.
+    public SchedulePlan plan(Collection<Task> candidates) {
+        long started = metrics.start();
+        try {
+            long stamp = lock.readLock();
+            try {
+                IntervalIndex busy = tasks;
+                IntervalIndex occurrences = recurringToday;
+                if (!occurrences.isEmpty()) {
+                    // Today's recurring occurrences block candidates just like existing tasks
+                    busy = new IntervalIndex();
+                    tasks.forEach(busy::add);
+                    occurrences.forEach(busy::add);
+                }
+                return planner.plan(candidates, busy, tasksByDescription::get, current.getVersion());
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        } finally {
+            metrics.record(ScheduleMetrics.Operation.PLAN, started);
+        }
+    }
+
+    // Add a plan's accepted tasks as one atomic batch. They are checked again, so if the schedule changed
+    // since planning in a way that breaks the plan, nothing is added and the result says which task clashed.
+    public BatchAddResult commit(SchedulePlan plan) {
+        BatchAddResult result = addTasks(plan.getAccepted());
+        if (!plan.getAccepted().isEmpty() && logger.isLoggable(Level.INFO)) {
+            logger.logp(Level.INFO, CLASS_NAME, "commit", "{0} committed: {1}", new Object[] {plan, result.isApplied()});
+        }
+        return result;
+    }
+
+    // Add a task with the template's description, priority and duration at the earliest free slot starting
+    // no earlier than the template's start time, and return the task that was actually placed
+    public Task autoPlace(Task template) throws TaskConflictException {
+        long started = metrics.start();
+        try {
+            if (!template.getStartTime().isBefore(template.getEndTime())) {
+                throw new IllegalArgumentException("Template must end after it starts: " + template.getDescription());
+            }
+            Duration duration = Duration.between(template.getStartTime(), template.getEndTime());
+            int lengthSeconds = (int) (duration.toSeconds() + (duration.toNanosPart() > 0 ? 1 : 0));
+            FreeTimeIndex index = freeTimeIndex();
+            Task placed = null;
+            long sequence = 0;
+            long stamp = lock.writeLock();
+            try {
+                int start = index.findRun(FreeTimeIndex.endSecond(template.getStartTime()), FreeTimeIndex.SECONDS_PER_DAY, lengthSeconds);
+                // LocalTime cannot express 24:00, so a slot must end strictly before midnight
+                if (start >= 0 && start * 1_000_000_000L + duration.toNanos() < FreeTimeIndex.SECONDS_PER_DAY * 1_000_000_000L) {
+                    LocalTime startTime = LocalTime.ofSecondOfDay(start);
+                    placed = new Task(template.getDescription(), startTime, startTime.plus(duration), template.getPriority());
+                    checkCanInsert(placed, null);
+                    sequence = journal(ScheduleMutation.add(placed));
+                    insert(placed);
+                    publish();
+                }
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            if (placed == null) {
+                metrics.conflictRejected();
+                String errorMessage = "No free slot of " + duration + " after " + template.getStartTime() + " for: " + template.getDescription();
+                logger.logp(Level.WARNING, CLASS_NAME, "autoPlace", errorMessage);
+                throw new TaskConflictException(errorMessage);
+            }
+            commitJournal(sequence);
+            observers.publish(ScheduleEvent.added(placed));
+            logger.logp(Level.INFO, CLASS_NAME, "autoPlace", "Task placed: {0}", placed);
+            return placed;
+        } finally {
+            metrics.record(ScheduleMetrics.Operation.AUTO_PLACE, started);
+        }
+    }
+
+    // Add a recurring or multi-day task to the calendar. It must not overlap another recurring task on any
+    // date, nor this schedule's tasks on its own date; later single-day tasks must then fit around its
+    // occurrence on that date. Journaled and replicated like any other mutation.
+    public void addRecurringTask(RecurringTask task) throws TaskConflictException {
+        long started = metrics.start();
+        try {
+            long sequence;
+            long stamp = lock.writeLock();
+            try {
+                checkCanAddRecurring(task);
+                sequence = journal(ScheduleMutation.addRecurring(task));
+                calendar.put(task);
+                refreshRecurringToday();
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            commitJournal(sequence);
+            observers.publish(ScheduleEvent.recurringAdded(task.getDescription()));
+            logger.logp(Level.INFO, CLASS_NAME, "addRecurringTask", "Recurring task added: {0}", task);
+        } finally {
+            metrics.record(ScheduleMetrics.Operation.ADD_RECURRING, started);
+        }
+    }
+
+    public void removeRecurringTask(String description) throws TaskNotFoundException {
+        long started = metrics.start();
+        try {
+            long sequence;
+            long stamp = lock.writeLock();
+            try {
+                if (calendar.get(description) == null) {
+                    throw new TaskNotFoundException("Recurring task not found: " + description);
+                }
+                sequence = journal(ScheduleMutation.removeRecurring(description));
+                calendar.discard(description);
+                refreshRecurringToday();
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            commitJournal(sequence);
+            observers.publish(ScheduleEvent.recurringRemoved(description));
+            logger.logp(Level.INFO, CLASS_NAME, "removeRecurringTask", "Recurring task removed: {0}", description);
+        } finally {
+            metrics.record(ScheduleMetrics.Operation.REMOVE_RECURRING, started);
+        }
+    }
+
+    public List<RecurringTask> viewRecurringTasks() {
+        return calendar.getTasks();
+    }
+
+    // Occurrences of the recurring tasks overlapping [from, to), in start order, expanded as consumed
+    public Stream<Occurrence> occurrences(LocalDateTime from, LocalDateTime to) {
+        return calendar.occurrences(from, to);
+    }
+
+    // The day this schedule's tasks fall on
+    public LocalDate getDate() {
+        return date;
+    }
+
+    // Restore the schedule from the journal's snapshot and log, then journal every later mutation.
+    // Must be called before any task is added.
+    public void attachJournal(ScheduleJournal journal) throws IOException {
+        long stamp = lock.writeLock();
+        try {
+            if (this.journal != null || !tasks.isEmpty() || calendar.size() > 0) {
+                throw new IllegalStateException("Journal must be attached to an empty, unjournaled schedule");
+            }
+            treeDeferred = true;
+            journal.recover(this::insert, this::apply);
+            rebuildTreeIfDeferred();
+            publish();
+            this.journal = journal;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        if (logger.isLoggable(Level.INFO)) {
+            logger.logp(Level.INFO, CLASS_NAME, "attachJournal", "Schedule recovered with {0} tasks", tasks.size());
+        }
+        // Compact right away so the next start replays nothing recovered here
+        checkpoint();
+    }
+
+    // Write a snapshot of the current schedule and drop the journal files it supersedes.
+    // Only the journal rotation and an O(1) snapshot grab run under the write lock; the file is written afterwards.
+    public void checkpoint() throws IOException {
+        long started = metrics.start();
+        try {
+            ScheduleJournal activeJournal = journal;
+            if (activeJournal == null) {
+                return;
+            }
+            long generation;
+            ScheduleSnapshot snapshot;
+            List<RecurringTask> recurring;
+            long stamp = lock.writeLock();
+            try {
+                generation = activeJournal.rotate();
+                snapshot = current;
+                recurring = calendar.getTasks();
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            activeJournal.writeSnapshot(generation, snapshot.tasks(), recurring);
+        } finally {
+            metrics.record(ScheduleMetrics.Operation.CHECKPOINT, started);
+        }
+    }
+
+    // Move tasks out of the live schedule into the archive from now on, sweeping on the archive's schedule.
+    // With a journal, attach it first so recovered tasks are considered too.
+    public void attachArchive(TaskArchive archive) {
+        long stamp = lock.writeLock();
+        try {
+            if (this.archive != null) {
+                throw new IllegalStateException("Archive already attached");
+            }
+            for (Task task : tasks) {
+                if (task.isCompleted()) {
+                    completedSinceSweep.add(task);
+                }
+            }
+            this.archive = archive;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        archive.onSweep(() -> archiveTasks(LocalDateTime.now()));
+    }
+
+    // Archive the tasks the archive's policy selects: those completed, and/or those that ended at or before
+    // 'now'. Tasks fall on this schedule's date, so a schedule for a later day has nothing past, and a task
+    // ending before it starts runs into the next day (see endsAt). The archive is written and fsynced before the tasks leave the live schedule, all under the
+    // write lock, so a task is never in neither tier; a crash in between can at worst archive it twice.
+    // Returns the number of tasks archived.
+    public int archiveTasks(LocalDateTime now) {
+        long started = metrics.start();
+        try {
+            TaskArchive activeArchive = archive;
+            if (activeArchive == null || activeArchive.getPolicy() == TaskArchive.Policy.NONE) {
+                return 0;
+            }
+            TaskArchive.Policy policy = activeArchive.getPolicy();
+            List<Task> archived = new ArrayList<>();
+            long sequence;
+            long stamp = lock.writeLock();
+            try {
+                Set<Task> selected = Collections.newSetFromMap(new IdentityHashMap<>());
+                Iterator<Task> completed = completedSinceSweep.iterator();
+                while (completed.hasNext()) {
+                    Task task = completed.next();
+                    if (tasksByDescription.get(task.getDescription()) != task) {
+                        completed.remove();
+                    } else if (policy.archivesCompleted()) {
+                        selected.add(task);
+                        completed.remove();
+                    }
+                }
+                if (policy.archivesPast() && !now.toLocalDate().isBefore(date)) {
+                    // Archived tasks have left the index, so on the schedule's own day this walks only tasks
+                    // started before now; on a later day every remaining task is a candidate
+                    Iterable<Task> candidates = now.toLocalDate().equals(date)
+                        ? tasks.tasks().headSet(IntervalIndex.probe(now.toLocalTime()), false) : tasks.tasks();
+                    for (Task task : candidates) {
+                        if (!endsAt(task).isAfter(now)) {
+                            selected.add(task);
+                        }
+                    }
+                }
+                if (selected.isEmpty()) {
+                    return 0;
+                }
+                archived.addAll(selected);
+                archived.sort(IntervalIndex.BY_START_TIME);
+                try {
+                    activeArchive.append(archived);
+                } catch (IOException e) {
+                    // Keep the tasks live; completed ones are picked up again by the next sweep
+                    completedSinceSweep.addAll(archived);
+                    logger.logp(Level.SEVERE, CLASS_NAME, "archiveTasks", "Could not write the task archive", e);
+                    return 0;
+                }
+                sequence = journal(ScheduleMutation.archive(archived));
+                treeDeferred = archived.size() > tree.size() / 2;
+                for (Task task : archived) {
+                    delete(task);
+                }
+                rebuildTreeIfDeferred();
+                publish();
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            commitJournal(sequence);
+            observers.publish(ScheduleEvent.archived(archived.size()));
+            logger.logp(Level.INFO, CLASS_NAME, "archiveTasks", "Tasks archived: {0}", archived.size());
+            return archived.size();
+        } finally {
+            metrics.record(ScheduleMetrics.Operation.ARCHIVE, started);
+        }
+    }
+
+    // When the task ends on the calendar: on this schedule's date, or the next day for one that wraps past
+    // midnight (end before start)
+    private LocalDateTime endsAt(Task task) {
+        LocalDate endDate = task.getEndTime().isBefore(task.getStartTime()) ? date.plusDays(1) : date;
+        return endDate.atTime(task.getEndTime());
+    }
+
+    // Archived tasks matching the query, in the order they were archived; empty without an archive
+    public QueryResult history(TaskQuery query) throws IOException {
+        long started = metrics.start();
+        try {
+            TaskArchive activeArchive = archive;
+            if (activeArchive == null) {
+                return new QueryResult(query, "no archive", Collections.emptyList());
+            }
+            return activeArchive.query(query);
+        } finally {
+            metrics.record(ScheduleMetrics.Operation.HISTORY, started);
+        }
+    }
+
+    // Feed every later mutation to the log that ReplicationLeader ships to followers
+    public void attachReplicationLog(ReplicationLog log) {
+        long stamp = lock.writeLock();
+        try {
+            if (replicationLog != null) {
+                throw new IllegalStateException("Replication log already attached");
+            }
+            replicationLog = log;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // The schedule together with the log position it reflects, for a follower that has to start over.
+    // The read lock keeps both from moving; the tasks are an O(1) snapshot, serialized later.
+    ReplicationLog.Checkpoint replicationCheckpoint() {
+        long stamp = lock.readLock();
+        try {
+            return new ReplicationLog.Checkpoint(replicationLog.head(), current.tasks(), calendar.getTasks());
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // Apply a batch of mutations streamed from a leader as one new version (follower side; see
+    // ScheduleFollower). They were validated on the leader, so they are applied as in journal replay. A
+    // follower keeps no journal or log of its own: after a restart it catches up from the leader.
+    void replicate(List<ScheduleMutation> mutations) {
+        long started = metrics.start();
+        try {
+            long stamp = lock.writeLock();
+            try {
+                int changed = 0;
+                for (ScheduleMutation mutation : mutations) {
+                    changed += Math.max(1, mutation.getTasks().size());
+                }
+                treeDeferred = changed > tree.size();
+                for (ScheduleMutation mutation : mutations) {
+                    apply(mutation);
+                }
+                rebuildTreeIfDeferred();
+                publish();
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        } finally {
+            metrics.record(ScheduleMetrics.Operation.REPLICATE, started);
+        }
+    }
+
+    // Replace the whole schedule and calendar with a leader's checkpoint (follower side)
+    void replaceAll(Collection<Task> replacement, Collection<RecurringTask> recurringReplacement) {
+        long started = metrics.start();
+        try {
+            long stamp = lock.writeLock();
+            try {
+                treeDeferred = true;
+                for (Task task : new ArrayList<>(tasks.tasks())) {
+                    delete(task);
+                }
+                completedSinceSweep.clear();
+                for (Task task : replacement) {
+                    insert(task);
+                }
+                calendar.replaceAll(recurringReplacement);
+                refreshRecurringToday();
+                rebuildTreeIfDeferred();
+                publish();
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            logger.logp(Level.INFO, CLASS_NAME, "replaceAll", "Schedule replaced with {0} replicated tasks", replacement.size());
+        } finally {
+            metrics.record(ScheduleMetrics.Operation.REPLICATE, started);
+        }
+    }
+
+    // Apply reloaded configuration to the metrics, observer dispatch and journal. Each subsystem switches to
+    // its new values in one step; operations already running finish under the old ones.
+    public void applySettings(ScheduleSettings settings) {
+        metrics.setEnabled(settings.isMetricsEnabled());
+        planner = planner(settings);
+        observers.configure(settings);
+        TaskArchive activeArchive = archive;
+        if (activeArchive != null) {
+            activeArchive.configure(settings.getArchivePolicy(), settings.getArchiveIntervalSeconds());
+        }
+        ScheduleJournal activeJournal = journal;
+        if (activeJournal != null) {
+            activeJournal.configure(settings.getJournalFsync(), settings.getJournalFsyncIntervalMillis(),
+                settings.getJournalSnapshotEveryOps());
+        }
+    }
+
+    public ScheduleMetrics getMetrics() {
+        return metrics;
+    }
+
+    // Observers are notified asynchronously on their own threads; see EventDispatcher
     public void addObserver(ScheduleObserver observer) {
-        observers.add(observer);
+        observers.subscribe(observer);
+    }
+
+    // Observers notified on the writing thread as soon as the write lock is released, e.g. to queue console
+    // output for a prompt loop; they must not block
+    public void addSynchronousObserver(ScheduleObserver observer) {
+        observers.subscribeSynchronous(observer);
     }
 
     public void removeObserver(ScheduleObserver observer) {
-        observers.remove(observer);
+        observers.unsubscribe(observer);
+    }
+
+    // Release what this schedule started for itself: observer dispatch threads, the metrics dump and its JMX
+    // beans. An attached journal, archive or replication log belongs to whoever opened it and stays open.
+    public void close() {
+        observers.close();
+        metrics.stopDump();
+        try {
+            metrics.unregisterMBeans();
+        } catch (JMException e) {
+            logger.log(Level.WARNING, "Could not unregister schedule metrics from JMX", e);
+        }
+    }
+
+    private static SchedulePlanner planner(ScheduleSettings settings) {
+        return new SchedulePlanner(settings.getPlannerWeightLow(), settings.getPlannerWeightMedium(), settings.getPlannerWeightHigh());
+    }
+
+    // Uninstrumented getTask for use inside other operations
+    private Task lookup(String description) throws TaskNotFoundException {
+        Task task = tasksByDescription.get(description);
+        if (task == null) {
+            throw new TaskNotFoundException("Task not found: " + description);
+        }
+        return task;
+    }
+
+    // Reject a task that reuses a description or overlaps the schedule; 'replacing' is ignored (used by edits)
+    private void checkCanInsert(Task task, Task replacing) throws TaskConflictException {
+        Task sameDescription = tasksByDescription.get(task.getDescription());
+        if (sameDescription != null && sameDescription != replacing) {
+            String errorMessage = "Task already exists: " + task.getDescription();
+            metrics.conflictRejected();
+            logger.logp(Level.WARNING, CLASS_NAME, "checkCanInsert", errorMessage);
+            throw new TaskConflictException(errorMessage);
+        }
+        for (Task existingTask : tasks.findConflicts(task)) {
+            if (existingTask != replacing) {
+                String errorMessage = "Task conflicts with existing task: " + existingTask.getDescription();
+                metrics.conflictRejected();
+                logger.logp(Level.WARNING, CLASS_NAME, "checkCanInsert", errorMessage);
+                throw new TaskConflictException(errorMessage);
+            }
+        }
+        Task occurrence = recurringToday.findConflict(task);
+        if (occurrence != null) {
+            String errorMessage = "Task conflicts with recurring task: " + occurrence.getDescription();
+            metrics.conflictRejected();
+            logger.logp(Level.WARNING, CLASS_NAME, "checkCanInsert", errorMessage);
+            throw new TaskConflictException(errorMessage);
+        }
+    }
+
+    // Reject a recurring task that clashes with the calendar, or whose occurrence on this schedule's date
+    // overlaps one of its tasks
+    private void checkCanAddRecurring(RecurringTask task) throws TaskConflictException {
+        String errorMessage = null;
+        try {
+            calendar.checkCanAdd(task);
+            Iterator<Occurrence> today = task.occurrences(date.atStartOfDay(), date.plusDays(1).atStartOfDay());
+            while (today.hasNext() && errorMessage == null) {
+                Task existingTask = tasks.findConflict(today.next().toTask(date));
+                if (existingTask != null) {
+                    errorMessage = "Recurring task conflicts with existing task: " + existingTask.getDescription();
+                }
+            }
+        } catch (TaskConflictException e) {
+            errorMessage = e.getMessage();
+        }
+        if (errorMessage != null) {
+            metrics.conflictRejected();
+            logger.logp(Level.WARNING, CLASS_NAME, "addRecurringTask", errorMessage);
+            throw new TaskConflictException(errorMessage);
+        }
+    }
+
+    // Recompute the calendar's occurrences on this schedule's date; caller holds the write lock
+    private void refreshRecurringToday() {
+        IntervalIndex occurrences = new IntervalIndex();
+        calendar.tasksOn(date).forEach(occurrences::add);
+        recurringToday = occurrences;
+        // The gap index counts occurrences as busy time, so rebuild it on next use
+        freeTime = null;
+    }
+
+    // Check one batch task against the schedule and the batch so far, staging it if it fits
+    private BatchAddResult.Entry stage(Task task, IntervalIndex staged, Map<String, Task> stagedByDescription) {
+        BatchAddResult.Entry rejection = checkStage(task, staged, stagedByDescription);
+        if (rejection != null) {
+            metrics.conflictRejected();
+            return rejection;
+        }
+        staged.add(task);
+        stagedByDescription.put(task.getDescription(), task);
+        return new BatchAddResult.Entry(task, BatchAddResult.Status.ACCEPTED, null);
+    }
+
+    // The reason a batch task cannot be staged, or null if it fits
+    private BatchAddResult.Entry checkStage(Task task, IntervalIndex staged, Map<String, Task> stagedByDescription) {
+        String description = task.getDescription();
+        if (tasksByDescription.containsKey(description) || stagedByDescription.containsKey(description)) {
+            return new BatchAddResult.Entry(task, BatchAddResult.Status.DUPLICATE_DESCRIPTION, description);
+        }
+        Task existingTask = tasks.findConflict(task);
+        if (existingTask == null) {
+            existingTask = recurringToday.findConflict(task);
+        }
+        if (existingTask != null) {
+            return new BatchAddResult.Entry(task, BatchAddResult.Status.CONFLICTS_WITH_EXISTING,
+                    existingTask.getDescription());
+        }
+        Task batchTask = staged.findConflict(task);
+        if (batchTask != null) {
+            return new BatchAddResult.Entry(task, BatchAddResult.Status.CONFLICTS_IN_BATCH,
+                    batchTask.getDescription());
+        }
+        return null;
+    }
+
+    // Replay a journaled mutation; it was validated when first applied, so only missing targets are tolerated
+    private void apply(ScheduleMutation mutation) {
+        Task target = mutation.getDescription() == null ? null : tasksByDescription.get(mutation.getDescription());
+        switch (mutation.getType()) {
+            case ADD:
+            case ADD_ALL:
+                mutation.getTasks().forEach(this::insert);
+                break;
+            case REMOVE:
+                if (target != null) {
+                    delete(target);
+                }
+                break;
+            case EDIT:
+                if (target != null) {
+                    delete(target);
+                }
+                insert(mutation.getTask());
+                break;
+            case COMPLETE:
+                if (target != null && !target.isCompleted()) {
+                    complete(target);
+                }
+                break;
+            case ARCHIVE:
+                for (Task task : mutation.getTasks()) {
+                    Task archived = tasksByDescription.get(task.getDescription());
+                    if (archived != null) {
+                        delete(archived);
+                    }
+                }
+                break;
+            case ADD_RECURRING:
+                calendar.put(mutation.getRecurringTask());
+                refreshRecurringToday();
+                break;
+            case REMOVE_RECURRING:
+                if (calendar.discard(mutation.getDescription()) != null) {
+                    refreshRecurringToday();
+                }
+                break;
+        }
+    }
+
+    // Write a mutation ahead of applying it to the journal and the replication log, encoding it once;
+    // caller holds the write lock, so both see mutations in the order they are applied. Returns the journal
+    // sequence number to pass to commitJournal, or 0 without a journal.
+    private long journal(ScheduleMutation mutation) {
+        ScheduleJournal activeJournal = journal;
+        ReplicationLog activeLog = replicationLog;
+        if (activeJournal == null && activeLog == null) {
+            return 0;
+        }
+        byte[] encoded = mutation.encode();
+        long sequence = 0;
+        if (activeJournal != null) {
+            sequence = activeJournal.append(encoded);
+        }
+        if (activeLog != null) {
+            activeLog.append(encoded);
+        }
+        return sequence;
+    }
+
+    // After the write lock is released: wait until the journal record is durable (a no-op unless the fsync
+    // policy is GROUP), then start a snapshot if one is due
+    private void commitJournal(long sequence) {
+        ScheduleJournal activeJournal = journal;
+        if (activeJournal == null) {
+            return;
+        }
+        if (sequence > 0) {
+            try {
+                activeJournal.awaitDurable(sequence);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Error syncing schedule journal", e);
+            }
+        }
+        if (activeJournal.needsSnapshot()) {
+            activeJournal.requestSnapshot(() -> {
+                try {
+                    checkpoint();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    private void rebuildTreeIfDeferred() {
+        if (treeDeferred) {
+            tree = PersistentTaskTree.fromSorted(tasks.tasks().toArray(new Task[0]));
+            treeDeferred = false;
+        }
+    }
+
+    // Make the mutations applied so far visible to readers as one new version; caller holds the write lock
+    private void publish() {
+        current = new ScheduleSnapshot(current.getVersion() + 1, tree);
+    }
+
+    // Apply a completion to the task and the open counters; caller holds the write lock
+    private void complete(Task task) {
+        task.setCompleted(true);
+        openTaskCounts.get(task.getPriority()).decrementAndGet();
+        if (archive != null) {
+            completedSinceSweep.add(task);
+        }
+    }
+
+    // Build the gap index from the current schedule the first time a free-slot query needs it
+    private FreeTimeIndex freeTimeIndex() {
+        FreeTimeIndex index = freeTime;
+        if (index != null) {
+            return index;
+        }
+        long stamp = lock.writeLock();
+        try {
+            if (freeTime == null) {
+                FreeTimeIndex built = new FreeTimeIndex();
+                tasks.forEach(built::occupy);
+                recurringToday.forEach(built::occupy);
+                freeTime = built;
+            }
+            return freeTime;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // Build the text index from the current schedule the first time a search needs it
+    private DescriptionIndex descriptionIndex() {
+        DescriptionIndex index = descriptionIndex;
+        if (index != null) {
+            return index;
+        }
+        long stamp = lock.writeLock();
+        try {
+            if (descriptionIndex == null) {
+                DescriptionIndex built = new DescriptionIndex();
+                tasks.forEach(built::add);
+                descriptionIndex = built;
+            }
+            return descriptionIndex;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
     }
 
-    private void notifyObservers(String message) {
-        for (ScheduleObserver observer : observers) {
-            observer.update(message);
+    // Apply an insert to every index; caller holds the write lock
+    private void insert(Task task) {
+        tasks.add(task);
+        if (!treeDeferred) {
+            tree = tree.with(task);
+        }
+        if (freeTime != null) {
+            freeTime.occupy(task);
+        }
+        if (descriptionIndex != null) {
+            descriptionIndex.add(task);
+        }
+        tasksByDescription.put(task.getDescription(), task);
+        tasksByPriority.get(task.getPriority()).add(task);
+        taskCounts.get(task.getPriority()).incrementAndGet();
+        if (!task.isCompleted()) {
+            openTaskCounts.get(task.getPriority()).incrementAndGet();
+        } else if (archive != null) {
+            completedSinceSweep.add(task);
+        }
+    }
+
+    // Apply a removal to every index; caller holds the write lock
+    private void delete(Task task) {
+        tasks.remove(task);
+        if (!treeDeferred) {
+            tree = tree.without(task);
+        }
+        if (freeTime != null) {
+            freeTime.release(task);
+        }
+        if (descriptionIndex != null) {
+            descriptionIndex.remove(task);
+        }
+        tasksByDescription.remove(task.getDescription());
+        tasksByPriority.get(task.getPriority()).remove(task);
+        taskCounts.get(task.getPriority()).decrementAndGet();
+        if (!task.isCompleted()) {
+            openTaskCounts.get(task.getPriority()).decrementAndGet();
+        }
+    }
+
+    // Run a multi-element read without blocking writers; fall back to the read lock if a write raced it
+    private <T> T readConsistently(Supplier<T> read) {
+        long stamp = lock.tryOptimisticRead();
+        T result = read.get();
+        if (lock.validate(stamp)) {
+            return result;
+        }
+        stamp = lock.readLock();
+        try {
+            return read.get();
+        } finally {
+            lock.unlockRead(stamp);
         }
     }
 }
@@ -0,0 +1,203 @@
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+// Call counts and latency histograms for ScheduleManager operations, plus gauges read on demand.
+// Operations bracket their work with start() and record(); while disabled, start() returns 0 and
+// record() returns at once, so the cost is one volatile read per call.
+class ScheduleMetrics implements ScheduleMetricsMXBean {
+    enum Operation {
+        ADD_TASK, ADD_TASKS, REMOVE_TASK, GET_TASK, EDIT_TASK, COMPLETE_TASK, VIEW_TASKS, VIEW_BY_PRIORITY,
+        QUERY, COUNT_BY_PRIORITY, FIND_FREE_SLOTS, AUTO_PLACE, CHECKPOINT,
+        PLAN, ARCHIVE, HISTORY, SEARCH, ADD_RECURRING, REMOVE_RECURRING,
+        // A follower applying one batch (or a checkpoint) received from its leader
+        REPLICATE,
+        // Handing an event to the observer buffers, including any wait under BLOCK backpressure
+        OBSERVER_PUBLISH,
+        // One observer handling one batch of events on its dispatch thread
+        OBSERVER_DELIVERY
+    }
+
+    private static final Logger logger = Logger.getLogger(ScheduleMetrics.class.getName());
+
+    private final Map<Operation, LatencyHistogram> latencies = new EnumMap<>(Operation.class);
+    private final LongAdder conflictRejections = new LongAdder();
+    private final Map<String, LongSupplier> gauges = new LinkedHashMap<>();
+    private final List<ObjectName> registeredNames = new ArrayList<>();
+    private volatile boolean enabled;
+    private ScheduledExecutorService dumper;
+    private long dumpIntervalSeconds;
+
+    ScheduleMetrics() {
+        for (Operation operation : Operation.values()) {
+            latencies.put(operation, new LatencyHistogram());
+        }
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    // Timestamp to pass to record, or 0 while disabled
+    public long start() {
+        return enabled ? System.nanoTime() : 0L;
+    }
+
+    public void record(Operation operation, long started) {
+        if (started != 0L) {
+            latencies.get(operation).record(System.nanoTime() - started);
+        }
+    }
+
+    public void conflictRejected() {
+        if (enabled) {
+            conflictRejections.increment();
+        }
+    }
+
+    // Register a value that is read whenever metrics are reported; call before the metrics are shared
+    void gauge(String name, LongSupplier value) {
+        gauges.put(name, value);
+    }
+
+    public LatencyHistogram latency(Operation operation) {
+        return latencies.get(operation);
+    }
+
+    @Override
+    public long getTaskCount() {
+        return readGauge("tasks");
+    }
+
+    @Override
+    public long getObserverQueueDepth() {
+        return readGauge("observer.queue.depth");
+    }
+
+    @Override
+    public long getObserverDroppedEvents() {
+        return readGauge("observer.dropped");
+    }
+
+    @Override
+    public long getConflictRejections() {
+        return conflictRejections.sum();
+    }
+
+    @Override
+    public Map<String, Long> getOperationCounts() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        latencies.forEach((operation, histogram) -> counts.put(operation.name(), histogram.getCount()));
+        return counts;
+    }
+
+    @Override
+    public String dump() {
+        StringBuilder text = new StringBuilder("Schedule metrics");
+        gauges.forEach((name, value) -> text.append(' ').append(name).append('=').append(value.getAsLong()));
+        text.append(" conflict.rejections=").append(conflictRejections.sum());
+        text.append(String.format("%n%-18s %10s %10s %10s %10s %10s %10s%n", "operation", "count", "mean us", "p50 us", "p99 us", "p999 us", "max us"));
+        latencies.forEach((operation, histogram) -> {
+            long count = histogram.getCount();
+            if (count > 0) {
+                text.append(String.format("%-18s %10d %10.1f %10.1f %10.1f %10.1f %10.1f%n", operation, count,
+                    histogram.getMean() / 1000.0, histogram.getValueAtQuantile(0.5) / 1000.0,
+                    histogram.getValueAtQuantile(0.99) / 1000.0, histogram.getValueAtQuantile(0.999) / 1000.0,
+                    histogram.getMax() / 1000.0));
+            }
+        });
+        return text.toString();
+    }
+
+    // Publish the gauges and one bean per operation under ScheduleManager:schedule=<schedule>
+    public void registerMBeans(String schedule) throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName("ScheduleManager:type=Schedule,schedule=" + ObjectName.quote(schedule));
+        server.registerMBean(this, name);
+        registeredNames.add(name);
+        for (Operation operation : Operation.values()) {
+            name = new ObjectName("ScheduleManager:type=Operation,schedule=" + ObjectName.quote(schedule) + ",name=" + operation);
+            server.registerMBean(new OperationView(latencies.get(operation)), name);
+            registeredNames.add(name);
+        }
+    }
+
+    public void unregisterMBeans() throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (ObjectName name : registeredNames) {
+            server.unregisterMBean(name);
+        }
+        registeredNames.clear();
+    }
+
+    // Log the dump every intervalSeconds on a daemon thread, only while metrics are enabled; a different
+    // interval replaces the running schedule and 0 stops it
+    public synchronized void startDump(long intervalSeconds) {
+        if (dumper != null && intervalSeconds == dumpIntervalSeconds) {
+            return;
+        }
+        stopDump();
+        if (intervalSeconds <= 0) {
+            return;
+        }
+        dumpIntervalSeconds = intervalSeconds;
+        dumper = Executors.newSingleThreadScheduledExecutor(Threads.factory("schedule-metrics"));
+        dumper.scheduleAtFixedRate(() -> {
+            if (enabled) {
+                logger.log(Level.INFO, "{0}", dump());
+            }
+        }, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    public synchronized void stopDump() {
+        if (dumper != null) {
+            dumper.shutdownNow();
+            dumper = null;
+        }
+    }
+
+    private long readGauge(String name) {
+        LongSupplier value = gauges.get(name);
+        return value == null ? 0 : value.getAsLong();
+    }
+
+    private static class OperationView implements OperationMetricsMXBean {
+        private final LatencyHistogram histogram;
+
+        OperationView(LatencyHistogram histogram) {
+            this.histogram = histogram;
+        }
+
+        @Override
+        public long getCount() { return histogram.getCount(); }
+        @Override
+        public double getMeanMicros() { return histogram.getMean() / 1000.0; }
+        @Override
+        public double getP50Micros() { return histogram.getValueAtQuantile(0.5) / 1000.0; }
+        @Override
+        public double getP99Micros() { return histogram.getValueAtQuantile(0.99) / 1000.0; }
+        @Override
+        public double getP999Micros() { return histogram.getValueAtQuantile(0.999) / 1000.0; }
+        @Override
+        public double getMaxMicros() { return histogram.getMax() / 1000.0; }
+    }
+}
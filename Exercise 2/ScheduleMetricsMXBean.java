@@ -0,0 +1,15 @@
+import java.util.Map;
+
+// JMX view of a schedule's gauges; registered by ScheduleMetrics.registerMBeans
+public interface ScheduleMetricsMXBean {
+    boolean isEnabled();
+    void setEnabled(boolean enabled);
+    long getTaskCount();
+    long getObserverQueueDepth();
+    long getObserverDroppedEvents();
+    long getConflictRejections();
+    // Calls per operation since startup
+    Map<String, Long> getOperationCounts();
+    // The same text as the periodic dump
+    String dump();
+}
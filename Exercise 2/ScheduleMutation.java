@@ -0,0 +1,195 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// One state change of a ScheduleManager, in the compact binary form written to the journal
+class ScheduleMutation {
+    enum Type {
+        ADD, ADD_ALL, REMOVE, EDIT, COMPLETE,
+        // Tasks moved to the cold TaskArchive; replay drops them from the live schedule
+        ARCHIVE,
+        // Recurring tasks in the schedule's PlanCalendar; snapshots hold them as ADD_RECURRING records too
+        ADD_RECURRING, REMOVE_RECURRING
+    }
+
+    private static final Type[] TYPES = Type.values();
+    private static final Priority[] PRIORITIES = Priority.values();
+    private static final RecurrenceRule.Frequency[] FREQUENCIES = RecurrenceRule.Frequency.values();
+    private static final long OPEN_ENDED = Long.MIN_VALUE;
+
+    private final Type type;
+    // Description of the task being removed, edited or completed; null for adds
+    private final String description;
+    private final List<Task> tasks;
+    // The recurring task added by ADD_RECURRING; null otherwise
+    private final RecurringTask recurringTask;
+
+    private ScheduleMutation(Type type, String description, List<Task> tasks) {
+        this(type, description, tasks, null);
+    }
+
+    private ScheduleMutation(Type type, String description, List<Task> tasks, RecurringTask recurringTask) {
+        this.type = type;
+        this.description = description;
+        this.tasks = tasks;
+        this.recurringTask = recurringTask;
+    }
+
+    public static ScheduleMutation add(Task task) {
+        return new ScheduleMutation(Type.ADD, null, Collections.singletonList(task));
+    }
+
+    public static ScheduleMutation addAll(List<Task> tasks) {
+        return new ScheduleMutation(Type.ADD_ALL, null, Collections.unmodifiableList(tasks));
+    }
+
+    public static ScheduleMutation remove(String description) {
+        return new ScheduleMutation(Type.REMOVE, description, Collections.emptyList());
+    }
+
+    public static ScheduleMutation edit(String oldDescription, Task updatedTask) {
+        return new ScheduleMutation(Type.EDIT, oldDescription, Collections.singletonList(updatedTask));
+    }
+
+    public static ScheduleMutation complete(String description) {
+        return new ScheduleMutation(Type.COMPLETE, description, Collections.emptyList());
+    }
+
+    public static ScheduleMutation archive(List<Task> tasks) {
+        return new ScheduleMutation(Type.ARCHIVE, null, Collections.unmodifiableList(tasks));
+    }
+
+    public static ScheduleMutation addRecurring(RecurringTask task) {
+        return new ScheduleMutation(Type.ADD_RECURRING, null, Collections.emptyList(), task);
+    }
+
+    public static ScheduleMutation removeRecurring(String description) {
+        return new ScheduleMutation(Type.REMOVE_RECURRING, description, Collections.emptyList());
+    }
+
+    public Type getType() { return type; }
+    public String getDescription() { return description; }
+    public List<Task> getTasks() { return tasks; }
+    public Task getTask() { return tasks.get(0); }
+    public RecurringTask getRecurringTask() { return recurringTask; }
+
+    // Layout: type, optional target description, task count, tasks, and for ADD_RECURRING the recurring task
+    public byte[] encode() {
+        byte[] target = description == null ? null : description.getBytes(StandardCharsets.UTF_8);
+        byte[][] names = new byte[tasks.size()][];
+        int size = 1 + 4 + (target == null ? 0 : target.length) + 4;
+        for (int i = 0; i < names.length; i++) {
+            names[i] = tasks.get(i).getDescription().getBytes(StandardCharsets.UTF_8);
+            size += encodedTaskSize(names[i]);
+        }
+        byte[] recurringName = recurringTask == null ? null : recurringTask.getDescription().getBytes(StandardCharsets.UTF_8);
+        if (recurringName != null) {
+            size += encodedRecurringTaskSize(recurringName);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.put((byte) type.ordinal());
+        if (target == null) {
+            buffer.putInt(-1);
+        } else {
+            buffer.putInt(target.length).put(target);
+        }
+        buffer.putInt(names.length);
+        for (int i = 0; i < names.length; i++) {
+            encodeTask(buffer, tasks.get(i), names[i]);
+        }
+        if (recurringName != null) {
+            encodeRecurringTask(buffer, recurringTask, recurringName);
+        }
+        return buffer.array();
+    }
+
+    public static ScheduleMutation decode(ByteBuffer buffer) {
+        Type type = TYPES[buffer.get()];
+        int targetLength = buffer.getInt();
+        String description = targetLength < 0 ? null : readString(buffer, targetLength);
+        int count = buffer.getInt();
+        List<Task> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            tasks.add(decodeTask(buffer));
+        }
+        RecurringTask recurringTask = type == Type.ADD_RECURRING ? decodeRecurringTask(buffer) : null;
+        return new ScheduleMutation(type, description, Collections.unmodifiableList(tasks), recurringTask);
+    }
+
+    // Size of a task record whose description is already UTF-8 encoded
+    static int encodedTaskSize(byte[] description) {
+        return 4 + description.length + 8 + 8 + 1 + 1;
+    }
+
+    static void encodeTask(ByteBuffer buffer, Task task, byte[] description) {
+        buffer.putInt(description.length).put(description);
+        buffer.putLong(task.getStartTime().toNanoOfDay());
+        buffer.putLong(task.getEndTime().toNanoOfDay());
+        buffer.put((byte) task.getPriority().ordinal());
+        buffer.put((byte) (task.isCompleted() ? 1 : 0));
+    }
+
+    static Task decodeTask(ByteBuffer buffer) {
+        String description = readString(buffer, buffer.getInt());
+        LocalTime start = LocalTime.ofNanoOfDay(buffer.getLong());
+        LocalTime end = LocalTime.ofNanoOfDay(buffer.getLong());
+        Task task = new Task(description, start, end, PRIORITIES[buffer.get()]);
+        task.setCompleted(buffer.get() != 0);
+        return task;
+    }
+
+    // Size of a recurring task record whose description is already UTF-8 encoded
+    static int encodedRecurringTaskSize(byte[] description) {
+        return 4 + description.length + 8 + 8 + 1 + 1 + 8 + 8 + 4 + 1;
+    }
+
+    static void encodeRecurringTask(ByteBuffer buffer, RecurringTask task, byte[] description) {
+        RecurrenceRule rule = task.getRule();
+        buffer.putInt(description.length).put(description);
+        buffer.putLong(task.getStartTime().toNanoOfDay());
+        buffer.putLong(task.getDuration().toNanos());
+        buffer.put((byte) task.getPriority().ordinal());
+        buffer.put((byte) rule.getFrequency().ordinal());
+        buffer.putLong(rule.getStart().toEpochDay());
+        buffer.putLong(rule.getUntil() == null ? OPEN_ENDED : rule.getUntil().toEpochDay());
+        buffer.putInt(rule.getInterval());
+        buffer.put((byte) rule.getWeekdayMask());
+    }
+
+    static RecurringTask decodeRecurringTask(ByteBuffer buffer) {
+        String description = readString(buffer, buffer.getInt());
+        LocalTime startTime = LocalTime.ofNanoOfDay(buffer.getLong());
+        Duration duration = Duration.ofNanos(buffer.getLong());
+        Priority priority = PRIORITIES[buffer.get()];
+        RecurrenceRule.Frequency frequency = FREQUENCIES[buffer.get()];
+        LocalDate start = LocalDate.ofEpochDay(buffer.getLong());
+        long until = buffer.getLong();
+        int interval = buffer.getInt();
+        int weekdays = buffer.get();
+        RecurrenceRule rule = RecurrenceRule.of(frequency, start, until == OPEN_ENDED ? null : LocalDate.ofEpochDay(until),
+            interval, weekdays);
+        return new RecurringTask(description, startTime, duration, priority, rule);
+    }
+
+    private static String readString(ByteBuffer buffer, int length) {
+        if (buffer.hasArray()) {
+            String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+            return value;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String toString() {
+        return type + (description == null ? "" : " " + description) + (tasks.isEmpty() ? "" : " " + tasks)
+            + (recurringTask == null ? "" : " " + recurringTask);
+    }
+}
@@ -1,3 +1,14 @@
+import java.util.List;
+
 interface ScheduleObserver {
     void update(String message);
-}
\ No newline at end of file
+
+    // Receive a batch of events in publication order. An observer added with addObserver is called on its
+    // own dispatch thread; one added with addSynchronousObserver is called on the writing thread, one event
+    // per call. Override to consume typed events, otherwise each one is formatted and passed to update.
+    default void onEvents(List<ScheduleEvent> events) {
+        for (ScheduleEvent event : events) {
+            update(event.toMessage());
+        }
+    }
+}
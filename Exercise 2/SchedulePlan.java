@@ -0,0 +1,37 @@
+import java.util.Collections;
+import java.util.List;
+
+// Outcome of SchedulePlanner: which candidates to add and why each of the others was left out. Nothing is
+// applied until the plan is passed to ScheduleManager.commit, which adds the accepted tasks as one batch.
+class SchedulePlan {
+    private final long version;
+    private final List<Task> accepted;
+    private final List<BatchAddResult.Entry> entries;
+    private final long totalWeight;
+
+    SchedulePlan(long version, List<Task> accepted, List<BatchAddResult.Entry> entries, long totalWeight) {
+        this.version = version;
+        this.accepted = Collections.unmodifiableList(accepted);
+        this.entries = Collections.unmodifiableList(entries);
+        this.totalWeight = totalWeight;
+    }
+
+    // Schedule version the plan was computed against (ScheduleSnapshot.getVersion)
+    public long getVersion() { return version; }
+    // Tasks to add, in time order
+    public List<Task> getAccepted() { return accepted; }
+    // Entries in the order the candidates were submitted
+    public List<BatchAddResult.Entry> getEntries() { return entries; }
+    // Sum of the accepted tasks' priority weights
+    public long getTotalWeight() { return totalWeight; }
+
+    public int getRejectedCount() {
+        return entries.size() - accepted.size();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Plan of %d candidates: %d accepted (weight %d), %d rejected",
+            entries.size(), accepted.size(), totalWeight, getRejectedCount());
+    }
+}
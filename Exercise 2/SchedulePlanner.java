@@ -0,0 +1,341 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+// Chooses which of a set of candidate tasks to add to a schedule so that the total priority weight is as
+// large as possible, instead of first-come-first-served. Existing tasks are never displaced. Candidates
+// that reuse a schedule description or overlap the schedule are rejected first. The rest is weighted
+// interval scheduling: sort by end time, find each candidate's latest compatible predecessor by binary
+// search, and take best(j) = max(best(j - 1), weight(j) + best(p(j))). That is O(n log n) overall.
+// At most one candidate per description may be accepted, which no such recurrence can express (the
+// problem becomes NP-hard), so the recurrence is a bound in a branch and bound: when its choice repeats
+// a description, each candidate of that description is tried as the only one left. Batches without
+// repeated descriptions need a single pass. The search stops after SEARCH_BUDGET candidates have been
+// scheduled, keeping the best plan found, so a batch with very many repeats gets a heuristic plan.
+// Candidates that do not end after they start (which Task allows) are not intervals the recurrence
+// can order, so they are fitted afterwards, heaviest first, wherever they still fit.
+class SchedulePlanner {
+    private static final Comparator<Candidate> BY_END = (a, b) ->
+        a.end != b.end ? Long.compare(a.end, b.end) : Long.compare(a.start, b.start);
+    private static final Comparator<Candidate> HEAVIEST_FIRST = Comparator
+        .comparingLong((Candidate candidate) -> candidate.weight).reversed()
+        .thenComparingInt(candidate -> candidate.index);
+    // Total candidates the branch and bound may feed to the recurrence, summed over its subproblems
+    private static final long SEARCH_BUDGET = 4_000_000;
+
+    // Indexed by Priority ordinal
+    private final long[] weights;
+
+    public SchedulePlanner(long lowWeight, long mediumWeight, long highWeight) {
+        if (lowWeight <= 0 || mediumWeight <= 0 || highWeight <= 0) {
+            throw new IllegalArgumentException("Priority weights must be positive");
+        }
+        this.weights = new long[] {lowWeight, mediumWeight, highWeight};
+    }
+
+    public long weight(Priority priority) {
+        return weights[priority.ordinal()];
+    }
+
+    // Plan against a schedule given by its index and description lookup; the caller keeps both stable
+    // while this runs (ScheduleManager.plan holds its read lock)
+    SchedulePlan plan(Collection<Task> candidates, IntervalIndex schedule, Function<String, Task> existing, long version) {
+        int submitted = candidates.size();
+        BatchAddResult.Entry[] outcomes = new BatchAddResult.Entry[submitted];
+        Task[] byIndex = candidates.toArray(new Task[0]);
+
+        for (int i = 0; i < submitted; i++) {
+            Task task = byIndex[i];
+            if (existing.apply(task.getDescription()) != null) {
+                outcomes[i] = rejection(task, BatchAddResult.Status.DUPLICATE_DESCRIPTION, task);
+            }
+        }
+
+        // The schedule's tasks as sorted arrays, so each overlap check is one binary search
+        List<Task> ordered = new ArrayList<>(schedule.size());
+        IntervalIndex wrapping = new IntervalIndex();
+        for (Task task : schedule) {
+            if (task.getStartTime().isAfter(task.getEndTime())) {
+                wrapping.add(task);
+            } else {
+                ordered.add(task);
+            }
+        }
+        OrderedIntervals scheduled = new OrderedIntervals(ordered);
+
+        List<Candidate> intervals = new ArrayList<>(submitted);
+        List<Candidate> others = new ArrayList<>();
+        for (int i = 0; i < submitted; i++) {
+            if (outcomes[i] != null) {
+                continue;
+            }
+            Candidate candidate = new Candidate(i, byIndex[i], weight(byIndex[i].getPriority()));
+            Task blocking = scheduled.findConflict(candidate.start, candidate.end);
+            if (blocking == null && !wrapping.isEmpty()) {
+                blocking = wrapping.findConflict(candidate.task);
+            }
+            if (blocking != null) {
+                outcomes[i] = rejection(candidate.task, BatchAddResult.Status.CONFLICTS_WITH_EXISTING, blocking);
+            } else if (candidate.start < candidate.end) {
+                intervals.add(candidate);
+            } else {
+                others.add(candidate);
+            }
+        }
+
+        List<Task> chosen = new ArrayList<>();
+        Map<String, Task> acceptedByDescription = new HashMap<>(submitted * 2);
+        long totalWeight = 0;
+        for (Candidate candidate : chooseIntervals(intervals)) {
+            chosen.add(candidate.task);
+            acceptedByDescription.put(candidate.task.getDescription(), candidate.task);
+            totalWeight += candidate.weight;
+            outcomes[candidate.index] = new BatchAddResult.Entry(candidate.task, BatchAddResult.Status.ACCEPTED, null);
+        }
+        OrderedIntervals accepted = new OrderedIntervals(chosen);
+        IntervalIndex acceptedOthers = new IntervalIndex();
+        others.sort(HEAVIEST_FIRST);
+        for (Candidate candidate : others) {
+            if (!acceptedByDescription.containsKey(candidate.task.getDescription())
+                    && accepted.findConflict(candidate.start, candidate.end) == null
+                    && acceptedOthers.findConflict(candidate.task) == null) {
+                acceptedOthers.add(candidate.task);
+                acceptedByDescription.put(candidate.task.getDescription(), candidate.task);
+                totalWeight += candidate.weight;
+                outcomes[candidate.index] = new BatchAddResult.Entry(candidate.task, BatchAddResult.Status.ACCEPTED, null);
+            }
+        }
+
+        List<Task> plan = new ArrayList<>(chosen.size() + acceptedOthers.size());
+        plan.addAll(chosen);
+        plan.addAll(acceptedOthers.tasks());
+        plan.sort(IntervalIndex.BY_START_TIME);
+        for (int i = 0; i < submitted; i++) {
+            if (outcomes[i] != null) {
+                continue;
+            }
+            Task task = byIndex[i];
+            Task sameDescription = acceptedByDescription.get(task.getDescription());
+            if (sameDescription != null) {
+                outcomes[i] = rejection(task, BatchAddResult.Status.DUPLICATE_DESCRIPTION, sameDescription);
+                continue;
+            }
+            long start = task.getStartTime().toNanoOfDay();
+            long end = task.getEndTime().toNanoOfDay();
+            // Every other candidate left out overlaps an accepted one: chooseIntervals returns a plan no
+            // interval can be added to, and the others were only skipped where they did not fit
+            Task winner = accepted.findConflict(start, end);
+            if (winner == null) {
+                winner = acceptedOthers.findConflict(task);
+            }
+            outcomes[i] = rejection(task, BatchAddResult.Status.OUTWEIGHED, winner);
+        }
+        return new SchedulePlan(version, plan, Arrays.asList(outcomes), totalWeight);
+    }
+
+    // Maximum-weight subset of mutually compatible intervals (touching end to start is compatible) with at
+    // most one per description, in time order; the best found within SEARCH_BUDGET, topped up so that no
+    // left-out interval would still fit
+    private static List<Candidate> chooseIntervals(List<Candidate> intervals) {
+        Candidate[] sorted = intervals.toArray(new Candidate[0]);
+        Arrays.sort(sorted, BY_END);
+        int n = sorted.length;
+        long[] ends = new long[n];
+        for (int j = 0; j < n; j++) {
+            ends[j] = sorted[j].end;
+        }
+        // predecessor[j] is how many intervals end by interval j's start. Subproblems only rule intervals
+        // out, which the recurrence can skip in place, so this is found once for all of them.
+        int[] predecessor = new int[n];
+        for (int j = 0; j < n; j++) {
+            predecessor[j] = countAtMost(ends, j, sorted[j].start);
+        }
+        // Positions of the intervals sharing each description
+        Map<String, List<Integer>> byDescription = new HashMap<>(n * 2);
+        for (int j = 0; j < n; j++) {
+            byDescription.computeIfAbsent(sorted[j].task.getDescription(), description -> new ArrayList<>(1)).add(j);
+        }
+        long[] best = new long[n + 1];
+        boolean[] allowed = new boolean[n];
+
+        List<Candidate> bestPlan = Collections.emptyList();
+        long bestWeight = 0;
+        long budget = SEARCH_BUDGET;
+        // A subproblem maps descriptions to the position of the only one of their intervals it may choose
+        Deque<Map<String, Integer>> pending = new ArrayDeque<>();
+        pending.push(Collections.emptyMap());
+        while (!pending.isEmpty() && budget > 0) {
+            Map<String, Integer> only = pending.pop();
+            budget -= n;
+            Arrays.fill(allowed, true);
+            only.forEach((description, position) -> {
+                for (int j : byDescription.get(description)) {
+                    allowed[j] = j == position;
+                }
+            });
+            // Ignoring descriptions gives an upper bound for every plan within this subproblem
+            List<Candidate> relaxed = weightedIntervals(sorted, predecessor, allowed, best);
+            if (best[n] <= bestWeight) {
+                continue;
+            }
+            Map<String, Candidate> kept = new HashMap<>(relaxed.size() * 2);
+            String repeated = null;
+            for (Candidate candidate : relaxed) {
+                Candidate previous = kept.putIfAbsent(candidate.task.getDescription(), candidate);
+                if (previous != null) {
+                    repeated = repeated == null ? candidate.task.getDescription() : repeated;
+                    if (candidate.weight > previous.weight) {
+                        kept.put(candidate.task.getDescription(), candidate);
+                    }
+                }
+            }
+            // Dropping the lighter repeats gives a valid plan, which may already be the best one
+            List<Candidate> valid = new ArrayList<>(kept.values());
+            if (totalWeight(valid) > bestWeight) {
+                bestPlan = valid;
+                bestWeight = totalWeight(valid);
+            }
+            if (repeated == null) {
+                continue;
+            }
+            // Every valid plan keeps at most one interval of the repeated description, so trying each as
+            // the only one left covers them all; the heaviest is tried first
+            List<Integer> group = new ArrayList<>(byDescription.get(repeated));
+            group.sort(Comparator.comparingLong((Integer j) -> sorted[j].weight).thenComparing(Comparator.reverseOrder()));
+            for (int j : group) {
+                Map<String, Integer> branch = new HashMap<>(only);
+                branch.put(repeated, j);
+                pending.push(branch);
+            }
+        }
+        List<Candidate> chosen = new ArrayList<>(bestPlan);
+        if (!pending.isEmpty()) {
+            fillRemaining(chosen, intervals);
+        }
+        chosen.sort(BY_END);
+        return chosen;
+    }
+
+    // Add, heaviest first, every interval that still fits beside the chosen ones under a new description
+    private static void fillRemaining(List<Candidate> chosen, List<Candidate> intervals) {
+        IntervalIndex taken = new IntervalIndex();
+        Set<String> descriptions = new HashSet<>();
+        Set<Candidate> included = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Candidate candidate : chosen) {
+            taken.add(candidate.task);
+            descriptions.add(candidate.task.getDescription());
+            included.add(candidate);
+        }
+        List<Candidate> rest = new ArrayList<>(intervals);
+        rest.sort(HEAVIEST_FIRST);
+        for (Candidate candidate : rest) {
+            if (!included.contains(candidate) && !descriptions.contains(candidate.task.getDescription())
+                    && taken.findConflict(candidate.task) == null) {
+                taken.add(candidate.task);
+                descriptions.add(candidate.task.getDescription());
+                chosen.add(candidate);
+            }
+        }
+    }
+
+    // Maximum-weight subset of the allowed intervals, given in end order with their predecessor counts,
+    // regardless of description. best is scratch space of length n + 1: afterwards best[j] is the optimum
+    // over the first j intervals.
+    private static List<Candidate> weightedIntervals(Candidate[] sorted, int[] predecessor, boolean[] allowed, long[] best) {
+        int n = sorted.length;
+        for (int j = 0; j < n; j++) {
+            best[j + 1] = allowed[j] ? Math.max(best[j], sorted[j].weight + best[predecessor[j]]) : best[j];
+        }
+        List<Candidate> chosen = new ArrayList<>();
+        for (int j = n; j > 0; ) {
+            Candidate candidate = sorted[j - 1];
+            if (allowed[j - 1] && candidate.weight + best[predecessor[j - 1]] > best[j - 1]) {
+                chosen.add(candidate);
+                j = predecessor[j - 1];
+            } else {
+                j--;
+            }
+        }
+        Collections.reverse(chosen);
+        return chosen;
+    }
+
+    private static long totalWeight(List<Candidate> candidates) {
+        long total = 0;
+        for (Candidate candidate : candidates) {
+            total += candidate.weight;
+        }
+        return total;
+    }
+
+    // Number of the first 'limit' sorted values that are at or below 'bound'
+    private static int countAtMost(long[] sorted, int limit, long bound) {
+        int low = 0;
+        int high = limit;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sorted[middle] <= bound) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static BatchAddResult.Entry rejection(Task task, BatchAddResult.Status status, Task cause) {
+        return new BatchAddResult.Entry(task, status, cause.getDescription());
+    }
+
+    // Mutually compatible tasks that do not wrap past midnight, in start order. Such tasks are in end order
+    // too, so of those starting before a given end, the last one reaches furthest: a range overlaps the
+    // set exactly when it overlaps that task.
+    private static final class OrderedIntervals {
+        private final Task[] tasks;
+        private final long[] starts;
+        private final long[] ends;
+
+        OrderedIntervals(List<Task> sortedTasks) {
+            tasks = sortedTasks.toArray(new Task[0]);
+            starts = new long[tasks.length];
+            ends = new long[tasks.length];
+            for (int i = 0; i < tasks.length; i++) {
+                starts[i] = tasks[i].getStartTime().toNanoOfDay();
+                ends[i] = tasks[i].getEndTime().toNanoOfDay();
+            }
+        }
+
+        // A task overlapping [start, end) under Task.conflicts, or null
+        Task findConflict(long start, long end) {
+            int before = countAtMost(starts, starts.length, end - 1);
+            return before > 0 && ends[before - 1] > start ? tasks[before - 1] : null;
+        }
+    }
+
+    private static final class Candidate {
+        final int index;
+        final Task task;
+        final long weight;
+        final long start;
+        final long end;
+
+        Candidate(int index, Task task, long weight) {
+            this.index = index;
+            this.task = task;
+            this.weight = weight;
+            this.start = task.getStartTime().toNanoOfDay();
+            this.end = task.getEndTime().toNanoOfDay();
+        }
+    }
+}
@@ -0,0 +1,88 @@
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import javax.management.JMException;
+
+// Independent schedules keyed by crew member and day. Each shard is its own ScheduleManager with its own
+// indexes and lock, so operations on different keys never contend; cross-shard queries fan out in parallel.
+// Shards register their metrics over JMX under their key and are closed when removed.
+class ScheduleRegistry {
+    private static final Logger logger = Logger.getLogger(ScheduleRegistry.class.getName());
+
+    private final Map<ScheduleKey, ScheduleManager> schedules = new ConcurrentHashMap<>();
+
+    // Return the schedule for the key, creating an empty one on first use
+    public ScheduleManager getSchedule(String crewMember, LocalDate date) {
+        return getSchedule(new ScheduleKey(crewMember, date));
+    }
+
+    public ScheduleManager getSchedule(ScheduleKey key) {
+        return schedules.computeIfAbsent(key, this::open);
+    }
+
+    // Return the schedule for the key, or null if none has been created
+    public ScheduleManager findSchedule(String crewMember, LocalDate date) {
+        return findSchedule(new ScheduleKey(crewMember, date));
+    }
+
+    public ScheduleManager findSchedule(ScheduleKey key) {
+        return schedules.get(key);
+    }
+
+    // Remove and close the schedule for the key; returns it, or null if there was none. Its observers stop
+    // and its metrics leave JMX, but its tasks can still be read.
+    public ScheduleManager removeSchedule(String crewMember, LocalDate date) {
+        ScheduleManager removed = schedules.remove(new ScheduleKey(crewMember, date));
+        if (removed != null) {
+            removed.close();
+        }
+        return removed;
+    }
+
+    // Apply reloaded configuration to every shard; new shards pick up the current settings when created
+    public void applySettings(ScheduleSettings settings) {
+        schedules.values().forEach(schedule -> configure(schedule, settings));
+    }
+
+    public Set<ScheduleKey> keys() {
+        return schedules.keySet();
+    }
+
+    // Tasks at the given priority for every crew member on the date, queried shard by shard in parallel
+    public Map<String, List<Task>> viewTasksByPriority(LocalDate date, Priority priority) {
+        return schedules.entrySet().parallelStream()
+                .filter(entry -> entry.getKey().getDate().equals(date))
+                .collect(Collectors.toConcurrentMap(entry -> entry.getKey().getCrewMember(),
+                        entry -> entry.getValue().viewTasksByPriority(priority)));
+    }
+
+    // Open tasks at the given priority across the whole crew on the date
+    public int countOpenTasksByPriority(LocalDate date, Priority priority) {
+        return schedules.entrySet().parallelStream()
+                .filter(entry -> entry.getKey().getDate().equals(date))
+                .mapToInt(entry -> entry.getValue().countOpenTasksByPriority(priority))
+                .sum();
+    }
+
+    // Create a shard and register its metrics beans; they report zeros until metrics.enabled is set
+    private ScheduleManager open(ScheduleKey key) {
+        ScheduleManager schedule = new ScheduleManager(key.getDate());
+        try {
+            schedule.getMetrics().registerMBeans(key.toString());
+        } catch (JMException e) {
+            logger.log(Level.WARNING, "Could not register metrics for schedule " + key + " with JMX", e);
+        }
+        configure(schedule, ConfigurationManager.getSettings());
+        return schedule;
+    }
+
+    private static void configure(ScheduleManager schedule, ScheduleSettings settings) {
+        schedule.applySettings(settings);
+        schedule.getMetrics().startDump(settings.isMetricsEnabled() ? settings.getMetricsDumpIntervalSeconds() : 0);
+    }
+}
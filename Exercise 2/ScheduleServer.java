@@ -0,0 +1,326 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// JSON API over the JDK's built-in HttpServer:
+//   GET    /tasks[?filters]                 stream the schedule as a JSON array; filters are listed at parseQuery
+//   POST   /tasks                           add {"description","start","end","priority"}
+//   GET    /tasks/{description}             one task
+//   PUT    /tasks/{description}             edit; omitted fields keep their current value
+//   DELETE /tasks/{description}             remove
+//   POST   /tasks/{description}/complete    mark as completed
+//   GET    /history[?filters]               stream archived tasks, with the same filters as /tasks
+// It serves one shard of a ScheduleRegistry, looked up per request, and answers 503 once that shard has been
+// removed. On a follower replica (setReplica) writes are refused with 403, reads report the replica's lag in the
+// X-Replica-Lag-Ms and X-Replica-Lag-Ops headers, and reads fail with 503 while the lag exceeds its bound.
+// Requests run on virtual threads where the runtime has them (see Threads.perTaskExecutor). Connections
+// are kept alive between requests, and idle connections hold no request thread, so thousands of
+// clients can stay connected.
+class ScheduleServer {
+    private static final Logger logger = Logger.getLogger(ScheduleServer.class.getName());
+    private static final String PREFIX = "/tasks";
+    private static final String HISTORY = "/history";
+    private static final int MAX_BODY_BYTES = 64 * 1024;
+
+    private final ScheduleRegistry schedules;
+    private final ScheduleKey key;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    // Set on follower replicas; null on a standalone or leader node
+    private volatile ScheduleFollower replica;
+
+    public ScheduleServer(ScheduleRegistry schedules, ScheduleKey key, InetSocketAddress address, int backlog,
+                          int platformThreads) throws IOException {
+        this.schedules = schedules;
+        this.key = key;
+        this.server = HttpServer.create(address, backlog);
+        this.executor = Threads.perTaskExecutor("http", platformThreads);
+        server.createContext(PREFIX, this::handle);
+        server.createContext(HISTORY, this::handle);
+        server.setExecutor(executor);
+    }
+
+    public void start() {
+        server.start();
+        logger.log(Level.INFO, "Schedule server listening on {0}", server.getAddress());
+    }
+
+    // Stop accepting connections, give in-flight exchanges up to delaySeconds, then release the threads
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(delaySeconds, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Serve as a read-only replica while the follower is following (until it is promoted)
+    public void setReplica(ScheduleFollower replica) {
+        this.replica = replica;
+    }
+
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            route(exchange);
+        } catch (TaskNotFoundException e) {
+            sendError(exchange, 404, e.getMessage());
+        } catch (TaskConflictException e) {
+            sendError(exchange, 409, e.getMessage());
+        } catch (IllegalArgumentException e) {
+            sendError(exchange, 400, e.getMessage());
+        } catch (IOException e) {
+            // The client went away mid-response; nothing more can be sent
+            logger.log(Level.FINE, "Error writing response", e);
+        } catch (RuntimeException e) {
+            logger.log(Level.SEVERE, "Unexpected error handling " + exchange.getRequestURI(), e);
+            sendError(exchange, 500, "Internal error");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void route(HttpExchange exchange) throws IOException, TaskNotFoundException, TaskConflictException {
+        String method = exchange.getRequestMethod();
+        String path = exchange.getRequestURI().getRawPath();
+        ScheduleFollower activeReplica = replica;
+        if (activeReplica != null && activeReplica.isFollowing()) {
+            if (!method.equals("GET")) {
+                sendError(exchange, 403, "Read-only replica; send writes to the leader");
+                return;
+            }
+            long lagMillis = activeReplica.getLagMillis();
+            exchange.getResponseHeaders().set("X-Replica-Lag-Ms", String.valueOf(lagMillis));
+            exchange.getResponseHeaders().set("X-Replica-Lag-Ops", String.valueOf(activeReplica.getLagOps()));
+            if (!activeReplica.isFresh()) {
+                sendError(exchange, 503, "Replica is " + lagMillis + " ms behind its leader");
+                return;
+            }
+        }
+        ScheduleManager schedule = schedules.findSchedule(key);
+        if (schedule == null) {
+            sendError(exchange, 503, "Schedule " + key + " has been closed");
+            return;
+        }
+        if (path.equals(HISTORY) || path.equals(HISTORY + "/")) {
+            if (method.equals("GET")) {
+                sendQuery(exchange, schedule.history(parseQuery(queryParameters(exchange))));
+            } else {
+                sendError(exchange, 405, "Use GET");
+            }
+            return;
+        }
+        if (path.equals(PREFIX) || path.equals(PREFIX + "/")) {
+            if (method.equals("GET")) {
+                listTasks(exchange, schedule);
+            } else if (method.equals("POST")) {
+                Task task = parseTask(readBody(exchange), null);
+                schedule.addTask(task);
+                sendTask(exchange, 201, task);
+            } else {
+                sendError(exchange, 405, "Use GET or POST");
+            }
+            return;
+        }
+        if (!path.startsWith(PREFIX + "/")) {
+            sendError(exchange, 404, "Not found");
+            return;
+        }
+
+        String target = path.substring(PREFIX.length() + 1);
+        boolean complete = target.endsWith("/complete");
+        if (complete) {
+            target = target.substring(0, target.length() - "/complete".length());
+        }
+        // '+' is literal in a path, unlike in a query string
+        String description = URLDecoder.decode(target.replace("+", "%2B"), StandardCharsets.UTF_8);
+        if (complete) {
+            if (!method.equals("POST")) {
+                sendError(exchange, 405, "Use POST");
+                return;
+            }
+            // The task as the completion left it; a later read could see another writer's change or a 404
+            sendTask(exchange, 200, schedule.markTaskAsCompleted(description));
+            return;
+        }
+        switch (method) {
+            case "GET":
+                sendTask(exchange, 200, schedule.getTask(description));
+                break;
+            case "PUT":
+                byte[] body = readBody(exchange);
+                // Fields are merged into the task as it is when the edit is applied, not as an earlier read saw it
+                sendTask(exchange, 200, schedule.editTask(description, current -> parseTask(body, current)));
+                break;
+            case "DELETE":
+                schedule.removeTask(description);
+                exchange.sendResponseHeaders(204, -1);
+                break;
+            default:
+                sendError(exchange, 405, "Use GET, PUT or DELETE");
+        }
+    }
+
+    // Stream the listing with chunked encoding so large schedules are never buffered whole
+    private static void listTasks(HttpExchange exchange, ScheduleManager schedule) throws IOException {
+        Map<String, String> parameters = queryParameters(exchange);
+        if (!parameters.isEmpty()) {
+            sendQuery(exchange, schedule.query(parseQuery(parameters)));
+            return;
+        }
+        sendTasks(exchange, schedule.viewTasks());
+    }
+
+    private static void sendQuery(HttpExchange exchange, QueryResult result) throws IOException {
+        sendTasks(exchange, result.stream()::iterator);
+        logger.log(Level.FINE, "Query {0}", result);
+    }
+
+    private static void sendTasks(HttpExchange exchange, Iterable<Task> tasks) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, 0);
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8), 1 << 14)) {
+            new TaskReportRenderer(out, TaskReportRenderer.Format.JSON).render(tasks);
+        }
+    }
+
+    // ?from=HH:mm&to=HH:mm&priority=P[,P...]&completed=true|false; every parameter is optional
+    private static TaskQuery parseQuery(Map<String, String> parameters) {
+        TaskQuery query = TaskQuery.all().between(parseTime(parameters.get("from")), parseTime(parameters.get("to")));
+        String priority = parameters.get("priority");
+        if (priority != null) {
+            String[] names = priority.split(",");
+            Priority[] levels = new Priority[names.length];
+            for (int i = 0; i < names.length; i++) {
+                byte[] name = names[i].trim().getBytes(StandardCharsets.UTF_8);
+                levels[i] = TaskFactory.parsePriority(name, 0, name.length);
+                if (levels[i] == null) {
+                    throw new IllegalArgumentException("Invalid priority level. Use LOW, MEDIUM, or HIGH.");
+                }
+            }
+            query = query.withPriorities(levels);
+        }
+        String completed = parameters.get("completed");
+        if (completed != null) {
+            if (completed.equalsIgnoreCase("true")) {
+                query = query.completed();
+            } else if (completed.equalsIgnoreCase("false")) {
+                query = query.open();
+            } else {
+                throw new IllegalArgumentException("completed must be true or false");
+            }
+        }
+        return query;
+    }
+
+    private static LocalTime parseTime(String value) {
+        if (value == null) {
+            return null;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int seconds = TaskFactory.parseTimeSeconds(bytes, 0, bytes.length);
+        if (seconds < 0) {
+            throw new IllegalArgumentException("Invalid time format. Use HH:mm.");
+        }
+        return LocalTime.ofSecondOfDay(seconds);
+    }
+
+    // Build a task from a JSON body; with a current task, missing fields keep its values (an edit)
+    private static Task parseTask(byte[] body, Task current) {
+        Map<String, String> fields = new HashMap<>();
+        if (!FlatJson.parse(body, 0, body.length, fields)) {
+            throw new IllegalArgumentException("Request body must be a flat JSON object");
+        }
+        String description = fields.getOrDefault("description", current == null ? null : current.getDescription());
+        String start = fields.getOrDefault("start", current == null ? null : current.getStartTime().toString());
+        String end = fields.getOrDefault("end", current == null ? null : current.getEndTime().toString());
+        String priority = fields.getOrDefault("priority", current == null ? null : current.getPriority().name());
+        if (description == null || description.isEmpty() || start == null || end == null || priority == null) {
+            throw new IllegalArgumentException("Expected description, start, end and priority");
+        }
+        return TaskFactory.createTask(description, start, end, priority);
+    }
+
+    private static byte[] readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] body = in.readNBytes(MAX_BODY_BYTES + 1);
+            if (body.length > MAX_BODY_BYTES) {
+                throw new IllegalArgumentException("Request body exceeds " + MAX_BODY_BYTES + " bytes");
+            }
+            return body;
+        }
+    }
+
+    private static Map<String, String> queryParameters(HttpExchange exchange) {
+        Map<String, String> parameters = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) {
+            return parameters;
+        }
+        for (String pair : query.split("&")) {
+            int equals = pair.indexOf('=');
+            if (equals > 0) {
+                parameters.put(URLDecoder.decode(pair.substring(0, equals), StandardCharsets.UTF_8),
+                    URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return parameters;
+    }
+
+    private static void sendTask(HttpExchange exchange, int status, Task task) throws IOException {
+        StringWriter json = new StringWriter(128);
+        new TaskReportRenderer(json, TaskReportRenderer.Format.JSON).write(task);
+        send(exchange, status, json.toString());
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        if (exchange.getResponseCode() != -1) {
+            // Headers are already out, e.g. part way through a streamed listing; all that is left is to close
+            logger.log(Level.FINE, "Cannot report {0} after the response started: {1}", new Object[] {status, message});
+            return;
+        }
+        StringBuilder json = new StringBuilder("{\"error\":\"");
+        for (int i = 0; i < message.length(); i++) {
+            char c = message.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < ' ') {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        send(exchange, status, json.append("\"}").toString());
+    }
+
+    // Fixed-length response, which keeps the connection reusable
+    private static void send(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
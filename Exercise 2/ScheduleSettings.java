@@ -0,0 +1,185 @@
+import java.util.Properties;
+import java.util.logging.Level;
+
+// Typed, immutable view of config.properties. Every value is parsed and validated once, when the file is
+// loaded, so subsystems read plain fields instead of looking up and parsing strings on every call. A reload
+// builds a new instance and ConfigurationManager publishes it in one step.
+class ScheduleSettings {
+    static final ScheduleSettings DEFAULTS = from(new Properties());
+
+    private final Properties properties;
+    private final Level logLevel;
+    private final boolean logAsync;
+    private final int logAsyncQueueSize;
+    private final boolean configWatch;
+    private final String scheduleCrewMember;
+    private final String journalDir;
+    private final ScheduleJournal.FsyncPolicy journalFsync;
+    private final long journalFsyncIntervalMillis;
+    private final long journalSnapshotEveryOps;
+    private final long plannerWeightLow;
+    private final long plannerWeightMedium;
+    private final long plannerWeightHigh;
+    private final String archiveDir;
+    private final TaskArchive.Policy archivePolicy;
+    private final long archiveIntervalSeconds;
+    private final int observerQueueSize;
+    private final EventDispatcher.Backpressure observerBackpressure;
+    private final boolean metricsEnabled;
+    private final long metricsDumpIntervalSeconds;
+    private final String serverHost;
+    private final int serverPort;
+    private final int serverBacklog;
+    private final int serverPlatformThreads;
+    private final int serverMaxIdleConnections;
+    private final ReplicationRole replicationRole;
+    private final String replicationHost;
+    private final int replicationPort;
+    private final String replicationLeaderHost;
+    private final int replicationLeaderPort;
+    private final int replicationLogRetain;
+    private final long replicationHeartbeatMillis;
+    private final long replicationRetryMillis;
+    private final long replicationMaxLagMillis;
+
+    private ScheduleSettings(Properties properties) {
+        this.properties = properties;
+        logLevel = parse(properties, "log.level", "INFO", Level::parse);
+        logAsync = parseBoolean(properties, "log.async", "true");
+        logAsyncQueueSize = parsePositiveInt(properties, "log.async.queue.size", "8192");
+        configWatch = parseBoolean(properties, "config.watch", "true");
+        scheduleCrewMember = parse(properties, "schedule.crew.member", "default", value -> {
+            if (value.isEmpty()) {
+                throw new IllegalArgumentException(value);
+            }
+            return value;
+        });
+        journalDir = properties.getProperty("journal.dir", "").trim();
+        journalFsync = parse(properties, "journal.fsync", "GROUP", value -> ScheduleJournal.FsyncPolicy.valueOf(value.toUpperCase()));
+        journalFsyncIntervalMillis = parsePositiveLong(properties, "journal.fsync.interval.ms", "20");
+        journalSnapshotEveryOps = parsePositiveLong(properties, "journal.snapshot.every.ops", "100000");
+        plannerWeightLow = parsePositiveLong(properties, "planner.weight.low", "1");
+        plannerWeightMedium = parsePositiveLong(properties, "planner.weight.medium", "4");
+        plannerWeightHigh = parsePositiveLong(properties, "planner.weight.high", "16");
+        archiveDir = properties.getProperty("archive.dir", "").trim();
+        archivePolicy = parse(properties, "archive.policy", "NONE", value -> TaskArchive.Policy.valueOf(value.toUpperCase()));
+        archiveIntervalSeconds = parsePositiveLong(properties, "archive.interval.seconds", "60");
+        observerQueueSize = parsePositiveInt(properties, "observer.queue.size", "1024");
+        observerBackpressure = parse(properties, "observer.backpressure", "DROP_OLDEST", value -> EventDispatcher.Backpressure.valueOf(value.toUpperCase()));
+        metricsEnabled = parseBoolean(properties, "metrics.enabled", "false");
+        metricsDumpIntervalSeconds = parse(properties, "metrics.dump.interval.seconds", "60", Long::parseLong);
+        serverHost = properties.getProperty("server.host", "127.0.0.1").trim();
+        serverPort = parse(properties, "server.port", "8080", Integer::parseInt);
+        serverBacklog = parsePositiveInt(properties, "server.backlog", "1024");
+        serverPlatformThreads = parsePositiveInt(properties, "server.platform.threads", "64");
+        serverMaxIdleConnections = parsePositiveInt(properties, "server.max.idle.connections", "10000");
+        replicationRole = parse(properties, "replication.role", "NONE", value -> ReplicationRole.valueOf(value.toUpperCase()));
+        replicationHost = properties.getProperty("replication.host", "127.0.0.1").trim();
+        replicationPort = parse(properties, "replication.port", "7070", Integer::parseInt);
+        String leader = properties.getProperty("replication.leader", "").trim();
+        int separator = leader.lastIndexOf(':');
+        replicationLeaderHost = separator > 0 ? leader.substring(0, separator) : "";
+        replicationLeaderPort = separator > 0
+            ? parse(properties, "replication.leader", "", value -> Integer.parseInt(value.substring(value.lastIndexOf(':') + 1)))
+            : 0;
+        if (replicationRole == ReplicationRole.FOLLOWER && replicationLeaderHost.isEmpty()) {
+            throw new IllegalArgumentException("Invalid value for replication.leader: a follower needs host:port");
+        }
+        replicationLogRetain = parsePositiveInt(properties, "replication.log.retain", "100000");
+        replicationHeartbeatMillis = parsePositiveLong(properties, "replication.heartbeat.ms", "100");
+        replicationRetryMillis = parsePositiveLong(properties, "replication.retry.ms", "500");
+        replicationMaxLagMillis = parsePositiveLong(properties, "replication.max.lag.ms", "1000");
+    }
+
+    // Parse every known key; throws IllegalArgumentException naming the first invalid one
+    public static ScheduleSettings from(Properties properties) {
+        Properties copy = new Properties();
+        copy.putAll(properties);
+        return new ScheduleSettings(copy);
+    }
+
+    // Raw value of any key, including ones without a typed getter
+    public String getProperty(String key, String defaultValue) {
+        return properties.getProperty(key, defaultValue);
+    }
+
+    public Level getLogLevel() { return logLevel; }
+    public boolean isLogAsync() { return logAsync; }
+    public int getLogAsyncQueueSize() { return logAsyncQueueSize; }
+    public boolean isConfigWatch() { return configWatch; }
+    // Crew member whose schedule the organizer opens in the ScheduleRegistry
+    public String getScheduleCrewMember() { return scheduleCrewMember; }
+    // Empty when the schedule is memory-only
+    public String getJournalDir() { return journalDir; }
+    public ScheduleJournal.FsyncPolicy getJournalFsync() { return journalFsync; }
+    public long getJournalFsyncIntervalMillis() { return journalFsyncIntervalMillis; }
+    public long getJournalSnapshotEveryOps() { return journalSnapshotEveryOps; }
+    public long getPlannerWeightLow() { return plannerWeightLow; }
+    public long getPlannerWeightMedium() { return plannerWeightMedium; }
+    public long getPlannerWeightHigh() { return plannerWeightHigh; }
+    // Empty to keep the archive off-heap for the current run only
+    public String getArchiveDir() { return archiveDir; }
+    public TaskArchive.Policy getArchivePolicy() { return archivePolicy; }
+    public long getArchiveIntervalSeconds() { return archiveIntervalSeconds; }
+    public int getObserverQueueSize() { return observerQueueSize; }
+    public EventDispatcher.Backpressure getObserverBackpressure() { return observerBackpressure; }
+    public boolean isMetricsEnabled() { return metricsEnabled; }
+    public long getMetricsDumpIntervalSeconds() { return metricsDumpIntervalSeconds; }
+    public String getServerHost() { return serverHost; }
+    public int getServerPort() { return serverPort; }
+    public int getServerBacklog() { return serverBacklog; }
+    public int getServerPlatformThreads() { return serverPlatformThreads; }
+    public int getServerMaxIdleConnections() { return serverMaxIdleConnections; }
+    public ReplicationRole getReplicationRole() { return replicationRole; }
+    public String getReplicationHost() { return replicationHost; }
+    public int getReplicationPort() { return replicationPort; }
+    // Leader address for followers; the host is empty when none is configured
+    public String getReplicationLeaderHost() { return replicationLeaderHost; }
+    public int getReplicationLeaderPort() { return replicationLeaderPort; }
+    public int getReplicationLogRetain() { return replicationLogRetain; }
+    public long getReplicationHeartbeatMillis() { return replicationHeartbeatMillis; }
+    public long getReplicationRetryMillis() { return replicationRetryMillis; }
+    public long getReplicationMaxLagMillis() { return replicationMaxLagMillis; }
+
+    private interface Parser<T> {
+        T parse(String value);
+    }
+
+    private static <T> T parse(Properties properties, String key, String defaultValue, Parser<T> parser) {
+        String value = properties.getProperty(key, defaultValue).trim();
+        try {
+            return parser.parse(value);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid value for " + key + ": " + value, e);
+        }
+    }
+
+    private static boolean parseBoolean(Properties properties, String key, String defaultValue) {
+        return parse(properties, key, defaultValue, value -> {
+            if (!value.equalsIgnoreCase("true") && !value.equalsIgnoreCase("false")) {
+                throw new IllegalArgumentException(value);
+            }
+            return Boolean.parseBoolean(value);
+        });
+    }
+
+    private static int parsePositiveInt(Properties properties, String key, String defaultValue) {
+        return parse(properties, key, defaultValue, value -> {
+            int parsed = Integer.parseInt(value);
+            if (parsed <= 0) {
+                throw new IllegalArgumentException(value);
+            }
+            return parsed;
+        });
+    }
+
+    private static long parsePositiveLong(Properties properties, String key, String defaultValue) {
+        return parse(properties, key, defaultValue, value -> {
+            long parsed = Long.parseLong(value);
+            if (parsed <= 0) {
+                throw new IllegalArgumentException(value);
+            }
+            return parsed;
+        });
+    }
+}
@@ -0,0 +1,76 @@
+import java.time.LocalTime;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+// Read-only view of a schedule as of one version. Snapshots share structure with each other, so taking
+// one is O(1) and never copies the task set; a reader keeps a consistent view while writers move on.
+// Completion flags are read from the live Task objects.
+class ScheduleSnapshot {
+    static final ScheduleSnapshot EMPTY = new ScheduleSnapshot(0, PersistentTaskTree.EMPTY);
+
+    private final long version;
+    private final PersistentTaskTree tree;
+
+    ScheduleSnapshot(long version, PersistentTaskTree tree) {
+        this.version = version;
+        this.tree = tree;
+    }
+
+    // Incremented by every mutation of the schedule
+    public long getVersion() { return version; }
+
+    public int size() { return tree.size(); }
+
+    PersistentTaskTree tree() { return tree; }
+
+    // All tasks in time order as an unmodifiable list backed by the snapshot
+    public List<Task> tasks() {
+        return new AbstractList<Task>() {
+            @Override
+            public Task get(int index) {
+                return tree.get(index);
+            }
+
+            @Override
+            public int size() {
+                return tree.size();
+            }
+
+            // Walk the tree rather than paying AbstractList's O(log n) get per element
+            @Override
+            public Iterator<Task> iterator() {
+                return tree.iterator();
+            }
+        };
+    }
+
+    // Tasks starting at or after fromTime, in time order
+    public Iterator<Task> cursor(LocalTime fromTime) {
+        return tree.iteratorFrom(IntervalIndex.probe(fromTime), true);
+    }
+
+    // Tasks ordered strictly after the given one; use the last task of a page to fetch the next page
+    public Iterator<Task> cursorAfter(Task previous) {
+        return tree.iteratorFrom(previous, false);
+    }
+
+    // At most limit tasks starting at or after fromTime
+    public List<Task> page(LocalTime fromTime, int limit) {
+        return take(cursor(fromTime), limit);
+    }
+
+    // At most limit tasks ordered strictly after the given one
+    public List<Task> pageAfter(Task previous, int limit) {
+        return take(cursorAfter(previous), limit);
+    }
+
+    private static List<Task> take(Iterator<Task> cursor, int limit) {
+        List<Task> page = new ArrayList<>(Math.min(Math.max(limit, 0), 1024));
+        while (page.size() < limit && cursor.hasNext()) {
+            page.add(cursor.next());
+        }
+        return page;
+    }
+}
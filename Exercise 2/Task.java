@@ -2,11 +2,15 @@ import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 
 class Task {
+    // Formatters are immutable and thread-safe, so one instance serves every task
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm");
+
     private final String description;
     private final LocalTime startTime;
     private final LocalTime endTime;
     private final Priority priority;
-    private boolean completed;
+    // Volatile so a completion made under the schedule lock is seen by lock-free readers at once
+    private volatile boolean completed;
 
     public Task(String description, LocalTime startTime, LocalTime endTime, Priority priority) {
         this.description = description;
@@ -33,8 +37,8 @@ class Task {
     @Override
     public String toString() {
         return String.format("%s - %s: %s [%s] %s", 
-            startTime.format(DateTimeFormatter.ofPattern("HH:mm")),
-            endTime.format(DateTimeFormatter.ofPattern("HH:mm")),
+            startTime.format(TIME_FORMAT),
+            endTime.format(TIME_FORMAT),
             description, priority, completed ? "(Completed)" : "");
     }
 }
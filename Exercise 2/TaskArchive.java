@@ -0,0 +1,263 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+// Cold store for tasks moved out of the live schedule. Tasks are appended in the journal's compact
+// binary form, either to a file (fsynced before the live schedule drops them) or to an off-heap buffer
+// that lasts for the run. Nothing is held on the Java heap: history queries scan a read-only view of the
+// records present when the query starts. Records: length, CRC32, task.
+class TaskArchive implements AutoCloseable {
+    enum Policy {
+        // Keep everything in the live schedule
+        NONE,
+        // Archive tasks once they are marked as completed
+        COMPLETED,
+        // Archive tasks that have ended: on the schedule's date once the wall clock passes their end time,
+        // and all of them once that date has gone by. Nothing is archived from a schedule for a later day.
+        PAST,
+        COMPLETED_OR_PAST;
+
+        boolean archivesCompleted() { return this == COMPLETED || this == COMPLETED_OR_PAST; }
+        boolean archivesPast() { return this == PAST || this == COMPLETED_OR_PAST; }
+    }
+
+    private static final Logger logger = Logger.getLogger(TaskArchive.class.getName());
+    private static final int ARCHIVE_MAGIC = 0x53415243; // "SARC"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+
+    // Null for an off-heap archive
+    private final FileChannel channel;
+    private final Path path;
+    private ByteBuffer memory;
+    private final CRC32 crc = new CRC32();
+    private final ScheduledExecutorService background;
+    private volatile Policy policy = Policy.NONE;
+    private long intervalSeconds;
+    private Runnable sweep;
+    private ScheduledFuture<?> sweeps;
+    // Bytes of valid records, including the header
+    private long size;
+    private volatile int count;
+
+    private TaskArchive(FileChannel channel, Path path, ByteBuffer memory) {
+        this.channel = channel;
+        this.path = path;
+        this.memory = memory;
+        this.background = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "schedule-archive");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Open or create an archive file; a torn record left by a crash is cut off
+    public static TaskArchive open(Path file) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            TaskArchive archive = new TaskArchive(channel, file, null);
+            archive.recover();
+            return archive;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    // An archive kept in native memory for the life of the process
+    public static TaskArchive offHeap() {
+        TaskArchive archive = new TaskArchive(null, null, ByteBuffer.allocateDirect(1 << 16));
+        archive.memory.putInt(ARCHIVE_MAGIC).putInt(FORMAT_VERSION);
+        archive.size = HEADER_SIZE;
+        return archive;
+    }
+
+    // Set what is archived and how often sweep runs; an interval of 0 leaves sweeping to the caller
+    public synchronized void configure(Policy policy, long intervalSeconds) {
+        this.policy = policy;
+        if (intervalSeconds != this.intervalSeconds) {
+            this.intervalSeconds = intervalSeconds;
+            reschedule();
+        }
+    }
+
+    // The job run every interval, normally ScheduleManager.archiveTasks
+    public synchronized void onSweep(Runnable sweep) {
+        this.sweep = sweep;
+        reschedule();
+    }
+
+    public Policy getPolicy() { return policy; }
+
+    // Number of archived tasks
+    public int size() { return count; }
+
+    // Append tasks and make them durable before returning
+    public synchronized void append(List<Task> tasks) throws IOException {
+        int bytes = 0;
+        byte[][] names = new byte[tasks.size()][];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = tasks.get(i).getDescription().getBytes(StandardCharsets.UTF_8);
+            bytes += 8 + ScheduleMutation.encodedTaskSize(names[i]);
+        }
+        ByteBuffer records = ByteBuffer.allocate(bytes);
+        for (int i = 0; i < names.length; i++) {
+            int start = records.position();
+            records.position(start + 8);
+            ScheduleMutation.encodeTask(records, tasks.get(i), names[i]);
+            int length = records.position() - start - 8;
+            crc.reset();
+            crc.update(records.array(), start + 8, length);
+            records.putInt(start, length).putInt(start + 4, (int) crc.getValue());
+        }
+        records.flip();
+        if (channel != null) {
+            while (records.hasRemaining()) {
+                channel.write(records, size + records.position());
+            }
+            channel.force(false);
+        } else {
+            ensureCapacity(bytes);
+            memory.position((int) size);
+            memory.put(records);
+        }
+        size += bytes;
+        count += tasks.size();
+    }
+
+    // Archived tasks matching the query, in the order they were archived, scanned lazily
+    public QueryResult query(TaskQuery query) throws IOException {
+        ByteBuffer records;
+        synchronized (this) {
+            if (channel != null) {
+                if (size > Integer.MAX_VALUE) {
+                    throw new IOException("Archive too large to map: " + path);
+                }
+                records = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            } else {
+                // Later appends write past this limit, and growth swaps in a new buffer, so the view stays valid
+                records = memory.duplicate().limit((int) size);
+            }
+        }
+        records.position(HEADER_SIZE);
+        Iterator<Task> scan = new Iterator<Task>() {
+            @Override
+            public boolean hasNext() {
+                return records.hasRemaining();
+            }
+
+            @Override
+            public Task next() {
+                if (!records.hasRemaining()) {
+                    throw new NoSuchElementException();
+                }
+                records.position(records.position() + 8);
+                return ScheduleMutation.decodeTask(records);
+            }
+        };
+        return new QueryResult(query, channel != null ? "archive " + path : "off-heap archive", Collections.singletonList(scan));
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (sweeps != null) {
+            sweeps.cancel(false);
+        }
+        background.shutdown();
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    private void reschedule() {
+        if (sweeps != null) {
+            sweeps.cancel(false);
+            sweeps = null;
+        }
+        Runnable job = sweep;
+        if (job != null && intervalSeconds > 0) {
+            sweeps = background.scheduleWithFixedDelay(() -> {
+                try {
+                    job.run();
+                } catch (RuntimeException e) {
+                    logger.log(Level.SEVERE, "Archive sweep failed", e);
+                }
+            }, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    private void ensureCapacity(int bytes) {
+        long needed = size + bytes;
+        if (needed > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Off-heap archive is full");
+        }
+        if (needed > memory.capacity()) {
+            ByteBuffer grown = ByteBuffer.allocateDirect((int) Math.min(Integer.MAX_VALUE, Math.max(needed, 2L * memory.capacity())));
+            grown.put(memory.duplicate().position(0).limit((int) size));
+            memory = grown;
+        }
+    }
+
+    // Validate the header and every record, then cut the file after the last intact record
+    private void recover() throws IOException {
+        long fileSize = channel.size();
+        if (fileSize == 0) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(ARCHIVE_MAGIC).putInt(FORMAT_VERSION);
+            header.flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            channel.force(true);
+            size = HEADER_SIZE;
+            return;
+        }
+        if (fileSize > Integer.MAX_VALUE) {
+            throw new IOException("Archive too large to map: " + path);
+        }
+        ByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+        if (fileSize < HEADER_SIZE || data.getInt() != ARCHIVE_MAGIC || data.getInt() != FORMAT_VERSION) {
+            throw new IOException("Not a task archive: " + path);
+        }
+        int records = 0;
+        int valid = HEADER_SIZE;
+        while (data.remaining() >= 8) {
+            int length = data.getInt();
+            int expected = data.getInt();
+            if (length < 0 || length > data.remaining()) {
+                break;
+            }
+            crc.reset();
+            crc.update(data.slice().limit(length));
+            if ((int) crc.getValue() != expected) {
+                break;
+            }
+            data.position(data.position() + length);
+            valid = data.position();
+            records++;
+        }
+        size = valid;
+        if (size < fileSize) {
+            logger.log(Level.WARNING, "Discarding torn tail of archive {0}", path);
+            channel.truncate(size);
+        }
+        count = records;
+    }
+}
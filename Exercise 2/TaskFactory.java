@@ -2,6 +2,8 @@ import java.time.LocalTime;
 import java.time.format.DateTimeParseException;
 
 class TaskFactory {
+    private static final Priority[] PRIORITIES = Priority.values();
+
     public static Task createTask(String description, String startTime, String endTime, String priority) 
             throws IllegalArgumentException {
         try {
@@ -15,4 +17,53 @@ class TaskFactory {
             throw new IllegalArgumentException("Invalid priority level. Use LOW, MEDIUM, or HIGH.");
         }
     }
+
+    // Parse HH:mm or HH:mm:ss from bytes[from, to) into a second of the day, or return -1 if it is not a
+    // valid time. Bulk imports use this instead of LocalTime.parse so bad rows cost no exception.
+    static int parseTimeSeconds(byte[] bytes, int from, int to) {
+        int length = to - from;
+        if ((length != 5 && length != 8) || bytes[from + 2] != ':' || (length == 8 && bytes[from + 5] != ':')) {
+            return -1;
+        }
+        int hours = twoDigits(bytes, from);
+        int minutes = twoDigits(bytes, from + 3);
+        int seconds = length == 8 ? twoDigits(bytes, from + 6) : 0;
+        if (hours < 0 || hours > 23 || minutes < 0 || minutes > 59 || seconds < 0 || seconds > 59) {
+            return -1;
+        }
+        return hours * 3600 + minutes * 60 + seconds;
+    }
+
+    // Parse LOW, MEDIUM or HIGH in any letter case from bytes[from, to), or return null
+    static Priority parsePriority(byte[] bytes, int from, int to) {
+        for (Priority priority : PRIORITIES) {
+            String name = priority.name();
+            if (name.length() == to - from && equalsIgnoreCase(bytes, from, name)) {
+                return priority;
+            }
+        }
+        return null;
+    }
+
+    private static int twoDigits(byte[] bytes, int at) {
+        int tens = bytes[at] - '0';
+        int ones = bytes[at + 1] - '0';
+        if (tens < 0 || tens > 9 || ones < 0 || ones > 9) {
+            return -1;
+        }
+        return tens * 10 + ones;
+    }
+
+    private static boolean equalsIgnoreCase(byte[] bytes, int from, String upperCase) {
+        for (int i = 0; i < upperCase.length(); i++) {
+            int c = bytes[from + i];
+            if (c >= 'a' && c <= 'z') {
+                c -= 'a' - 'A';
+            }
+            if (c != upperCase.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
 }
\ No newline at end of file
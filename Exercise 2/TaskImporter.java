@@ -0,0 +1,397 @@
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+// Bulk loader for day plans. The file is memory-mapped and cut into line-aligned chunks that are parsed
+// in parallel without exceptions; the rows then go to ScheduleManager.addTasks in one batch. A file is
+// imported whole or not at all: if any row fails to parse, nothing is added, and if any row clashes with
+// the schedule or another row, addTasks rejects the whole batch.
+// CSV rows are description,start,end,priority[,completed] with an optional header line and RFC 4180
+// quoting (no line breaks inside fields); NDJSON rows are flat objects with the same keys.
+class TaskImporter {
+    enum Format {
+        CSV, NDJSON;
+
+        // Choose the format from the file extension: .ndjson/.jsonl/.json are NDJSON, anything else CSV
+        static Format forFile(Path file) {
+            String name = file.getFileName().toString().toLowerCase();
+            return name.endsWith(".ndjson") || name.endsWith(".jsonl") || name.endsWith(".json") ? NDJSON : CSV;
+        }
+    }
+
+    static final int MAX_REPORTED_ERRORS = 1000;
+    private static final Logger logger = Logger.getLogger(TaskImporter.class.getName());
+    private static final long MIN_CHUNK_BYTES = 1 << 20;
+    // Mapped regions must fit an int-indexed buffer; longer chunks are split
+    private static final long MAX_CHUNK_BYTES = Integer.MAX_VALUE - 1024;
+
+    private final ScheduleManager scheduleManager;
+
+    public TaskImporter(ScheduleManager scheduleManager) {
+        this.scheduleManager = scheduleManager;
+    }
+
+    public ImportResult importFile(Path file) throws IOException {
+        return importFile(file, Format.forFile(file));
+    }
+
+    public ImportResult importFile(Path file, Format format) throws IOException {
+        long started = System.nanoTime();
+        List<ChunkResult> chunks;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            List<long[]> bounds = split(channel);
+            chunks = bounds.parallelStream()
+                    .map(range -> parseChunk(channel, range[0], range[1], format))
+                    .collect(Collectors.toList());
+        }
+
+        // Turn chunk-relative line numbers into file line numbers and gather the tasks in file order
+        int taskCount = 0;
+        for (ChunkResult chunk : chunks) {
+            taskCount += chunk.tasks.size();
+        }
+        List<Task> tasks = new ArrayList<>(taskCount);
+        long[] taskLines = new long[taskCount];
+        List<ImportResult.LineError> errors = new ArrayList<>();
+        long errorCount = 0;
+        long lineOffset = 0;
+        for (ChunkResult chunk : chunks) {
+            for (int i = 0; i < chunk.tasks.size(); i++) {
+                taskLines[tasks.size() + i] = lineOffset + chunk.taskLines[i];
+            }
+            tasks.addAll(chunk.tasks);
+            for (ImportResult.LineError error : chunk.errors) {
+                if (errors.size() < MAX_REPORTED_ERRORS) {
+                    errors.add(new ImportResult.LineError(lineOffset + error.getLine(), error.getMessage()));
+                }
+            }
+            errorCount += chunk.errorCount;
+            lineOffset += chunk.lines;
+        }
+
+        BatchAddResult batchResult;
+        if (errorCount > 0) {
+            // Never apply part of a file; the rows that did parse are not checked against the schedule
+            batchResult = new BatchAddResult(false, Collections.emptyList());
+        } else {
+            batchResult = scheduleManager.addTasks(tasks);
+            List<BatchAddResult.Entry> entries = batchResult.getEntries();
+            for (int i = 0; i < entries.size() && errors.size() < MAX_REPORTED_ERRORS; i++) {
+                BatchAddResult.Entry entry = entries.get(i);
+                if (entry.getStatus() != BatchAddResult.Status.ACCEPTED) {
+                    // Entries are in file order, so these are the first rejected rows
+                    errors.add(new ImportResult.LineError(taskLines[i],
+                        entry.getStatus() + " (" + entry.getConflictingDescription() + ")"));
+                }
+            }
+            errorCount = batchResult.getRejectedCount();
+        }
+
+        ImportResult result = new ImportResult(lineOffset, tasks.size(), errorCount, errors, batchResult,
+            System.nanoTime() - started);
+        logger.log(batchResult.isApplied() ? Level.INFO : Level.WARNING, "{0}", result);
+        return result;
+    }
+
+    // Cut the file into chunks that each end just after a newline (or at end of file)
+    private static List<long[]> split(FileChannel channel) throws IOException {
+        long size = channel.size();
+        int workers = Runtime.getRuntime().availableProcessors() * 4;
+        long target = Math.min(MAX_CHUNK_BYTES, Math.max(MIN_CHUNK_BYTES, size / workers + 1));
+        List<long[]> bounds = new ArrayList<>();
+        long start = 0;
+        while (start < size) {
+            long end = Math.min(size, start + target);
+            if (end < size) {
+                end = nextLineStart(channel, end, size);
+            }
+            bounds.add(new long[] {start, end});
+            start = end;
+        }
+        return bounds;
+    }
+
+    private static long nextLineStart(FileChannel channel, long from, long size) throws IOException {
+        long windowStart = from;
+        while (windowStart < size) {
+            long windowLength = Math.min(64 * 1024, size - windowStart);
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowLength);
+            for (int i = 0; i < windowLength; i++) {
+                if (window.get(i) == '\n') {
+                    return windowStart + i + 1;
+                }
+            }
+            windowStart += windowLength;
+        }
+        return size;
+    }
+
+    private static ChunkResult parseChunk(FileChannel channel, long start, long end, Format format) {
+        ChunkResult result = new ChunkResult();
+        try {
+            MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+            LineParser parser = format == Format.CSV ? new CsvParser(start == 0) : new NdjsonParser();
+            byte[] line = new byte[256];
+            int limit = data.limit();
+            int position = 0;
+            while (position < limit) {
+                int length = 0;
+                while (position < limit) {
+                    byte b = data.get(position++);
+                    if (b == '\n') {
+                        break;
+                    }
+                    if (length == line.length) {
+                        line = Arrays.copyOf(line, line.length * 2);
+                    }
+                    line[length++] = b;
+                }
+                if (length > 0 && line[length - 1] == '\r') {
+                    length--;
+                }
+                result.lines++;
+                parser.parse(line, length, result);
+            }
+        } catch (IOException e) {
+            result.error("Could not read bytes " + start + "-" + end + ": " + e.getMessage());
+        }
+        return result;
+    }
+
+    // Tasks, line numbers and errors from one chunk; line numbers are 1-based within the chunk
+    private static class ChunkResult {
+        final List<Task> tasks = new ArrayList<>();
+        long[] taskLines = new long[64];
+        final List<ImportResult.LineError> errors = new ArrayList<>();
+        long errorCount;
+        long lines;
+
+        void add(Task task) {
+            if (tasks.size() == taskLines.length) {
+                taskLines = Arrays.copyOf(taskLines, taskLines.length * 2);
+            }
+            taskLines[tasks.size()] = lines;
+            tasks.add(task);
+        }
+
+        void error(String message) {
+            errorCount++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new ImportResult.LineError(lines, message));
+            }
+        }
+    }
+
+    private interface LineParser {
+        void parse(byte[] line, int length, ChunkResult result);
+    }
+
+    private static final class CsvParser implements LineParser {
+        private boolean headerPending;
+        // Start and end offsets of up to five fields, plus the unquoted description
+        private final int[] fieldStart = new int[5];
+        private final int[] fieldEnd = new int[5];
+
+        CsvParser(boolean firstChunk) {
+            this.headerPending = firstChunk;
+        }
+
+        @Override
+        public void parse(byte[] line, int length, ChunkResult result) {
+            if (isBlank(line, length)) {
+                return;
+            }
+            if (headerPending) {
+                headerPending = false;
+                if (startsWithIgnoreCase(line, length, "description,")) {
+                    return;
+                }
+            }
+            int fields = 0;
+            int position = 0;
+            String description = null;
+            while (position <= length) {
+                if (fields == 5) {
+                    result.error("Too many fields");
+                    return;
+                }
+                if (position < length && line[position] == '"') {
+                    // Quoted field: decode doubled quotes
+                    StringBuilder value = new StringBuilder();
+                    int at = position + 1;
+                    int runStart = at;
+                    boolean closed = false;
+                    while (at < length) {
+                        if (line[at] == '"') {
+                            value.append(new String(line, runStart, at - runStart, StandardCharsets.UTF_8));
+                            if (at + 1 < length && line[at + 1] == '"') {
+                                value.append('"');
+                                at += 2;
+                                runStart = at;
+                                continue;
+                            }
+                            closed = true;
+                            at++;
+                            break;
+                        }
+                        at++;
+                    }
+                    if (!closed || (at < length && line[at] != ',')) {
+                        result.error("Malformed quoted field");
+                        return;
+                    }
+                    if (fields == 0) {
+                        description = value.toString();
+                    }
+                    fieldStart[fields] = -1;
+                    fieldEnd[fields] = -1;
+                    position = at;
+                } else {
+                    int at = position;
+                    while (at < length && line[at] != ',') {
+                        at++;
+                    }
+                    fieldStart[fields] = position;
+                    fieldEnd[fields] = at;
+                    position = at;
+                }
+                fields++;
+                position++;
+            }
+            if (fields < 4) {
+                result.error("Expected description,start,end,priority");
+                return;
+            }
+            if (description == null) {
+                description = new String(line, fieldStart[0], fieldEnd[0] - fieldStart[0], StandardCharsets.UTF_8).trim();
+            }
+            boolean completed = false;
+            if (fields == 5) {
+                String flag = fieldStart[4] < 0 ? "" : new String(line, fieldStart[4], fieldEnd[4] - fieldStart[4], StandardCharsets.US_ASCII).trim();
+                if (flag.equalsIgnoreCase("true")) {
+                    completed = true;
+                } else if (!flag.isEmpty() && !flag.equalsIgnoreCase("false")) {
+                    result.error("Invalid completed flag: " + flag);
+                    return;
+                }
+            }
+            addTask(result, description, line, fieldStart[1], fieldEnd[1], fieldStart[2], fieldEnd[2],
+                fieldStart[3], fieldEnd[3], completed);
+        }
+    }
+
+    private static final class NdjsonParser implements LineParser {
+        private final Map<String, String> fields = new HashMap<>();
+
+        @Override
+        public void parse(byte[] line, int length, ChunkResult result) {
+            if (isBlank(line, length)) {
+                return;
+            }
+            fields.clear();
+            if (!FlatJson.parse(line, 0, length, fields)) {
+                result.error("Malformed JSON object");
+                return;
+            }
+            String description = fields.get("description");
+            String start = fields.get("start");
+            String end = fields.get("end");
+            String priority = fields.get("priority");
+            if (description == null || start == null || end == null || priority == null) {
+                result.error("Expected description, start, end and priority");
+                return;
+            }
+            byte[] startBytes = start.getBytes(StandardCharsets.US_ASCII);
+            byte[] endBytes = end.getBytes(StandardCharsets.US_ASCII);
+            byte[] priorityBytes = priority.getBytes(StandardCharsets.US_ASCII);
+            int startSecond = TaskFactory.parseTimeSeconds(startBytes, 0, startBytes.length);
+            int endSecond = TaskFactory.parseTimeSeconds(endBytes, 0, endBytes.length);
+            Priority parsedPriority = TaskFactory.parsePriority(priorityBytes, 0, priorityBytes.length);
+            if (!validate(result, description, startSecond, endSecond, parsedPriority)) {
+                return;
+            }
+            String flag = fields.get("completed");
+            if (flag != null && !flag.equalsIgnoreCase("true") && !flag.equalsIgnoreCase("false")) {
+                result.error("Invalid completed flag: " + flag);
+                return;
+            }
+            Task task = new Task(description, LocalTime.ofSecondOfDay(startSecond), LocalTime.ofSecondOfDay(endSecond), parsedPriority);
+            task.setCompleted("true".equalsIgnoreCase(flag));
+            result.add(task);
+        }
+    }
+
+    private static void addTask(ChunkResult result, String description, byte[] line, int startFrom, int startTo,
+                                int endFrom, int endTo, int priorityFrom, int priorityTo, boolean completed) {
+        int startSecond = startFrom < 0 ? -1 : TaskFactory.parseTimeSeconds(line, trimStart(line, startFrom, startTo), trimEnd(line, startFrom, startTo));
+        int endSecond = endFrom < 0 ? -1 : TaskFactory.parseTimeSeconds(line, trimStart(line, endFrom, endTo), trimEnd(line, endFrom, endTo));
+        Priority priority = priorityFrom < 0 ? null : TaskFactory.parsePriority(line, trimStart(line, priorityFrom, priorityTo), trimEnd(line, priorityFrom, priorityTo));
+        if (!validate(result, description, startSecond, endSecond, priority)) {
+            return;
+        }
+        Task task = new Task(description, LocalTime.ofSecondOfDay(startSecond), LocalTime.ofSecondOfDay(endSecond), priority);
+        task.setCompleted(completed);
+        result.add(task);
+    }
+
+    private static boolean validate(ChunkResult result, String description, int startSecond, int endSecond, Priority priority) {
+        if (description.isEmpty()) {
+            result.error("Missing description");
+        } else if (startSecond < 0 || endSecond < 0) {
+            result.error("Invalid time format. Use HH:mm.");
+        } else if (priority == null) {
+            result.error("Invalid priority level. Use LOW, MEDIUM, or HIGH.");
+        } else {
+            return true;
+        }
+        return false;
+    }
+
+    private static int trimStart(byte[] line, int from, int to) {
+        while (from < to && line[from] == ' ') {
+            from++;
+        }
+        return from;
+    }
+
+    private static int trimEnd(byte[] line, int from, int to) {
+        while (to > from && line[to - 1] == ' ') {
+            to--;
+        }
+        return to;
+    }
+
+    private static boolean isBlank(byte[] line, int length) {
+        for (int i = 0; i < length; i++) {
+            if (line[i] != ' ' && line[i] != '\t') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean startsWithIgnoreCase(byte[] line, int length, String prefix) {
+        if (length < prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (Character.toLowerCase(line[i]) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,155 @@
+import java.time.LocalTime;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.NavigableSet;
+import java.util.Set;
+
+// Immutable description of a schedule query: an optional time window plus priority and completion filters.
+// Each with* method returns a new query, e.g.
+//   TaskQuery.all().between(LocalTime.of(9, 0), LocalTime.of(13, 0)).withPriorities(Priority.HIGH).open()
+// The filters are a bitmap with one bit per (priority, completed) pair, so matching a task is a shift and a
+// mask whatever the combination; the window is answered by a range scan (see ScheduleManager.query).
+class TaskQuery {
+    private static final Priority[] PRIORITIES = Priority.values();
+    private static final int ALL_STATES = (1 << (2 * PRIORITIES.length)) - 1;
+    // Bits for the open and completed states of every priority
+    private static final int OPEN_STATES = 0x5555_5555 & ALL_STATES;
+    private static final int COMPLETED_STATES = 0xAAAA_AAAA & ALL_STATES;
+
+    private static final TaskQuery ALL = new TaskQuery(null, null, ALL_STATES);
+
+    // Tasks overlapping [from, to); null means the start or end of the day
+    private final LocalTime from;
+    private final LocalTime to;
+    private final int states;
+
+    private TaskQuery(LocalTime from, LocalTime to, int states) {
+        this.from = from;
+        this.to = to;
+        this.states = states;
+    }
+
+    public static TaskQuery all() {
+        return ALL;
+    }
+
+    // Tasks overlapping [from, to); a task running across from or to is included
+    public TaskQuery between(LocalTime from, LocalTime to) {
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new IllegalArgumentException("Query window must end after it starts");
+        }
+        return new TaskQuery(from, to, states);
+    }
+
+    public TaskQuery withPriorities(Priority... priorities) {
+        int mask = 0;
+        for (Priority priority : priorities) {
+            mask |= 3 << (2 * priority.ordinal());
+        }
+        return new TaskQuery(from, to, states & mask);
+    }
+
+    // Only tasks not yet completed
+    public TaskQuery open() {
+        return new TaskQuery(from, to, states & OPEN_STATES);
+    }
+
+    // Only completed tasks
+    public TaskQuery completed() {
+        return new TaskQuery(from, to, states & COMPLETED_STATES);
+    }
+
+    public LocalTime getFrom() { return from; }
+    public LocalTime getTo() { return to; }
+
+    // Priorities with at least one selected state; the query can be answered from their buckets alone
+    public Set<Priority> getPriorities() {
+        Set<Priority> priorities = EnumSet.noneOf(Priority.class);
+        for (Priority priority : PRIORITIES) {
+            if ((states & (3 << (2 * priority.ordinal()))) != 0) {
+                priorities.add(priority);
+            }
+        }
+        return priorities;
+    }
+
+    public boolean matchesState(Task task) {
+        return (states >>> stateBit(task) & 1) != 0;
+    }
+
+    public boolean matches(Task task) {
+        return matchesState(task) && overlapsWindow(task);
+    }
+
+    // Tasks of a time-ordered, conflict-free set that may overlap the window, in time order: the subSet of
+    // tasks starting inside the window, led by at most one task starting before it that may run into it.
+    // Proper intervals in such a set are also ordered by end time, so the walk back stops at the first one.
+    Iterator<Task> candidates(NavigableSet<Task> index) {
+        NavigableSet<Task> range = index;
+        Task leading = null;
+        if (from != null) {
+            Iterator<Task> before = index.headSet(IntervalIndex.probe(from), false).descendingIterator();
+            while (before.hasNext()) {
+                Task candidate = before.next();
+                if (candidate.getStartTime().isBefore(candidate.getEndTime())) {
+                    leading = candidate;
+                    break;
+                }
+            }
+            range = range.tailSet(IntervalIndex.probe(from), true);
+        }
+        if (to != null) {
+            range = range.headSet(IntervalIndex.probe(to), false);
+        }
+        Iterator<Task> inside = range.iterator();
+        if (leading == null) {
+            return inside;
+        }
+        Task first = leading;
+        return new Iterator<Task>() {
+            private boolean leadingTaken;
+
+            @Override
+            public boolean hasNext() {
+                return !leadingTaken || inside.hasNext();
+            }
+
+            @Override
+            public Task next() {
+                if (!leadingTaken) {
+                    leadingTaken = true;
+                    return first;
+                }
+                return inside.next();
+            }
+        };
+    }
+
+    private boolean overlapsWindow(Task task) {
+        LocalTime start = task.getStartTime();
+        LocalTime end = task.getEndTime();
+        return (to == null || start.isBefore(to)) && (from == null || end.isAfter(from) || !start.isBefore(from));
+    }
+
+    private static int stateBit(Task task) {
+        return 2 * task.getPriority().ordinal() + (task.isCompleted() ? 1 : 0);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder("tasks");
+        if (from != null || to != null) {
+            text.append(" in [").append(from == null ? LocalTime.MIN : from).append(", ")
+                .append(to == null ? "24:00" : to).append(')');
+        }
+        if (states != ALL_STATES) {
+            text.append(" with ").append(getPriorities());
+            if ((states & COMPLETED_STATES) == 0) {
+                text.append(" open");
+            } else if ((states & OPEN_STATES) == 0) {
+                text.append(" completed");
+            }
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,194 @@
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalTime;
+import java.util.Iterator;
+
+// Streams task listings to a Writer as plain text, CSV or JSON. Rows are encoded by hand into a reused
+// char buffer, so a listing costs no formatter or String.format work per task; wrap the target in a
+// BufferedWriter to batch the underlying writes.
+class TaskReportRenderer {
+    enum Format {
+        // Same text as Task.toString, one task per line
+        PLAIN,
+        // Header row, then description,start,end,priority,completed
+        CSV,
+        // One JSON array of task objects
+        JSON
+    }
+
+    private final Writer out;
+    private final Format format;
+    private char[] row = new char[128];
+    private int length;
+    private long rows;
+
+    public TaskReportRenderer(Writer out, Format format) {
+        this.out = out;
+        this.format = format;
+    }
+
+    // Write a complete listing and flush it
+    public void render(Iterable<Task> tasks) throws IOException {
+        render(tasks.iterator());
+    }
+
+    public void render(Iterator<Task> tasks) throws IOException {
+        begin();
+        while (tasks.hasNext()) {
+            write(tasks.next());
+        }
+        end();
+        out.flush();
+    }
+
+    // Start a listing; write tasks, then call end
+    public void begin() throws IOException {
+        rows = 0;
+        if (format == Format.CSV) {
+            out.write("description,start,end,priority,completed\n");
+        } else if (format == Format.JSON) {
+            out.write('[');
+        }
+    }
+
+    public void write(Task task) throws IOException {
+        length = 0;
+        switch (format) {
+            case PLAIN:
+                appendTime(task.getStartTime(), false);
+                append(" - ");
+                appendTime(task.getEndTime(), false);
+                append(": ");
+                append(task.getDescription());
+                append(" [");
+                append(task.getPriority().name());
+                append("] ");
+                if (task.isCompleted()) {
+                    append("(Completed)");
+                }
+                break;
+            case CSV:
+                appendCsv(task.getDescription());
+                append(',');
+                appendTime(task.getStartTime(), true);
+                append(',');
+                appendTime(task.getEndTime(), true);
+                append(',');
+                append(task.getPriority().name());
+                append(task.isCompleted() ? ",true" : ",false");
+                break;
+            case JSON:
+                if (rows > 0) {
+                    append(',');
+                }
+                append("{\"description\":");
+                appendJsonString(task.getDescription());
+                append(",\"start\":\"");
+                appendTime(task.getStartTime(), true);
+                append("\",\"end\":\"");
+                appendTime(task.getEndTime(), true);
+                append("\",\"priority\":\"");
+                append(task.getPriority().name());
+                append(task.isCompleted() ? "\",\"completed\":true}" : "\",\"completed\":false}");
+                break;
+        }
+        if (format != Format.JSON) {
+            append('\n');
+        }
+        out.write(row, 0, length);
+        rows++;
+    }
+
+    public void end() throws IOException {
+        if (format == Format.JSON) {
+            out.write("]\n");
+        }
+    }
+
+    // Rows written since begin
+    public long getRows() {
+        return rows;
+    }
+
+    // HH:mm, plus :ss when withSeconds is set and the time has seconds so exports round-trip
+    private void appendTime(LocalTime time, boolean withSeconds) {
+        ensure(8);
+        length = appendTwoDigits(time.getHour(), length);
+        row[length++] = ':';
+        length = appendTwoDigits(time.getMinute(), length);
+        if (withSeconds && time.getSecond() != 0) {
+            row[length++] = ':';
+            length = appendTwoDigits(time.getSecond(), length);
+        }
+    }
+
+    private int appendTwoDigits(int value, int at) {
+        row[at] = (char) ('0' + value / 10);
+        row[at + 1] = (char) ('0' + value % 10);
+        return at + 2;
+    }
+
+    private void appendCsv(String value) {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            append(value);
+            return;
+        }
+        append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                append('"');
+            }
+            append(c);
+        }
+        append('"');
+    }
+
+    private void appendJsonString(String value) {
+        append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"': append("\\\""); break;
+                case '\\': append("\\\\"); break;
+                case '\n': append("\\n"); break;
+                case '\r': append("\\r"); break;
+                case '\t': append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        append("\\u00");
+                        append(Character.forDigit(c >> 4, 16));
+                        append(Character.forDigit(c & 15, 16));
+                    } else {
+                        append(c);
+                    }
+            }
+        }
+        append('"');
+    }
+
+    private void append(String value) {
+        int count = value.length();
+        ensure(count);
+        value.getChars(0, count, row, length);
+        length += count;
+    }
+
+    private void append(char c) {
+        ensure(1);
+        row[length++] = c;
+    }
+
+    private void ensure(int extra) {
+        if (length + extra > row.length) {
+            char[] grown = new char[Math.max(row.length * 2, length + extra)];
+            System.arraycopy(row, 0, grown, 0, length);
+            row = grown;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Thread creation for background work: virtual threads where the runtime has them, daemon threads otherwise
+class Threads {
+    private Threads() {
+    }
+
+    // Factory naming threads prefix-0, prefix-1, ...
+    public static ThreadFactory factory(String prefix) {
+        ThreadFactory virtual = virtualThreadFactory(prefix);
+        if (virtual != null) {
+            return virtual;
+        }
+        AtomicLong counter = new AtomicLong();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    // Executor for blocking request work: a new virtual thread per task where available, otherwise a fixed
+    // pool of platformThreads daemon threads so a burst of requests cannot exhaust native threads
+    public static ExecutorService perTaskExecutor(String prefix, int platformThreads) {
+        ThreadFactory virtual = virtualThreadFactory(prefix);
+        if (virtual != null) {
+            return new ThreadPoolExecutor(0, Integer.MAX_VALUE, 0, TimeUnit.SECONDS, new SynchronousQueue<>(), virtual);
+        }
+        return Executors.newFixedThreadPool(platformThreads, factory(prefix));
+    }
+
+    // Thread.ofVirtual() is looked up reflectively so the code still compiles and runs on Java 17
+    private static ThreadFactory virtualThreadFactory(String prefix) {
+        try {
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, prefix + "-", 0L);
+            return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+        } catch (ClassNotFoundException | NoSuchMethodException | IllegalAccessException e) {
+            return null;
+        } catch (InvocationTargetException e) {
+            // Present but disabled, e.g. a preview feature without --enable-preview
+            return null;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+import java.time.Duration;
+import java.time.LocalTime;
+
+// A free stretch of the day, as reported by ScheduleManager.findFreeSlots
+class TimeSlot {
+    private final LocalTime startTime;
+    private final LocalTime endTime;
+
+    public TimeSlot(LocalTime startTime, LocalTime endTime) {
+        this.startTime = startTime;
+        this.endTime = endTime;
+    }
+
+    public LocalTime getStartTime() { return startTime; }
+    public LocalTime getEndTime() { return endTime; }
+
+    public Duration getDuration() {
+        return Duration.between(startTime, endTime);
+    }
+
+    @Override
+    public String toString() {
+        return startTime + " - " + endTime;
+    }
+}
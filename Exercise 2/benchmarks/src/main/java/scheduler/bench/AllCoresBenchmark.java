@@ -0,0 +1,8 @@
+package scheduler.bench;
+
+import org.openjdk.jmh.annotations.Threads;
+
+// One thread per available CPU
+@Threads(Threads.MAX)
+public class AllCoresBenchmark extends ScheduleManagerBenchmark {
+}
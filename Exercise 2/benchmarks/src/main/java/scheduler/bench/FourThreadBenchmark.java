@@ -0,0 +1,7 @@
+package scheduler.bench;
+
+import org.openjdk.jmh.annotations.Threads;
+
+@Threads(4)
+public class FourThreadBenchmark extends ScheduleManagerBenchmark {
+}
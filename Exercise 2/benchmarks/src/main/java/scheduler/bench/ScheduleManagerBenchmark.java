@@ -0,0 +1,139 @@
+package scheduler.bench;
+
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+// ScheduleManager operations against one shared schedule of 'size' tasks. The day is cut into 2 * size + 2 *
+// MAX_THREADS equal slots: even slots below 2 * size hold the schedule, and each benchmark thread owns the
+// free odd slot after its own task, so every thread can insert and edit without touching another's tasks.
+// Subclasses fix the thread count (1, 4 and one per CPU).
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public abstract class ScheduleManagerBenchmark {
+    static final int MAX_THREADS = 256;
+    private static final String[] PRIORITIES = {"LOW", "MEDIUM", "HIGH"};
+    private static final long NANOS_PER_DAY = 86_400_000_000_000L;
+
+    @State(Scope.Benchmark)
+    public static class Schedule {
+        // Must exceed MAX_THREADS
+        @Param({"1000", "10000", "100000"})
+        public int size;
+
+        Object manager;
+        long slotNanos;
+        Object[] priorities;
+        final AtomicInteger nextThread = new AtomicInteger();
+
+        @Setup(Level.Trial)
+        public void fill() throws Throwable {
+            manager = Scheduler.newManager();
+            slotNanos = NANOS_PER_DAY / (2L * size + 2L * MAX_THREADS);
+            priorities = new Object[PRIORITIES.length];
+            for (int i = 0; i < PRIORITIES.length; i++) {
+                priorities[i] = Scheduler.priority(PRIORITIES[i]);
+            }
+            for (int i = 0; i < size; i++) {
+                Scheduler.addTask(manager, task("task-" + i, 2 * i));
+            }
+        }
+
+        Object task(String description, int slot) throws Throwable {
+            LocalTime start = LocalTime.ofNanoOfDay(slot * slotNanos);
+            return Scheduler.task(description, start, start.plusNanos(slotNanos), priorities[slot % priorities.length]);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Worker {
+        int thread;
+        // This thread's task in the free odd slot, and the tasks edits swap between
+        Object freeSlotTask;
+        String freeSlotDescription;
+        Object conflictingTask;
+        Object[] editedTasks;
+        String[] editedDescriptions;
+        int editState;
+        String[] lookups;
+        int nextLookup;
+
+        @Setup(Level.Trial)
+        public void claim(Schedule schedule) throws Throwable {
+            thread = schedule.nextThread.getAndIncrement();
+            if (thread >= MAX_THREADS) {
+                throw new IllegalStateException("At most " + MAX_THREADS + " benchmark threads");
+            }
+            int ownSlot = 2 * thread;
+            freeSlotDescription = "free-" + thread;
+            freeSlotTask = schedule.task(freeSlotDescription, ownSlot + 1);
+            conflictingTask = schedule.task("conflict-" + thread, ownSlot);
+            editedDescriptions = new String[] {"task-" + thread, "edited-" + thread};
+            editedTasks = new Object[] {schedule.task(editedDescriptions[0], ownSlot), schedule.task(editedDescriptions[1], ownSlot)};
+            // Look up tasks no thread edits
+            lookups = new String[1024];
+            Random random = new Random(thread);
+            for (int i = 0; i < lookups.length; i++) {
+                lookups[i] = "task-" + (MAX_THREADS + random.nextInt(schedule.size - MAX_THREADS));
+            }
+        }
+    }
+
+    // Insert into a free slot, then remove it again so the schedule size stays fixed
+    @Benchmark
+    public void addTaskConflictFree(Schedule schedule, Worker worker) throws Throwable {
+        Scheduler.addTask(schedule.manager, worker.freeSlotTask);
+        Scheduler.removeTask(schedule.manager, worker.freeSlotDescription);
+    }
+
+    // Insert that overlaps an existing task and is rejected
+    @Benchmark
+    public boolean addTaskConflicting(Schedule schedule, Worker worker) throws Throwable {
+        return Scheduler.tryAddTask(schedule.manager, worker.conflictingTask);
+    }
+
+    @Benchmark
+    public Object getTask(Schedule schedule, Worker worker) throws Throwable {
+        return Scheduler.getTask(schedule.manager, worker.lookups[worker.nextLookup++ & (worker.lookups.length - 1)]);
+    }
+
+    // Rename this thread's task back and forth; each call is one edit
+    @Benchmark
+    public void editTask(Schedule schedule, Worker worker) throws Throwable {
+        int from = worker.editState;
+        int to = 1 - from;
+        Scheduler.editTask(schedule.manager, worker.editedDescriptions[from], worker.editedTasks[to]);
+        worker.editState = to;
+    }
+
+    @Benchmark
+    public List<?> viewTasksByPriority(Schedule schedule, Worker worker) throws Throwable {
+        return Scheduler.viewTasksByPriority(schedule.manager, schedule.priorities[worker.nextLookup++ % schedule.priorities.length]);
+    }
+
+    // Take the time-ordered view and read every task, as a listing would
+    @Benchmark
+    public void viewTasks(Schedule schedule, Blackhole blackhole) throws Throwable {
+        for (Object task : Scheduler.viewTasks(schedule.manager)) {
+            blackhole.consume(task);
+        }
+    }
+}
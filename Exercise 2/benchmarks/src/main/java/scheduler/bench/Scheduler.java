@@ -0,0 +1,108 @@
+package scheduler.bench;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Bridge to the organizer classes, which live in the unnamed package where JMH cannot place benchmarks.
+// The handles are static finals, so the JIT inlines them and calls cost the same as direct ones.
+final class Scheduler {
+    private static final Class<?> CONFLICT;
+    private static final MethodHandle NEW_MANAGER;
+    private static final MethodHandle NEW_TASK;
+    private static final MethodHandle PRIORITY_OF;
+    private static final MethodHandle ADD_TASK;
+    private static final MethodHandle REMOVE_TASK;
+    private static final MethodHandle GET_TASK;
+    private static final MethodHandle EDIT_TASK;
+    private static final MethodHandle VIEW_TASKS;
+    private static final MethodHandle VIEW_BY_PRIORITY;
+
+    static {
+        // Per-operation INFO and WARNING records would dominate every measurement
+        Logger.getLogger("").setLevel(Level.OFF);
+        try {
+            Class<?> manager = Class.forName("ScheduleManager");
+            Class<?> task = Class.forName("Task");
+            Class<?> priority = Class.forName("Priority");
+            CONFLICT = Class.forName("TaskConflictException");
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(manager, MethodHandles.lookup());
+            NEW_MANAGER = lookup.findConstructor(manager, MethodType.methodType(void.class))
+                    .asType(MethodType.methodType(Object.class));
+            NEW_TASK = lookup.findConstructor(task, MethodType.methodType(void.class, String.class, LocalTime.class, LocalTime.class, priority))
+                    .asType(MethodType.methodType(Object.class, String.class, LocalTime.class, LocalTime.class, Object.class));
+            PRIORITY_OF = lookup.findStatic(priority, "valueOf", MethodType.methodType(priority, String.class))
+                    .asType(MethodType.methodType(Object.class, String.class));
+            ADD_TASK = lookup.findVirtual(manager, "addTask", MethodType.methodType(void.class, task))
+                    .asType(MethodType.methodType(void.class, Object.class, Object.class));
+            REMOVE_TASK = lookup.findVirtual(manager, "removeTask", MethodType.methodType(void.class, String.class))
+                    .asType(MethodType.methodType(void.class, Object.class, String.class));
+            GET_TASK = lookup.findVirtual(manager, "getTask", MethodType.methodType(task, String.class))
+                    .asType(MethodType.methodType(Object.class, Object.class, String.class));
+            EDIT_TASK = lookup.findVirtual(manager, "editTask", MethodType.methodType(void.class, String.class, task))
+                    .asType(MethodType.methodType(void.class, Object.class, String.class, Object.class));
+            VIEW_TASKS = lookup.findVirtual(manager, "viewTasks", MethodType.methodType(List.class))
+                    .asType(MethodType.methodType(List.class, Object.class));
+            VIEW_BY_PRIORITY = lookup.findVirtual(manager, "viewTasksByPriority", MethodType.methodType(List.class, priority))
+                    .asType(MethodType.methodType(List.class, Object.class, Object.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private Scheduler() {
+    }
+
+    static Object newManager() throws Throwable {
+        return (Object) NEW_MANAGER.invokeExact();
+    }
+
+    static Object priority(String name) throws Throwable {
+        return (Object) PRIORITY_OF.invokeExact(name);
+    }
+
+    static Object task(String description, LocalTime start, LocalTime end, Object priority) throws Throwable {
+        return (Object) NEW_TASK.invokeExact(description, start, end, priority);
+    }
+
+    static void addTask(Object manager, Object task) throws Throwable {
+        ADD_TASK.invokeExact(manager, task);
+    }
+
+    // Add a task, returning false instead of throwing if the schedule rejects it as a conflict
+    static boolean tryAddTask(Object manager, Object task) throws Throwable {
+        try {
+            ADD_TASK.invokeExact(manager, task);
+            return true;
+        } catch (Exception e) {
+            if (CONFLICT.isInstance(e)) {
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    static void removeTask(Object manager, String description) throws Throwable {
+        REMOVE_TASK.invokeExact(manager, description);
+    }
+
+    static Object getTask(Object manager, String description) throws Throwable {
+        return (Object) GET_TASK.invokeExact(manager, description);
+    }
+
+    static void editTask(Object manager, String description, Object updatedTask) throws Throwable {
+        EDIT_TASK.invokeExact(manager, description, updatedTask);
+    }
+
+    static List<?> viewTasks(Object manager) throws Throwable {
+        return (List<?>) VIEW_TASKS.invokeExact(manager);
+    }
+
+    static List<?> viewTasksByPriority(Object manager, Object priority) throws Throwable {
+        return (List<?>) VIEW_BY_PRIORITY.invokeExact(manager, priority);
+    }
+}
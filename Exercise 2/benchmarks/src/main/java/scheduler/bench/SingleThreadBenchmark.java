@@ -0,0 +1,7 @@
+package scheduler.bench;
+
+import org.openjdk.jmh.annotations.Threads;
+
+@Threads(1)
+public class SingleThreadBenchmark extends ScheduleManagerBenchmark {
+}
@@ -0,0 +1,117 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+// Checks the batch add's sort-and-sweep against adding the batch one task at a time, in start order, with
+// linear conflict checks
+class AddTasksTest {
+    // Held so the level set below is not lost when the logger is garbage collected
+    private static final Logger scheduleLogger = Logger.getLogger(ScheduleManager.class.getName());
+
+    @BeforeAll
+    static void quietLogging() {
+        scheduleLogger.setLevel(Level.OFF);
+    }
+
+    @Test
+    void randomBatchesMatchSequentialReference() throws Exception {
+        Random random = new Random(9);
+        for (int round = 0; round < 300; round++) {
+            ScheduleManager manager = new ScheduleManager();
+            List<Task> existing = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                Task task = randomTask(random, "Existing " + i, 120);
+                if (existing.stream().noneMatch(task::conflicts)) {
+                    manager.addTask(task);
+                    existing.add(task);
+                }
+            }
+            // Small batches are often conflict-free, larger ones rarely; descriptions sometimes repeat
+            int size = 1 + random.nextInt(random.nextBoolean() ? 4 : 30);
+            List<Task> batch = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                String description = random.nextInt(8) == 0 ? "Existing " + random.nextInt(20) : "Batch " + random.nextInt(size + 2);
+                batch.add(randomTask(random, description, 20));
+            }
+
+            List<String> expected = expectedEntries(existing, batch);
+            boolean applies = expected.stream().allMatch(entry -> entry.endsWith(": ACCEPTED"));
+            BatchAddResult result = manager.addTasks(batch);
+            assertEquals(expected, result.getEntries().stream().map(Object::toString).collect(Collectors.toList()), "round " + round);
+            assertEquals(applies, result.isApplied(), "applied in round " + round);
+
+            List<Task> schedule = new ArrayList<>(existing);
+            if (applies) {
+                schedule.addAll(batch);
+            }
+            schedule.sort(IntervalIndex.BY_START_TIME);
+            assertEquals(schedule, new ArrayList<>(manager.viewTasks()), "schedule after round " + round);
+        }
+    }
+
+    @Test
+    void emptyBatchChangesNothing() throws Exception {
+        ScheduleManager manager = new ScheduleManager();
+        ReplicationLog log = new ReplicationLog(16);
+        manager.attachReplicationLog(log);
+        List<String> events = new ArrayList<>();
+        manager.addSynchronousObserver(events::add);
+        long version = manager.snapshot().getVersion();
+
+        assertTrue(manager.addTasks(List.of()).isApplied());
+        assertTrue(manager.commit(manager.plan(List.of())).isApplied());
+        assertEquals(version, manager.snapshot().getVersion(), "version");
+        assertEquals(0, log.head(), "replication log head");
+        assertEquals(List.of(), events, "events");
+    }
+
+    // Entries in submission order, found by staging the batch sorted by start time
+    private static List<String> expectedEntries(List<Task> existing, List<Task> batch) {
+        List<Task> sorted = new ArrayList<>(batch);
+        sorted.sort(IntervalIndex.BY_START_TIME);
+        Set<String> descriptions = existing.stream().map(Task::getDescription).collect(Collectors.toCollection(HashSet::new));
+        List<Task> staged = new ArrayList<>();
+        Map<Task, String> entries = new IdentityHashMap<>();
+        for (Task task : sorted) {
+            Task existingConflict = earliestConflict(existing, task);
+            Task batchConflict = earliestConflict(staged, task);
+            String entry;
+            if (descriptions.contains(task.getDescription())) {
+                entry = "DUPLICATE_DESCRIPTION (" + task.getDescription() + ")";
+            } else if (existingConflict != null) {
+                entry = "CONFLICTS_WITH_EXISTING (" + existingConflict.getDescription() + ")";
+            } else if (batchConflict != null) {
+                entry = "CONFLICTS_IN_BATCH (" + batchConflict.getDescription() + ")";
+            } else {
+                entry = "ACCEPTED";
+                staged.add(task);
+                descriptions.add(task.getDescription());
+            }
+            entries.put(task, task.getDescription() + ": " + entry);
+        }
+        return batch.stream().map(entries::get).collect(Collectors.toList());
+    }
+
+    private static Task earliestConflict(List<Task> tasks, Task task) {
+        return tasks.stream().filter(task::conflicts).min(IntervalIndex.BY_START_TIME).orElse(null);
+    }
+
+    private static Task randomTask(Random random, String description, int maxMinutes) {
+        LocalTime start = LocalTime.ofSecondOfDay(random.nextInt(22 * 60) * 60L);
+        return new Task(description, start, start.plusMinutes(1 + random.nextInt(maxMinutes)), Priority.LOW);
+    }
+}
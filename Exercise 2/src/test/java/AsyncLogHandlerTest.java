@@ -0,0 +1,56 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+import org.junit.jupiter.api.Test;
+
+// Checks that a full buffer drops and counts records instead of writing them ahead of the queued ones
+class AsyncLogHandlerTest {
+    @Test
+    void fullBufferDropsInsteadOfReordering() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch writing = new CountDownLatch(1);
+        List<String> written = new CopyOnWriteArrayList<>();
+        Handler slow = new Handler() {
+            @Override
+            public void publish(LogRecord record) {
+                writing.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                written.add(record.getParameters() == null ? record.getMessage()
+                    : record.getMessage().replace("{0}", String.valueOf(record.getParameters()[0])));
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        AsyncLogHandler handler = new AsyncLogHandler(slow, 2);
+        handler.publish(new LogRecord(Level.INFO, "first"));
+        // The writer holds "first" while the buffer fills
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+        for (int i = 2; i <= 6; i++) {
+            handler.publish(new LogRecord(Level.INFO, "record " + i));
+        }
+        assertEquals(3, handler.getDroppedRecords());
+        assertEquals(List.of(), written, "nothing may be written inline while the writer is busy");
+
+        release.countDown();
+        handler.close();
+        assertEquals(List.of("first", "record 2", "record 3", "Log buffer full: dropped 3 records"), written);
+    }
+}
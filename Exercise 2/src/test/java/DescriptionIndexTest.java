@@ -0,0 +1,157 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+// Checks prefix, substring and word searches against a linear scan of the live tasks, through random adds
+// and removals that make the index rebuild itself several times
+class DescriptionIndexTest {
+    // Mixed case, words inside other words, and repeats, so folding, trigram lists and word prefixes all matter
+    private static final String[] WORDS = {"EVA", "eva", "prep", "Prep", "preparation", "suit", "check", "O2",
+        "a", "ab", "abc", "abcd", "bab", "dock", "Docking", "undock"};
+    private static final String[] SEPARATORS = {" ", " ", " ", "-", ", ", "/"};
+
+    @Test
+    void searchesMatchALinearScan() {
+        Random random = new Random(51);
+        DescriptionIndex index = new DescriptionIndex();
+        List<Task> live = new ArrayList<>();
+        Set<String> descriptions = new HashSet<>();
+        for (int step = 0; step < 20_000; step++) {
+            // Mostly adds early on and mostly removals later, so dead ids pile up past the rebuild threshold
+            boolean add = live.isEmpty() || random.nextInt(100) < (step % 6000 < 3000 ? 70 : 30);
+            if (add) {
+                Task task = new Task(randomDescription(random), LocalTime.NOON, LocalTime.NOON, Priority.LOW);
+                if (descriptions.add(task.getDescription())) {
+                    index.add(task);
+                    live.add(task);
+                }
+            } else {
+                Task task = live.remove(random.nextInt(live.size()));
+                descriptions.remove(task.getDescription());
+                assertTrue(index.remove(task), "remove " + task.getDescription());
+                assertFalse(index.remove(task), "remove twice " + task.getDescription());
+            }
+            assertEquals(live.size(), index.size(), "size at step " + step);
+            if (step % 50 == 0) {
+                checkSearches(random, index, live, "step " + step);
+            }
+        }
+    }
+
+    private static void checkSearches(Random random, DescriptionIndex index, List<Task> live, String context) {
+        for (int probe = 0; probe < 5; probe++) {
+            String sample = live.isEmpty() ? "eva" : live.get(random.nextInt(live.size())).getDescription();
+            int limit = random.nextBoolean() ? Integer.MAX_VALUE : random.nextInt(6);
+
+            String prefix = randomCase(random, sample.substring(0, random.nextInt(sample.length() + 1)));
+            List<Task> prefixed = expected(live, task -> fold(task.getDescription()).startsWith(fold(prefix)));
+            // Prefix search is exact: the first matches alphabetically
+            assertEquals(describe(prefixed.subList(0, Math.min(limit, prefixed.size()))), describe(index.prefix(prefix, limit)),
+                "prefix '" + prefix + "' limit " + limit + " at " + context);
+
+            int from = random.nextInt(sample.length());
+            String text = randomCase(random, sample.substring(from, Math.min(sample.length(), from + 1 + random.nextInt(6))));
+            List<Task> containing = expected(live, task -> fold(task.getDescription()).contains(fold(text)));
+            checkSome(containing, index.substring(text, limit), limit, "substring '" + text + "' at " + context);
+
+            String query = randomQuery(random, sample);
+            List<Task> matching = expected(live, wordMatcher(query));
+            checkSome(matching, index.words(query, limit), limit, "words '" + query + "' at " + context);
+        }
+    }
+
+    // When more tasks match than the limit, which ones come back is unspecified, but they must be matches,
+    // distinct, alphabetical and as many as the limit allows
+    private static void checkSome(List<Task> expected, List<Task> found, int limit, String context) {
+        assertEquals(Math.min(limit, expected.size()), found.size(), "count for " + context);
+        Set<Task> matches = Collections.newSetFromMap(new IdentityHashMap<>());
+        matches.addAll(expected);
+        Set<Task> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int i = 0; i < found.size(); i++) {
+            assertTrue(matches.contains(found.get(i)), found.get(i).getDescription() + " should not match " + context);
+            assertTrue(seen.add(found.get(i)), "repeated " + found.get(i).getDescription() + " for " + context);
+            assertTrue(i == 0 || DescriptionIndex.BY_DESCRIPTION.compare(found.get(i - 1), found.get(i)) < 0, "order for " + context);
+        }
+    }
+
+    // Every complete word of the query is a word of the description; an unfinished last word (the query does
+    // not end in a separator) only has to begin one
+    private static Predicate<Task> wordMatcher(String query) {
+        List<String> terms = words(fold(query));
+        if (terms.isEmpty()) {
+            return task -> false;
+        }
+        boolean unfinished = Character.isLetterOrDigit(query.charAt(query.length() - 1));
+        String partial = unfinished ? terms.remove(terms.size() - 1) : null;
+        return task -> {
+            List<String> taskWords = words(fold(task.getDescription()));
+            return taskWords.containsAll(terms) && (partial == null || taskWords.stream().anyMatch(word -> word.startsWith(partial)));
+        };
+    }
+
+    private static List<String> words(String text) {
+        return Arrays.stream(text.split("[^\\p{L}\\p{Nd}]+")).filter(word -> !word.isEmpty()).collect(Collectors.toList());
+    }
+
+    private static List<Task> expected(List<Task> live, Predicate<Task> matches) {
+        return live.stream().filter(matches).sorted(DescriptionIndex.BY_DESCRIPTION).collect(Collectors.toList());
+    }
+
+    private static List<String> describe(List<Task> tasks) {
+        return tasks.stream().map(Task::getDescription).collect(Collectors.toList());
+    }
+
+    private static String fold(String text) {
+        return text.toLowerCase(Locale.ROOT);
+    }
+
+    private static String randomDescription(Random random) {
+        StringBuilder description = new StringBuilder(WORDS[random.nextInt(WORDS.length)]);
+        for (int words = random.nextInt(4); words > 0; words--) {
+            description.append(SEPARATORS[random.nextInt(SEPARATORS.length)]).append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        if (random.nextInt(4) == 0) {
+            description.append(' ').append(random.nextInt(50));
+        }
+        return description.toString();
+    }
+
+    // Some words of the sample, maybe with an unfinished one from the vocabulary, now and then a separator at the end
+    private static String randomQuery(Random random, String sample) {
+        List<String> sampleWords = words(sample);
+        StringBuilder query = new StringBuilder();
+        for (String word : sampleWords) {
+            if (random.nextInt(3) == 0) {
+                query.append(randomCase(random, word)).append(' ');
+            }
+        }
+        if (random.nextBoolean()) {
+            String word = random.nextBoolean() || sampleWords.isEmpty() ? WORDS[random.nextInt(WORDS.length)]
+                : sampleWords.get(random.nextInt(sampleWords.size()));
+            query.append(word, 0, 1 + random.nextInt(word.length()));
+        }
+        if (random.nextInt(5) == 0) {
+            query.append(random.nextBoolean() ? "," : " ");
+        }
+        return query.length() == 0 ? "a" : query.toString();
+    }
+
+    private static String randomCase(Random random, String text) {
+        return random.nextBoolean() ? text : random.nextBoolean() ? text.toUpperCase(Locale.ROOT) : fold(text);
+    }
+}
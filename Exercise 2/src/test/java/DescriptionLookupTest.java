@@ -0,0 +1,106 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+// Checks ScheduleManager's description map against a plain list of tasks searched linearly, through random
+// adds, renaming edits and removals
+class DescriptionLookupTest {
+    private static final int DESCRIPTIONS = 60;
+    // Held so the level set below is not lost when the logger is garbage collected
+    private static final Logger scheduleLogger = Logger.getLogger(ScheduleManager.class.getName());
+
+    @BeforeAll
+    static void quietLogging() {
+        scheduleLogger.setLevel(Level.OFF);
+    }
+
+    @Test
+    void randomWritesMatchLinearLookup() throws Exception {
+        Random random = new Random(3);
+        ScheduleManager manager = new ScheduleManager();
+        List<Task> reference = new ArrayList<>();
+        for (int step = 0; step < 5000; step++) {
+            String description = "Task " + random.nextInt(DESCRIPTIONS);
+            Task existing = find(reference, description);
+            switch (random.nextInt(3)) {
+                case 0: {
+                    Task task = randomTask(random, description);
+                    if (existing == null && !conflictsWith(reference, task, null)) {
+                        manager.addTask(task);
+                        reference.add(task);
+                    } else {
+                        assertThrows(TaskConflictException.class, () -> manager.addTask(task), "add " + task);
+                    }
+                    break;
+                }
+                case 1: {
+                    Task renamed = randomTask(random, "Task " + random.nextInt(DESCRIPTIONS));
+                    Task holder = find(reference, renamed.getDescription());
+                    if (existing == null) {
+                        assertThrows(TaskNotFoundException.class, () -> manager.editTask(description, renamed));
+                    } else if ((holder == null || holder == existing) && !conflictsWith(reference, renamed, existing)) {
+                        manager.editTask(description, renamed);
+                        reference.set(reference.indexOf(existing), renamed);
+                    } else {
+                        assertThrows(TaskConflictException.class, () -> manager.editTask(description, renamed), "edit to " + renamed);
+                    }
+                    break;
+                }
+                default:
+                    if (existing == null) {
+                        assertThrows(TaskNotFoundException.class, () -> manager.removeTask(description));
+                    } else {
+                        manager.removeTask(description);
+                        reference.remove(existing);
+                    }
+                    break;
+            }
+            if (step % 50 == 0) {
+                assertLookupsAgree(manager, reference);
+            }
+        }
+        assertLookupsAgree(manager, reference);
+    }
+
+    private static void assertLookupsAgree(ScheduleManager manager, List<Task> reference) throws TaskNotFoundException {
+        assertEquals(reference.size(), manager.viewTasks().size(), "task count");
+        for (int i = 0; i < DESCRIPTIONS; i++) {
+            String description = "Task " + i;
+            Task expected = find(reference, description);
+            if (expected == null) {
+                assertThrows(TaskNotFoundException.class, () -> manager.getTask(description), description);
+            } else {
+                assertSame(expected, manager.getTask(description), description);
+            }
+        }
+    }
+
+    private static Task find(List<Task> tasks, String description) {
+        for (Task task : tasks) {
+            if (task.getDescription().equals(description)) {
+                return task;
+            }
+        }
+        return null;
+    }
+
+    private static boolean conflictsWith(List<Task> tasks, Task task, Task ignored) {
+        return tasks.stream().anyMatch(other -> other != ignored && task.conflicts(other));
+    }
+
+    private static Task randomTask(Random random, String description) {
+        int start = random.nextInt(23 * 60);
+        LocalTime startTime = LocalTime.ofSecondOfDay(start * 60L);
+        return new Task(description, startTime, startTime.plusMinutes(1 + random.nextInt(45)), Priority.MEDIUM);
+    }
+}
@@ -0,0 +1,102 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+// Checks the lazily updated gap index against a plain per-second occupancy array
+class FreeTimeIndexTest {
+    private static final int DAY = FreeTimeIndex.SECONDS_PER_DAY;
+
+    @Test
+    void emptyDayIsOneFreeSlot() {
+        FreeTimeIndex index = new FreeTimeIndex();
+        assertEquals(List.of(new TimeSlot(LocalTime.MIDNIGHT, LocalTime.MAX)).toString(),
+            index.freeSlots(0, DAY, 1).toString());
+        assertEquals(-1, index.findRun(0, DAY, DAY + 1));
+    }
+
+    @Test
+    void overlappingSecondsStayOccupiedUntilEveryTaskIsReleased() {
+        FreeTimeIndex index = new FreeTimeIndex();
+        Task first = new Task("First", LocalTime.of(9, 0), LocalTime.of(10, 0, 0, 500_000_000), Priority.LOW);
+        Task second = new Task("Second", LocalTime.of(10, 0, 0, 700_000_000), LocalTime.of(11, 0), Priority.LOW);
+        index.occupy(first);
+        index.occupy(second);
+        index.release(first);
+        // The shared second 10:00:00 is still covered by the second task
+        assertEquals(FreeTimeIndex.startSecond(LocalTime.of(9, 0)), index.findRun(LocalTime.of(9, 0).toSecondOfDay(), DAY, 3600));
+        assertEquals(-1, index.findRun(LocalTime.of(9, 0).toSecondOfDay(), LocalTime.of(11, 0).toSecondOfDay(), 3601));
+        index.release(second);
+        assertEquals(1, index.freeSlots(0, DAY, 1).size());
+    }
+
+    @Test
+    void randomUpdatesMatchPerSecondOccupancy() {
+        Random random = new Random(42);
+        FreeTimeIndex index = new FreeTimeIndex();
+        int[] occupancy = new int[DAY];
+        List<Task> live = new ArrayList<>();
+        for (int step = 0; step < 3000; step++) {
+            if (live.isEmpty() || random.nextInt(3) > 0) {
+                int start = random.nextInt(DAY - 1);
+                int end = Math.min(DAY - 1, start + 1 + random.nextInt(random.nextBoolean() ? 600 : 20_000));
+                Task task = new Task("Task " + step, LocalTime.ofSecondOfDay(start), LocalTime.ofSecondOfDay(end), Priority.LOW);
+                live.add(task);
+                index.occupy(task);
+                add(occupancy, start, end, 1);
+            } else {
+                Task task = live.remove(random.nextInt(live.size()));
+                index.release(task);
+                add(occupancy, task.getStartTime().toSecondOfDay(), task.getEndTime().toSecondOfDay(), -1);
+            }
+            int from = random.nextInt(DAY);
+            int to = from + 1 + random.nextInt(DAY - from);
+            int length = 1 + random.nextInt(random.nextBoolean() ? 60 : 3600);
+            assertEquals(expectedRun(occupancy, from, to, length), index.findRun(from, to, length), "findRun at step " + step);
+            if (step % 100 == 0) {
+                assertEquals(expectedSlots(occupancy, from, to, length), index.freeSlots(from, to, length).toString(), "freeSlots at step " + step);
+            }
+        }
+    }
+
+    private static void add(int[] occupancy, int from, int to, int delta) {
+        for (int second = from; second < to; second++) {
+            occupancy[second] += delta;
+        }
+    }
+
+    private static int expectedRun(int[] occupancy, int from, int to, int length) {
+        int run = 0;
+        for (int second = from; second < to; second++) {
+            run = occupancy[second] == 0 ? run + 1 : 0;
+            if (run >= length) {
+                return second + 1 - run;
+            }
+        }
+        return -1;
+    }
+
+    private static String expectedSlots(int[] occupancy, int from, int to, int length) {
+        List<TimeSlot> slots = new ArrayList<>();
+        int second = from;
+        while (second < to) {
+            if (occupancy[second] != 0) {
+                second++;
+                continue;
+            }
+            int end = second;
+            while (end < to && occupancy[end] == 0) {
+                end++;
+            }
+            if (end - second >= length) {
+                slots.add(new TimeSlot(FreeTimeIndex.toTime(second), FreeTimeIndex.toTime(end)));
+            }
+            second = end;
+        }
+        return slots.toString();
+    }
+}
@@ -0,0 +1,66 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+// Checks the interval index's overlap search against a linear scan with Task.conflicts
+class IntervalIndexTest {
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    @Test
+    void tasksTouchingEndToStartDoNotConflict() {
+        IntervalIndex index = new IntervalIndex();
+        index.add(task("Morning", 9, 0, 10, 0));
+        assertNull(index.findConflict(task("Next", 10, 0, 11, 0)));
+        assertNull(index.findConflict(task("Before", 8, 0, 9, 0)));
+        assertEquals("Morning", index.findConflict(task("Inside", 9, 30, 9, 45)).getDescription());
+    }
+
+    @Test
+    void randomSchedulesMatchLinearScan() {
+        Random random = new Random(11);
+        for (int round = 0; round < 50; round++) {
+            IntervalIndex index = new IntervalIndex();
+            List<Task> reference = new ArrayList<>();
+            for (int step = 0; step < 400; step++) {
+                Task probe = randomTask(random, "Task " + round + "." + step);
+                assertEquals(describe(linearConflicts(reference, probe)), describe(index.findConflicts(probe)),
+                    "conflicts of " + probe + " in round " + round);
+                // Keep the index conflict-free, as ScheduleManager does, and remove now and then
+                if (linearConflicts(reference, probe).isEmpty()) {
+                    index.add(probe);
+                    reference.add(probe);
+                } else if (!reference.isEmpty() && random.nextInt(4) == 0) {
+                    Task removed = reference.remove(random.nextInt(reference.size()));
+                    index.remove(removed);
+                }
+            }
+            assertEquals(reference.size(), index.size(), "size in round " + round);
+        }
+    }
+
+    private static Task randomTask(Random random, String description) {
+        int start = random.nextInt(MINUTES_PER_DAY);
+        int length = random.nextInt(10) == 0 ? 0 : 1 + random.nextInt(random.nextBoolean() ? 30 : 240);
+        int end = Math.min(MINUTES_PER_DAY - 1, start + length);
+        return new Task(description, LocalTime.ofSecondOfDay(start * 60L), LocalTime.ofSecondOfDay(end * 60L), Priority.LOW);
+    }
+
+    private static List<Task> linearConflicts(List<Task> tasks, Task probe) {
+        return tasks.stream().filter(probe::conflicts).sorted(IntervalIndex.BY_START_TIME).collect(Collectors.toList());
+    }
+
+    private static List<String> describe(List<Task> tasks) {
+        return tasks.stream().map(Task::getDescription).collect(Collectors.toList());
+    }
+
+    private static Task task(String description, int startHour, int startMinute, int endHour, int endMinute) {
+        return new Task(description, LocalTime.of(startHour, startMinute), LocalTime.of(endHour, endMinute), Priority.LOW);
+    }
+}
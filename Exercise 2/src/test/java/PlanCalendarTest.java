@@ -0,0 +1,198 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+// Checks recurrence dates and rule-against-rule conflicts against a day-by-day expansion over a horizon far
+// longer than the joint period conflicts() walks, and that a schedule's day tasks and recurring tasks block
+// each other on the schedule's date
+class PlanCalendarTest {
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 1);
+    // Longer than any joint period the random rules below can have (lcm of 4 days and 3 weeks is 84 days)
+    private static final int HORIZON_DAYS = 400;
+    // Held so the level set below is not lost when the logger is garbage collected
+    private static final Logger scheduleLogger = Logger.getLogger(ScheduleManager.class.getName());
+
+    @BeforeAll
+    static void quietLogging() {
+        scheduleLogger.setLevel(Level.OFF);
+    }
+
+    @Test
+    void firstOnOrAfterMatchesADayByDayScan() {
+        Random random = new Random(21);
+        for (int round = 0; round < 2000; round++) {
+            RecurrenceRule rule = randomRule(random);
+            LocalDate from = DAY.plusDays(random.nextInt(120) - 20);
+            LocalDate expected = null;
+            for (LocalDate date = from; date.isBefore(from.plusDays(HORIZON_DAYS)); date = date.plusDays(1)) {
+                if (occursOn(rule, date)) {
+                    expected = date;
+                    break;
+                }
+            }
+            assertEquals(expected, rule.firstOnOrAfter(from), rule + " from " + from);
+        }
+    }
+
+    @Test
+    void conflictsMatchesExpandedOccurrences() {
+        Random random = new Random(22);
+        int conflicting = 0;
+        int checked = 0;
+        while (checked < 1500) {
+            RecurringTask a = randomTask(random, "A");
+            RecurringTask b = randomTask(random, "B");
+            if (a == null || b == null) {
+                continue;
+            }
+            boolean expected = occurrencesOverlap(a, b);
+            assertEquals(expected, a.conflicts(b), a + " against " + b);
+            assertEquals(expected, b.conflicts(a), b + " against " + a);
+            conflicting += expected ? 1 : 0;
+            checked++;
+        }
+        // Both outcomes are well represented
+        assertTrue(conflicting > 150 && conflicting < 1350, conflicting + " conflicting pairs");
+    }
+
+    @Test
+    void occurrenceRunningPastMidnightConflictsWithTheNextMorning() {
+        RecurringTask night = new RecurringTask("Night watch", LocalTime.of(22, 0), Duration.ofHours(4), Priority.HIGH,
+            RecurrenceRule.weekly(DAY, 1, EnumSet.of(DayOfWeek.FRIDAY)));
+        RecurringTask saturday = RecurringTask.once("Early call", DAY.plusDays(8).atTime(1, 0), DAY.plusDays(8).atTime(2, 0), Priority.LOW);
+        RecurringTask sunday = RecurringTask.once("Late call", DAY.plusDays(9).atTime(1, 0), DAY.plusDays(9).atTime(2, 0), Priority.LOW);
+        assertTrue(night.conflicts(saturday));
+        assertFalse(night.conflicts(sunday));
+
+        PlanCalendar calendar = new PlanCalendar();
+        calendar.put(night);
+        List<Task> saturdayTasks = calendar.tasksOn(DAY.plusDays(1));
+        assertEquals(1, saturdayTasks.size());
+        assertEquals(LocalTime.MIDNIGHT, saturdayTasks.get(0).getStartTime());
+        assertEquals(LocalTime.of(2, 0), saturdayTasks.get(0).getEndTime());
+    }
+
+    @Test
+    void dayTasksAndRecurringTasksBlockEachOther() throws Exception {
+        ScheduleManager manager = new ScheduleManager(DAY);
+        manager.addTask(new Task("Briefing", LocalTime.of(8, 0), LocalTime.of(9, 0), Priority.MEDIUM));
+        RecurringTask overBriefing = new RecurringTask("Exercise", LocalTime.of(8, 30), Duration.ofHours(1), Priority.HIGH,
+            RecurrenceRule.daily(DAY.minusDays(3), 1));
+        assertThrows(TaskConflictException.class, () -> manager.addRecurringTask(overBriefing));
+
+        // A rule that skips this schedule's date does not touch its tasks
+        manager.addRecurringTask(new RecurringTask("Exercise", LocalTime.of(8, 30), Duration.ofHours(1), Priority.HIGH,
+            RecurrenceRule.daily(DAY.plusDays(1), 1)));
+        manager.addRecurringTask(new RecurringTask("Comms", LocalTime.of(23, 0), Duration.ofHours(2), Priority.HIGH,
+            RecurrenceRule.daily(DAY.minusDays(1), 1)));
+        assertThrows(TaskConflictException.class, () -> manager.addRecurringTask(new RecurringTask("Comms", LocalTime.of(3, 0),
+            Duration.ofHours(1), Priority.LOW, RecurrenceRule.once(DAY.plusDays(5)))));
+        // Yesterday's Comms runs until 01:00 today, and today's from 23:00
+        assertThrows(TaskConflictException.class,
+            () -> manager.addTask(new Task("Wake up", LocalTime.of(0, 30), LocalTime.of(1, 30), Priority.LOW)));
+        assertThrows(TaskConflictException.class,
+            () -> manager.addTask(new Task("Wind down", LocalTime.of(22, 0), LocalTime.of(23, 30), Priority.LOW)));
+        manager.addTask(new Task("Wake up", LocalTime.of(1, 0), LocalTime.of(1, 30), Priority.LOW));
+        assertFalse(manager.addTasks(List.of(new Task("Dinner", LocalTime.of(22, 45), LocalTime.of(23, 15), Priority.LOW))).isApplied());
+        assertEquals(2, manager.viewTasks().size());
+
+        manager.removeRecurringTask("Comms");
+        manager.addTask(new Task("Wind down", LocalTime.of(22, 0), LocalTime.of(23, 30), Priority.LOW));
+        assertThrows(TaskNotFoundException.class, () -> manager.removeRecurringTask("Comms"));
+        assertEquals(1, manager.viewRecurringTasks().size());
+    }
+
+    // Day-by-day reference for a rule's dates, from its definition rather than firstOnOrAfter's arithmetic
+    private static boolean occursOn(RecurrenceRule rule, LocalDate date) {
+        if (date.isBefore(rule.getStart()) || (rule.getUntil() != null && date.isAfter(rule.getUntil()))) {
+            return false;
+        }
+        long days = ChronoUnit.DAYS.between(rule.getStart(), date);
+        switch (rule.getFrequency()) {
+            case ONCE:
+                return days == 0;
+            case DAILY:
+                return days % rule.getInterval() == 0;
+            default:
+                LocalDate firstMonday = rule.getStart().minusDays(rule.getStart().getDayOfWeek().getValue() - 1);
+                long week = ChronoUnit.DAYS.between(firstMonday, date) / 7;
+                return week % rule.getInterval() == 0 && rule.getWeekdays().contains(date.getDayOfWeek());
+        }
+    }
+
+    // Every occurrence of each task over the horizon, compared pairwise with nearby ones
+    private static boolean occurrencesOverlap(RecurringTask a, RecurringTask b) {
+        LocalDate first = DAY.minusDays(40);
+        List<LocalDateTime[]> bOccurrences = expand(b, first);
+        for (LocalDateTime[] occurrence : expand(a, first)) {
+            for (LocalDateTime[] other : bOccurrences) {
+                if (occurrence[0].isBefore(other[1]) && other[0].isBefore(occurrence[1])) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static List<LocalDateTime[]> expand(RecurringTask task, LocalDate first) {
+        List<LocalDateTime[]> occurrences = new ArrayList<>();
+        for (LocalDate date = first; date.isBefore(first.plusDays(HORIZON_DAYS)); date = date.plusDays(1)) {
+            if (occursOn(task.getRule(), date)) {
+                LocalDateTime start = date.atTime(task.getStartTime());
+                occurrences.add(new LocalDateTime[] {start, start.plus(task.getDuration())});
+            }
+        }
+        return occurrences;
+    }
+
+    // Starts spread over a month, mostly open-ended, some ending within a few weeks
+    private static RecurrenceRule randomRule(Random random) {
+        LocalDate start = DAY.plusDays(random.nextInt(30));
+        RecurrenceRule rule;
+        switch (random.nextInt(3)) {
+            case 0:
+                return RecurrenceRule.once(start);
+            case 1:
+                rule = RecurrenceRule.daily(start, 1 + random.nextInt(4));
+                break;
+            default:
+                Set<DayOfWeek> days = EnumSet.noneOf(DayOfWeek.class);
+                do {
+                    days.add(DayOfWeek.of(1 + random.nextInt(7)));
+                } while (random.nextBoolean());
+                rule = RecurrenceRule.weekly(start, 1 + random.nextInt(3), days);
+                break;
+        }
+        return random.nextInt(4) == 0 ? rule.until(start.plusDays(random.nextInt(40))) : rule;
+    }
+
+    // Null when the drawn duration would make the task overlap itself
+    private static RecurringTask randomTask(Random random, String description) {
+        LocalTime start = LocalTime.ofSecondOfDay(random.nextInt(24 * 4) * 900L);
+        // Mostly short, sometimes past midnight, now and then longer than a day
+        int quarters = random.nextInt(5) == 0 ? 1 + random.nextInt(4 * 40) : 1 + random.nextInt(4 * 6);
+        try {
+            return new RecurringTask(description, start, Duration.ofMinutes(15L * quarters), Priority.LOW, randomRule(random));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
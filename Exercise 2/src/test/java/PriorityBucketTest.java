@@ -0,0 +1,76 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Random;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+// Checks the per-priority buckets and counters against filtering the whole schedule, through random adds,
+// removals, completions and edits that move tasks between priorities
+class PriorityBucketTest {
+    private static final int DESCRIPTIONS = 80;
+    // Held so the level set below is not lost when the logger is garbage collected
+    private static final Logger scheduleLogger = Logger.getLogger(ScheduleManager.class.getName());
+
+    @BeforeAll
+    static void quietLogging() {
+        scheduleLogger.setLevel(Level.OFF);
+    }
+
+    @Test
+    void bucketsMatchFilteredSchedule() {
+        Random random = new Random(5);
+        ScheduleManager manager = new ScheduleManager();
+        for (int step = 0; step < 5000; step++) {
+            String description = "Task " + random.nextInt(DESCRIPTIONS);
+            try {
+                switch (random.nextInt(4)) {
+                    case 0:
+                        manager.addTask(randomTask(random, description));
+                        break;
+                    case 1:
+                        manager.editTask(description, randomTask(random, description));
+                        break;
+                    case 2:
+                        manager.markTaskAsCompleted(description);
+                        break;
+                    default:
+                        manager.removeTask(description);
+                        break;
+                }
+            } catch (TaskConflictException | TaskNotFoundException e) {
+                // Rejected writes change nothing; the comparison below covers them too
+            }
+            if (step % 25 == 0) {
+                assertBucketsAgree(manager);
+            }
+        }
+        assertBucketsAgree(manager);
+    }
+
+    private static void assertBucketsAgree(ScheduleManager manager) {
+        List<Task> all = manager.viewTasks();
+        for (Priority priority : Priority.values()) {
+            List<Task> expected = all.stream().filter(task -> task.getPriority() == priority).collect(Collectors.toList());
+            long open = expected.stream().filter(task -> !task.isCompleted()).count();
+            assertEquals(describe(expected), describe(manager.viewTasksByPriority(priority)), priority + " bucket");
+            assertEquals(expected.size(), manager.countTasksByPriority(priority), priority + " count");
+            assertEquals(open, manager.countOpenTasksByPriority(priority), priority + " open count");
+        }
+    }
+
+    private static List<String> describe(List<Task> tasks) {
+        return tasks.stream().map(Task::toString).collect(Collectors.toList());
+    }
+
+    private static Task randomTask(Random random, String description) {
+        LocalTime start = LocalTime.ofSecondOfDay(random.nextInt(23 * 60) * 60L);
+        Priority priority = Priority.values()[random.nextInt(Priority.values().length)];
+        return new Task(description, start, start.plusMinutes(1 + random.nextInt(45)), priority);
+    }
+}
@@ -0,0 +1,138 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+class ReplicationTest {
+    private static final long HEARTBEAT_MILLIS = 50;
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 1);
+
+    @Test
+    void followerReceivesCheckpointThenStreamedMutations() throws Exception {
+        ScheduleManager primary = new ScheduleManager(DAY);
+        primary.addTask(new Task("Before", LocalTime.of(7, 0), LocalTime.of(8, 0), Priority.LOW));
+        primary.addRecurringTask(new RecurringTask("Exercise", LocalTime.of(18, 0), Duration.ofHours(1), Priority.HIGH,
+            RecurrenceRule.daily(DAY, 1)));
+        ReplicationLog log = new ReplicationLog(1000);
+        primary.attachReplicationLog(log);
+        try (ReplicationLeader leader = new ReplicationLeader(primary, log, new InetSocketAddress("127.0.0.1", 0), HEARTBEAT_MILLIS)) {
+            leader.start();
+            ScheduleManager replica = new ScheduleManager(DAY);
+            try (ScheduleFollower follower = new ScheduleFollower(replica, leader.getAddress(), HEARTBEAT_MILLIS, 50, 1000)) {
+                follower.start();
+                // The first task and recurring task arrive in a checkpoint, the rest as streamed mutations
+                await(() -> replica.viewTasks().size() == 1);
+                assertEquals(1, replica.viewRecurringTasks().size());
+                for (int hour = 9; hour < 12; hour++) {
+                    primary.addTask(new Task("Task " + hour, LocalTime.of(hour, 0), LocalTime.of(hour, 30), Priority.MEDIUM));
+                }
+                primary.removeTask("Task 10");
+                primary.addRecurringTask(RecurringTask.once("Undocking", DAY.atTime(12, 0), DAY.atTime(13, 0), Priority.HIGH));
+                await(() -> follower.getAppliedSequence() == log.head() && follower.getLagOps() == 0);
+                assertEquals(describe(primary.viewTasks()), describe(replica.viewTasks()));
+                assertEquals(primary.viewRecurringTasks().toString(), replica.viewRecurringTasks().toString());
+                // The replica's day is blocked by the streamed recurring task too
+                assertThrows(TaskConflictException.class,
+                    () -> replica.addTask(new Task("Lunch", LocalTime.of(12, 30), LocalTime.of(13, 30), Priority.LOW)));
+            }
+        }
+    }
+
+    @Test
+    void reconnectedFollowerResumesFromTheRetainedLog() throws Exception {
+        assertEquals(1, catchUpAfterOutage(1000, ReplicationLeader.MAX_FRAME_LENGTH, 50, 1),
+            "checkpoints: only the first, before anything was applied");
+    }
+
+    @Test
+    void gapLargerThanTheRetainedLogForcesACheckpoint() throws Exception {
+        assertEquals(2, catchUpAfterOutage(8, ReplicationLeader.MAX_FRAME_LENGTH, 50, 1), "checkpoints");
+    }
+
+    @Test
+    void mutationTooLargeForAFrameIsShippedAsACheckpoint() throws Exception {
+        // One batch of 400 tasks is far beyond a 4 KB frame; the checkpoint carries it in 4 KB chunks
+        assertEquals(2, catchUpAfterOutage(1000, 4096, 3, 400), "checkpoints");
+    }
+
+    // Follows until caught up, stops the follower while the leader takes writes (the given number of
+    // batches of the given size, plus edits and removals), restarts it and waits until it matches the leader
+    // again; returns how many checkpoints the follower loaded
+    private static long catchUpAfterOutage(int retain, int maxFrameLength, int batches, int batchSize) throws Exception {
+        ScheduleManager primary = new ScheduleManager(DAY);
+        ReplicationLog log = new ReplicationLog(retain);
+        primary.attachReplicationLog(log);
+        try (ReplicationLeader leader = new ReplicationLeader(primary, log, new InetSocketAddress("127.0.0.1", 0),
+                HEARTBEAT_MILLIS, maxFrameLength)) {
+            leader.start();
+            ScheduleManager replica = new ScheduleManager(DAY);
+            try (ScheduleFollower follower = new ScheduleFollower(replica, leader.getAddress(), HEARTBEAT_MILLIS, 50, 1000)) {
+                follower.start();
+                primary.addTask(new Task("Before", LocalTime.of(0, 0), LocalTime.of(0, 1), Priority.LOW));
+                await(() -> follower.getAppliedSequence() == log.head() && follower.getLagOps() == 0);
+                follower.stop();
+
+                int minute = 1;
+                for (int batch = 0; batch < batches; batch++) {
+                    List<Task> tasks = new ArrayList<>();
+                    for (int i = 0; i < batchSize; i++, minute++) {
+                        LocalTime start = LocalTime.ofSecondOfDay(minute * 60L);
+                        tasks.add(new Task("Task " + minute, start, start.plusSeconds(30), Priority.MEDIUM));
+                    }
+                    assertTrue(primary.addTasks(tasks).isApplied());
+                }
+                primary.markTaskAsCompleted("Task 1");
+                primary.removeTask("Task 2");
+                primary.editTask("Task 3", new Task("Task 3 moved", LocalTime.of(23, 0), LocalTime.of(23, 30), Priority.HIGH));
+
+                follower.start();
+                await(() -> follower.getAppliedSequence() == log.head() && follower.getLagOps() == 0);
+                assertEquals(describe(primary.viewTasks()), describe(replica.viewTasks()));
+                return follower.getCheckpointCount();
+            }
+        }
+    }
+
+    @Test
+    void followerReconnectsWhenTheLeaderGoesSilent() throws Exception {
+        try (ServerSocket silent = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            ScheduleFollower follower = new ScheduleFollower(new ScheduleManager(),
+                (InetSocketAddress) silent.getLocalSocketAddress(), HEARTBEAT_MILLIS, 10, 1000);
+            try {
+                follower.start();
+                // Accept and never answer, as a leader behind a dead link would
+                try (Socket first = silent.accept(); Socket second = silent.accept()) {
+                    assertTrue(second.isConnected());
+                }
+            } finally {
+                follower.close();
+            }
+        }
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "timed out waiting for the replica");
+            Thread.sleep(10);
+        }
+    }
+
+    private static List<String> describe(List<Task> tasks) {
+        return tasks.stream().map(Task::toString).collect(Collectors.toList());
+    }
+}
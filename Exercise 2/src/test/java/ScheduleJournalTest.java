@@ -0,0 +1,241 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ScheduleJournalTest {
+    private Path directory;
+
+    @BeforeEach
+    void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("schedule-journal");
+    }
+
+    @AfterEach
+    void deleteDirectory() throws IOException {
+        deleteRecursively(directory);
+    }
+
+    @Test
+    void groupCommitMakesEveryAcknowledgedWriteDurable() throws Exception {
+        // No snapshots, so the files can be copied while the journal is still open
+        ScheduleJournal journal = ScheduleJournal.open(directory, ScheduleJournal.FsyncPolicy.GROUP, 20, Long.MAX_VALUE);
+        ScheduleManager manager = new ScheduleManager();
+        manager.attachJournal(journal);
+        try {
+            runWriters(manager);
+            // Every write has returned, so every record must already be in the files; copying them before
+            // close() recovers what a crash at this point would leave
+            Path copy = Files.createTempDirectory("schedule-journal-copy");
+            try {
+                copyFiles(directory, copy);
+                assertEquals(describe(manager.viewTasks()), describe(recover(copy)));
+            } finally {
+                deleteRecursively(copy);
+            }
+        } finally {
+            journal.close();
+        }
+    }
+
+    @Test
+    void snapshotsAndJournalsRecoverTheWholeSchedule() throws Exception {
+        ScheduleJournal journal = ScheduleJournal.open(directory, ScheduleJournal.FsyncPolicy.GROUP, 20, 100);
+        ScheduleManager manager = new ScheduleManager();
+        manager.attachJournal(journal);
+        runWriters(manager);
+        manager.markTaskAsCompleted("Task 0:0");
+        manager.removeTask("Task 3:59");
+        List<String> expected = describe(manager.viewTasks());
+        journal.close();
+
+        List<Task> recovered = recover(directory);
+        assertEquals(expected, describe(recovered));
+        assertEquals(239, recovered.size());
+    }
+
+    @Test
+    void recurringTasksSurviveSnapshotsAndJournals() throws Exception {
+        LocalDate day = LocalDate.of(2024, 3, 1);
+        ScheduleJournal journal = ScheduleJournal.open(directory, ScheduleJournal.FsyncPolicy.ALWAYS, 20, Long.MAX_VALUE);
+        ScheduleManager manager = new ScheduleManager(day);
+        manager.attachJournal(journal);
+        manager.addRecurringTask(new RecurringTask("Exercise", LocalTime.of(8, 0), Duration.ofHours(1), Priority.HIGH,
+            RecurrenceRule.weekly(day, 2, EnumSet.of(DayOfWeek.MONDAY, DayOfWeek.FRIDAY)).until(day.plusDays(60))));
+        manager.addRecurringTask(new RecurringTask("Comms", LocalTime.of(23, 0), Duration.ofHours(2), Priority.MEDIUM,
+            RecurrenceRule.daily(day, 3)));
+        manager.checkpoint();
+        // After the snapshot, only in the journal
+        manager.addRecurringTask(RecurringTask.once("Undocking", day.atTime(12, 0), day.atTime(14, 0), Priority.HIGH));
+        manager.removeRecurringTask("Comms");
+        List<String> expected = manager.viewRecurringTasks().stream().map(Object::toString).sorted().collect(Collectors.toList());
+        journal.close();
+
+        ScheduleManager recovered = new ScheduleManager(day);
+        ScheduleJournal reopened = ScheduleJournal.open(directory, ScheduleJournal.FsyncPolicy.ALWAYS, 20, Long.MAX_VALUE);
+        try {
+            recovered.attachJournal(reopened);
+        } finally {
+            reopened.close();
+        }
+        assertEquals(expected, recovered.viewRecurringTasks().stream().map(Object::toString).sorted().collect(Collectors.toList()));
+        // Today's occurrences block day tasks on the recovered schedule too
+        assertThrows(TaskConflictException.class, () -> recovered.addTask(task("Lunch", 13)));
+        assertThrows(TaskConflictException.class, () -> recovered.addTask(task("Warm up", 8)));
+    }
+
+    @Test
+    void tornTailOfTheLastJournalIsCutOff() throws Exception {
+        ScheduleJournal journal = ScheduleJournal.open(directory, ScheduleJournal.FsyncPolicy.ALWAYS, 20, Long.MAX_VALUE);
+        journal.append(ScheduleMutation.add(task("First", 9)));
+        journal.append(ScheduleMutation.add(task("Second", 10)));
+        journal.close();
+        Path last = journalFiles().get(0);
+        long intact = Files.size(last);
+        Files.write(last, new byte[] {0, 0, 0, 40, 1, 2}, StandardOpenOption.APPEND);
+
+        List<ScheduleMutation> replayed = new ArrayList<>();
+        ScheduleJournal reopened = ScheduleJournal.open(directory, ScheduleJournal.FsyncPolicy.ALWAYS, 20, Long.MAX_VALUE);
+        reopened.recover(task -> { }, replayed::add);
+        assertEquals(2, replayed.size());
+        assertEquals(intact, Files.size(last));
+        // The next run appends to a new generation and recovers both
+        reopened.append(ScheduleMutation.add(task("Third", 11)));
+        reopened.close();
+        replayed.clear();
+        ScheduleJournal again = ScheduleJournal.open(directory, ScheduleJournal.FsyncPolicy.ALWAYS, 20, Long.MAX_VALUE);
+        try {
+            again.recover(task -> { }, replayed::add);
+        } finally {
+            again.close();
+        }
+        assertEquals(3, replayed.size());
+    }
+
+    @Test
+    void damagedJournalFollowedByANewerOneFailsRecovery() throws Exception {
+        ScheduleJournal journal = ScheduleJournal.open(directory, ScheduleJournal.FsyncPolicy.ALWAYS, 20, Long.MAX_VALUE);
+        journal.append(ScheduleMutation.add(task("First", 9)));
+        journal.rotate();
+        journal.append(ScheduleMutation.add(task("Second", 10)));
+        journal.close();
+        // Flip a byte of the first record's payload in the older journal
+        Path first = journalFiles().get(0);
+        byte[] bytes = Files.readAllBytes(first);
+        bytes[16 + 8] ^= 1;
+        Files.write(first, bytes);
+
+        ScheduleJournal reopened = ScheduleJournal.open(directory, ScheduleJournal.FsyncPolicy.ALWAYS, 20, Long.MAX_VALUE);
+        try {
+            assertThrows(IOException.class, () -> reopened.recover(task -> { }, mutation -> { }));
+        } finally {
+            reopened.close();
+        }
+    }
+
+    @Test
+    void unreadableNewestSnapshotFailsRecovery() throws Exception {
+        ScheduleJournal journal = ScheduleJournal.open(directory, ScheduleJournal.FsyncPolicy.ALWAYS, 20, Long.MAX_VALUE);
+        ScheduleManager manager = new ScheduleManager();
+        manager.attachJournal(journal);
+        manager.addTask(task("First", 9));
+        manager.checkpoint();
+        manager.addTask(task("Second", 10));
+        journal.close();
+        // The older snapshot and the journals this one replaced are gone, so nothing can stand in for it
+        Path snapshot;
+        try (Stream<Path> files = Files.list(directory)) {
+            snapshot = files.filter(path -> path.getFileName().toString().startsWith("snapshot-")).findFirst().get();
+        }
+        byte[] bytes = Files.readAllBytes(snapshot);
+        bytes[bytes.length / 2] ^= 1;
+        Files.write(snapshot, bytes);
+
+        ScheduleJournal reopened = ScheduleJournal.open(directory, ScheduleJournal.FsyncPolicy.ALWAYS, 20, Long.MAX_VALUE);
+        try {
+            assertThrows(IOException.class, () -> reopened.recover(task -> { }, mutation -> { }));
+        } finally {
+            reopened.close();
+        }
+    }
+
+    // Four writers adding 60 tasks each, concurrently
+    private static void runWriters(ScheduleManager manager) throws InterruptedException {
+        List<Thread> writers = new ArrayList<>();
+        for (int writer = 0; writer < 4; writer++) {
+            int hour = writer;
+            writers.add(new Thread(() -> {
+                try {
+                    for (int minute = 0; minute < 60; minute++) {
+                        LocalTime start = LocalTime.of(hour, minute);
+                        manager.addTask(new Task("Task " + hour + ":" + minute, start, start.plusSeconds(30), Priority.MEDIUM));
+                    }
+                } catch (TaskConflictException e) {
+                    throw new AssertionError(e);
+                }
+            }));
+        }
+        writers.forEach(Thread::start);
+        for (Thread writer : writers) {
+            writer.join();
+        }
+    }
+
+    private static List<Task> recover(Path from) throws IOException {
+        ScheduleManager recovered = new ScheduleManager();
+        ScheduleJournal journal = ScheduleJournal.open(from, ScheduleJournal.FsyncPolicy.GROUP, 20, 100);
+        try {
+            recovered.attachJournal(journal);
+            return recovered.viewTasks();
+        } finally {
+            journal.close();
+        }
+    }
+
+    private List<Path> journalFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().startsWith("journal-")).sorted().collect(Collectors.toList());
+        }
+    }
+
+    private static void copyFiles(Path from, Path to) throws IOException {
+        try (Stream<Path> files = Files.list(from)) {
+            for (Path file : files.collect(Collectors.toList())) {
+                Files.copy(file, to.resolve(file.getFileName()));
+            }
+        }
+    }
+
+    private static void deleteRecursively(Path root) throws IOException {
+        try (Stream<Path> files = Files.walk(root)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    private static Task task(String description, int hour) {
+        return new Task(description, LocalTime.of(hour, 0), LocalTime.of(hour, 30), Priority.LOW);
+    }
+
+    private static List<String> describe(List<Task> tasks) {
+        return tasks.stream().map(Task::toString).collect(Collectors.toList());
+    }
+}
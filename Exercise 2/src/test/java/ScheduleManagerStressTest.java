@@ -0,0 +1,198 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+// Hammers one schedule with concurrent adds, edits, removals and completions, then checks that every index
+// tells the same story. Random tasks stay before 23:00; the last hour holds a sentinel task that is renamed
+// back and forth while readers check it is always there exactly once, which fails if an edit is not atomic.
+class ScheduleManagerStressTest {
+    private static final int WRITERS = 8;
+    private static final int OPERATIONS_PER_WRITER = 20_000;
+    private static final int DESCRIPTIONS = 300;
+    private static final int LAST_RANDOM_MINUTE = 23 * 60;
+    private static final LocalTime SENTINEL_START = LocalTime.of(23, 0);
+    private static final LocalTime SENTINEL_END = LocalTime.of(23, 59);
+    // Held so the level set below is not lost when the logger is garbage collected
+    private static final Logger scheduleLogger = Logger.getLogger(ScheduleManager.class.getName());
+
+    @BeforeAll
+    static void quietLogging() {
+        // Every rejected write logs a warning; the run makes tens of thousands of them
+        scheduleLogger.setLevel(Level.OFF);
+    }
+
+    @Test
+    void concurrentWritesLeaveEveryIndexConsistent() throws Exception {
+        ScheduleManager manager = new ScheduleManager();
+        manager.addTask(new Task("Sentinel 0", SENTINEL_START, SENTINEL_END, Priority.HIGH));
+        ConcurrentLinkedQueue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        AtomicBoolean writing = new AtomicBoolean(true);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+
+        for (int i = 0; i < WRITERS; i++) {
+            threads.add(new Thread(() -> {
+                try {
+                    start.await();
+                    for (int op = 0; op < OPERATIONS_PER_WRITER; op++) {
+                        randomWrite(manager);
+                    }
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            }, "stress-writer-" + i));
+        }
+        threads.add(new Thread(() -> {
+            try {
+                start.await();
+                for (int generation = 0; writing.get(); generation++) {
+                    manager.editTask("Sentinel " + generation,
+                        new Task("Sentinel " + (generation + 1), SENTINEL_START, SENTINEL_END, Priority.HIGH));
+                }
+            } catch (Throwable e) {
+                failures.add(e);
+            }
+        }, "stress-sentinel"));
+        for (int i = 0; i < 2; i++) {
+            threads.add(new Thread(() -> {
+                try {
+                    start.await();
+                    while (writing.get()) {
+                        List<Task> view = manager.viewTasks();
+                        long sentinels = view.stream().filter(task -> task.getDescription().startsWith("Sentinel ")).count();
+                        assertEquals(1, sentinels, "sentinel count in one snapshot");
+                        assertNoOverlaps(view);
+                    }
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            }, "stress-reader-" + i));
+        }
+
+        threads.forEach(Thread::start);
+        start.countDown();
+        for (Thread thread : threads.subList(0, WRITERS)) {
+            thread.join(TimeUnit.MINUTES.toMillis(2));
+        }
+        writing.set(false);
+        for (Thread thread : threads) {
+            thread.join(TimeUnit.MINUTES.toMillis(2));
+            assertTrue(!thread.isAlive(), thread.getName() + " did not finish");
+        }
+        if (!failures.isEmpty()) {
+            AssertionError error = new AssertionError(failures.size() + " thread(s) failed");
+            failures.forEach(error::addSuppressed);
+            throw error;
+        }
+
+        assertIndexesAgree(manager);
+    }
+
+    private static void randomWrite(ScheduleManager manager) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String description = "Task " + random.nextInt(DESCRIPTIONS);
+        try {
+            switch (random.nextInt(4)) {
+                case 0:
+                    manager.addTask(randomTask(description));
+                    break;
+                case 1:
+                    manager.editTask(description, randomTask("Task " + random.nextInt(DESCRIPTIONS)));
+                    break;
+                case 2:
+                    manager.removeTask(description);
+                    break;
+                default:
+                    manager.markTaskAsCompleted(description);
+                    break;
+            }
+        } catch (TaskConflictException | TaskNotFoundException e) {
+            // Expected: another writer got there first
+        }
+    }
+
+    private static Task randomTask(String description) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int start = random.nextInt(LAST_RANDOM_MINUTE - 1);
+        int end = start + 1 + random.nextInt(Math.min(30, LAST_RANDOM_MINUTE - start));
+        Priority priority = Priority.values()[random.nextInt(Priority.values().length)];
+        return new Task(description, LocalTime.ofSecondOfDay(start * 60L), LocalTime.ofSecondOfDay(end * 60L), priority);
+    }
+
+    private static void assertNoOverlaps(List<Task> timeOrdered) {
+        for (int i = 1; i < timeOrdered.size(); i++) {
+            Task previous = timeOrdered.get(i - 1);
+            Task next = timeOrdered.get(i);
+            assertTrue(!previous.getEndTime().isAfter(next.getStartTime()), previous + " overlaps " + next);
+        }
+    }
+
+    private static void assertIndexesAgree(ScheduleManager manager) {
+        List<Task> snapshot = manager.viewTasks();
+        assertEquals(snapshot.size(), manager.snapshot().size(), "snapshot size");
+        assertNoOverlaps(snapshot);
+
+        // The start-time skip list, read through an unfiltered query
+        List<Task> indexed = manager.query(TaskQuery.all()).stream().collect(Collectors.toList());
+        assertEquals(snapshot.size(), indexed.size(), "skip list size");
+        for (int i = 0; i < snapshot.size(); i++) {
+            assertSame(snapshot.get(i), indexed.get(i), "skip list entry " + i);
+        }
+
+        Set<Task> live = Collections.newSetFromMap(new IdentityHashMap<>());
+        live.addAll(snapshot);
+        assertEquals(snapshot.size(), live.size(), "distinct tasks");
+        for (Task task : snapshot) {
+            assertSame(task, assertFound(manager, task.getDescription()), "description map entry");
+        }
+        long described = snapshot.stream().map(Task::getDescription).distinct().count();
+        assertEquals(snapshot.size(), described, "distinct descriptions");
+        for (int i = 0; i < DESCRIPTIONS; i++) {
+            String description = "Task " + i;
+            if (snapshot.stream().noneMatch(task -> task.getDescription().equals(description))) {
+                assertThrows(TaskNotFoundException.class, () -> manager.getTask(description), description);
+            }
+        }
+
+        int bucketed = 0;
+        for (Priority priority : Priority.values()) {
+            List<Task> bucket = manager.viewTasksByPriority(priority);
+            for (Task task : bucket) {
+                assertEquals(priority, task.getPriority(), "bucket of " + task);
+                assertTrue(live.contains(task), "stale task in " + priority + " bucket: " + task);
+            }
+            long open = bucket.stream().filter(task -> !task.isCompleted()).count();
+            assertEquals(bucket.size(), manager.countTasksByPriority(priority), priority + " count");
+            assertEquals(open, manager.countOpenTasksByPriority(priority), priority + " open count");
+            bucketed += bucket.size();
+        }
+        assertEquals(snapshot.size(), bucketed, "tasks across priority buckets");
+    }
+
+    private static Task assertFound(ScheduleManager manager, String description) {
+        try {
+            return manager.getTask(description);
+        } catch (TaskNotFoundException e) {
+            throw new AssertionError("Missing from the description map: " + description, e);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+// Checks the planner's statuses, its plans against a brute-force optimum over every subset of small random
+// batches with repeated descriptions, and its speed on a large batch
+class SchedulePlannerTest {
+    private static final SchedulePlanner PLANNER = new SchedulePlanner(1, 4, 16);
+
+    @Test
+    void eachCandidateGetsItsOwnStatus() {
+        ScheduleManager manager = new ScheduleManager();
+        SchedulePlan plan = manager.plan(List.of(
+            new Task("A", LocalTime.of(9, 0), LocalTime.of(10, 0), Priority.LOW),
+            new Task("B", LocalTime.of(9, 30), LocalTime.of(11, 0), Priority.HIGH),
+            new Task("C", LocalTime.of(12, 0), LocalTime.of(13, 0), Priority.MEDIUM)));
+        assertEquals(List.of("A: OUTWEIGHED (B)", "B: ACCEPTED", "C: ACCEPTED"), statuses(plan));
+        assertEquals(List.of("B", "C"), plan.getAccepted().stream().map(Task::getDescription).collect(Collectors.toList()));
+    }
+
+    @Test
+    void acceptedEntriesMatchThePlanForRandomCandidates() {
+        Random random = new Random(7);
+        ScheduleManager manager = new ScheduleManager();
+        for (int round = 0; round < 200; round++) {
+            List<Task> candidates = random.ints(20, 0, 23 * 60).mapToObj(minute -> {
+                LocalTime start = LocalTime.ofSecondOfDay(minute * 60L);
+                return new Task("Task " + minute, start, start.plusMinutes(1 + random.nextInt(60)),
+                    Priority.values()[random.nextInt(Priority.values().length)]);
+            }).collect(Collectors.toList());
+            SchedulePlan plan = manager.plan(candidates);
+            long accepted = plan.getEntries().stream().filter(entry -> entry.getStatus() == BatchAddResult.Status.ACCEPTED).count();
+            assertEquals(plan.getAccepted().size(), accepted, "accepted entries in round " + round);
+        }
+    }
+
+    @Test
+    void repeatedDescriptionsDoNotHideABetterCombination() {
+        // Keeping the HIGH "X" alone is worth 16; the HIGH "Y" with the LOW "X" is worth 17
+        SchedulePlan plan = PLANNER.plan(List.of(
+            new Task("X", LocalTime.of(9, 0), LocalTime.of(10, 0), Priority.HIGH),
+            new Task("X", LocalTime.of(11, 0), LocalTime.of(12, 0), Priority.LOW),
+            new Task("Y", LocalTime.of(9, 0), LocalTime.of(10, 0), Priority.HIGH)), new IntervalIndex(), description -> null, 0);
+        assertEquals(17, plan.getTotalWeight());
+        assertEquals(List.of("X: DUPLICATE_DESCRIPTION (X)", "X: ACCEPTED", "Y: ACCEPTED"), statuses(plan));
+    }
+
+    @Test
+    void plansMatchABruteForceOptimum() {
+        Random random = new Random(8);
+        for (int round = 0; round < 2000; round++) {
+            IntervalIndex schedule = new IntervalIndex();
+            Map<String, Task> existing = new HashMap<>();
+            for (int i = 0; i < 3; i++) {
+                Task task = randomTask(random, "Existing " + i);
+                if (schedule.findConflict(task) == null) {
+                    schedule.add(task);
+                    existing.put(task.getDescription(), task);
+                }
+            }
+            // A handful of descriptions, so most batches repeat some, and now and then an existing one
+            int size = 1 + random.nextInt(12);
+            List<Task> candidates = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                String description = random.nextInt(10) == 0 ? "Existing " + random.nextInt(3) : "Task " + random.nextInt(1 + size / 2);
+                candidates.add(randomTask(random, description));
+            }
+
+            SchedulePlan plan = PLANNER.plan(candidates, schedule, existing::get, 0);
+            assertEquals(bruteForceOptimum(candidates, schedule, existing), plan.getTotalWeight(), "round " + round + ": " + candidates);
+            List<Task> accepted = plan.getAccepted();
+            assertEquals(accepted.size(), accepted.stream().map(Task::getDescription).distinct().count(), "descriptions in round " + round);
+            for (Task task : accepted) {
+                assertTrue(schedule.findConflict(task) == null && !existing.containsKey(task.getDescription()), "fits the schedule");
+                assertTrue(accepted.stream().noneMatch(other -> other != task && other.conflicts(task)), "no overlaps in round " + round);
+            }
+            assertEquals(accepted.stream().mapToLong(task -> PLANNER.weight(task.getPriority())).sum(), plan.getTotalWeight());
+        }
+    }
+
+    @Test
+    void hundredThousandCandidatesArePlannedQuickly() {
+        Random random = new Random(10);
+        List<Task> candidates = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            // One in ten reuses an earlier description
+            String description = "Task " + (random.nextInt(10) == 0 ? random.nextInt(i + 1) : i);
+            LocalTime start = LocalTime.ofSecondOfDay(random.nextInt(23 * 3600));
+            candidates.add(new Task(description, start, start.plusSeconds(1 + random.nextInt(600)),
+                Priority.values()[random.nextInt(Priority.values().length)]));
+        }
+        long fastest = Long.MAX_VALUE;
+        for (int run = 0; run < 3; run++) {
+            long started = System.nanoTime();
+            SchedulePlan plan = PLANNER.plan(candidates, new IntervalIndex(), description -> null, 0);
+            fastest = Math.min(fastest, System.nanoTime() - started);
+            assertEquals(100_000, plan.getEntries().size());
+        }
+        // A few hundred milliseconds on a single slow core, most of it sorting; the bound leaves room to spare
+        assertTrue(fastest < 2_000_000_000L, "planning took " + fastest / 1_000_000 + " ms");
+    }
+
+    // Best total weight over every subset of the candidates that fits the schedule and itself
+    private static long bruteForceOptimum(List<Task> candidates, IntervalIndex schedule, Map<String, Task> existing) {
+        long best = 0;
+        for (int subset = 0; subset < 1 << candidates.size(); subset++) {
+            List<Task> chosen = new ArrayList<>();
+            Set<String> descriptions = new HashSet<>();
+            long weight = 0;
+            boolean valid = true;
+            for (int i = 0; i < candidates.size() && valid; i++) {
+                if ((subset & (1 << i)) == 0) {
+                    continue;
+                }
+                Task task = candidates.get(i);
+                valid = descriptions.add(task.getDescription()) && !existing.containsKey(task.getDescription())
+                    && schedule.findConflict(task) == null && chosen.stream().noneMatch(task::conflicts);
+                chosen.add(task);
+                weight += PLANNER.weight(task.getPriority());
+            }
+            if (valid) {
+                best = Math.max(best, weight);
+            }
+        }
+        return best;
+    }
+
+    private static Task randomTask(Random random, String description) {
+        LocalTime start = LocalTime.of(8 + random.nextInt(8), 15 * random.nextInt(4));
+        return new Task(description, start, start.plusMinutes(15 * (1 + random.nextInt(8))),
+            Priority.values()[random.nextInt(Priority.values().length)]);
+    }
+
+    private static List<String> statuses(SchedulePlan plan) {
+        return plan.getEntries().stream()
+            .map(entry -> entry.getTask().getDescription() + ": " + entry.getStatus()
+                + (entry.getConflictingDescription() != null ? " (" + entry.getConflictingDescription() + ")" : ""))
+            .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,90 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.management.ObjectName;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+// Checks that shards are independent, that cross-shard queries see every crew member on the date, and that
+// removing a shard stops its observer threads and takes its metrics out of JMX
+class ScheduleRegistryTest {
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 1);
+    // Held so the level set below is not lost when the logger is garbage collected
+    private static final Logger scheduleLogger = Logger.getLogger(ScheduleManager.class.getName());
+
+    @BeforeAll
+    static void quietLogging() {
+        scheduleLogger.setLevel(Level.OFF);
+    }
+
+    @Test
+    void shardsAreIndependentAndQueriedTogether() throws Exception {
+        ScheduleRegistry registry = new ScheduleRegistry();
+        ScheduleManager ada = registry.getSchedule("registry-ada", DAY);
+        ScheduleManager bo = registry.getSchedule("registry-bo", DAY);
+        ScheduleManager nextDay = registry.getSchedule("registry-ada", DAY.plusDays(1));
+        assertSame(ada, registry.getSchedule("registry-ada", DAY));
+        assertNull(registry.findSchedule("registry-cy", DAY));
+
+        // The same slot and description in every shard, which one schedule would reject
+        ada.addTask(task("EVA prep", Priority.HIGH));
+        bo.addTask(task("EVA prep", Priority.HIGH));
+        nextDay.addTask(task("EVA prep", Priority.HIGH));
+        bo.markTaskAsCompleted("EVA prep");
+
+        Map<String, List<Task>> high = registry.viewTasksByPriority(DAY, Priority.HIGH);
+        assertEquals(2, high.size());
+        assertEquals(1, high.get("registry-ada").size());
+        assertEquals(1, high.get("registry-bo").size());
+        assertEquals(1, registry.countOpenTasksByPriority(DAY, Priority.HIGH));
+
+        for (ScheduleKey key : List.copyOf(registry.keys())) {
+            registry.removeSchedule(key.getCrewMember(), key.getDate());
+        }
+        assertTrue(registry.keys().isEmpty());
+    }
+
+    @Test
+    void removalClosesTheShard() throws Exception {
+        ScheduleRegistry registry = new ScheduleRegistry();
+        ScheduleManager schedule = registry.getSchedule("registry-removed", DAY);
+        ObjectName bean = new ObjectName("ScheduleManager:type=Schedule,schedule=" + ObjectName.quote("registry-removed@" + DAY));
+        assertTrue(ManagementFactory.getPlatformMBeanServer().isRegistered(bean));
+
+        AtomicReference<Thread> dispatchThread = new AtomicReference<>();
+        CountDownLatch delivered = new CountDownLatch(1);
+        schedule.addObserver(events -> {
+            dispatchThread.set(Thread.currentThread());
+            delivered.countDown();
+        });
+        schedule.addTask(task("Hydration", Priority.LOW));
+        assertTrue(delivered.await(5, TimeUnit.SECONDS));
+
+        assertSame(schedule, registry.removeSchedule("registry-removed", DAY));
+        assertNull(registry.findSchedule("registry-removed", DAY));
+        assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(bean));
+        dispatchThread.get().join(5000);
+        assertFalse(dispatchThread.get().isAlive(), "observer thread still running after removal");
+        // A removed shard can still be read
+        assertEquals("Hydration", schedule.getTask("Hydration").getDescription());
+        assertNull(registry.removeSchedule("registry-removed", DAY));
+    }
+
+    private static Task task(String description, Priority priority) {
+        return new Task(description, LocalTime.of(9, 0), LocalTime.of(10, 0), priority);
+    }
+}
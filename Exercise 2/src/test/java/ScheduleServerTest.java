@@ -0,0 +1,84 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Properties;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ScheduleServerTest {
+    private final HttpClient client = HttpClient.newHttpClient();
+    private static final ScheduleKey KEY = new ScheduleKey("server-test", LocalDate.of(2024, 1, 1));
+    private ScheduleRegistry schedules;
+    private ScheduleManager manager;
+    private ScheduleServer server;
+
+    @BeforeEach
+    void startServer() throws Exception {
+        schedules = new ScheduleRegistry();
+        manager = schedules.getSchedule(KEY);
+        server = new ScheduleServer(schedules, KEY, new InetSocketAddress("127.0.0.1", 0), 16, 4);
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+        schedules.removeSchedule(KEY.getCrewMember(), KEY.getDate());
+    }
+
+    @Test
+    void serverListensOnLoopbackByDefault() {
+        assertEquals("127.0.0.1", ScheduleSettings.from(new Properties()).getServerHost());
+    }
+
+    @Test
+    void putMergesFieldsIntoTheCurrentTask() throws Exception {
+        HttpResponse<String> created = send("POST", "/tasks",
+            "{\"description\":\"Morning Exercise\",\"start\":\"07:00\",\"end\":\"08:00\",\"priority\":\"HIGH\"}");
+        assertEquals(201, created.statusCode());
+
+        HttpResponse<String> edited = send("PUT", "/tasks/Morning%20Exercise", "{\"end\":\"08:30\"}");
+        assertEquals(200, edited.statusCode());
+        Task task = manager.getTask("Morning Exercise");
+        assertEquals("07:00", task.getStartTime().toString());
+        assertEquals("08:30", task.getEndTime().toString());
+        assertEquals(Priority.HIGH, task.getPriority());
+    }
+
+    @Test
+    void putOnAMissingTaskIsNotFound() throws Exception {
+        HttpResponse<String> response = send("PUT", "/tasks/Nothing", "{\"end\":\"08:30\"}");
+        assertEquals(404, response.statusCode());
+        assertTrue(response.body().contains("Task not found"));
+    }
+
+    @Test
+    void completeReturnsTheCompletedTask() throws Exception {
+        manager.addTask(new Task("Hydration", LocalTime.of(9, 0), LocalTime.of(9, 15), Priority.LOW));
+        HttpResponse<String> response = send("POST", "/tasks/Hydration/complete", "");
+        assertEquals(200, response.statusCode());
+        assertTrue(response.body().contains("\"completed\":true"), response.body());
+        assertEquals(404, send("POST", "/tasks/Nothing/complete", "").statusCode());
+    }
+
+    @Test
+    void removedScheduleIsUnavailable() throws Exception {
+        schedules.removeSchedule(KEY.getCrewMember(), KEY.getDate());
+        assertEquals(503, send("GET", "/tasks", "").statusCode());
+    }
+
+    private HttpResponse<String> send(String method, String path, String body) throws Exception {
+        URI uri = URI.create("http://127.0.0.1:" + server.getAddress().getPort() + path);
+        HttpRequest request = HttpRequest.newBuilder(uri).method(method, HttpRequest.BodyPublishers.ofString(body)).build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
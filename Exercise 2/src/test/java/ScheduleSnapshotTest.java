@@ -0,0 +1,147 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+// Checks that every snapshot keeps showing the schedule as it was when taken, compared with a copy of a
+// reference list kept alongside the random writes; and that pages and cursors match a linear filter of it
+class ScheduleSnapshotTest {
+    private static final int DESCRIPTIONS = 60;
+    // Held so the level set below is not lost when the logger is garbage collected
+    private static final Logger scheduleLogger = Logger.getLogger(ScheduleManager.class.getName());
+
+    @BeforeAll
+    static void quietLogging() {
+        scheduleLogger.setLevel(Level.OFF);
+    }
+
+    @Test
+    void oldSnapshotsMatchTheScheduleWhenTaken() {
+        Random random = new Random(13);
+        ScheduleManager manager = new ScheduleManager();
+        List<ScheduleSnapshot> snapshots = new ArrayList<>();
+        List<List<Task>> references = new ArrayList<>();
+        List<Task> live = new ArrayList<>();
+        for (int step = 0; step < 3000; step++) {
+            long version = manager.snapshot().getVersion();
+            boolean changed = randomWrite(random, manager, live);
+            // Only writes that change the schedule make a new version
+            assertEquals(changed ? version + 1 : version, manager.snapshot().getVersion(), "version at step " + step);
+            if (step % 10 == 0) {
+                snapshots.add(manager.snapshot());
+                List<Task> reference = new ArrayList<>(live);
+                reference.sort(IntervalIndex.BY_START_TIME);
+                references.add(reference);
+            }
+        }
+        for (int i = 0; i < snapshots.size(); i++) {
+            assertSnapshotMatches(random, snapshots.get(i), references.get(i));
+        }
+    }
+
+    @Test
+    void readersSeeConsistentSnapshotsWhileWritersRun() throws Exception {
+        ScheduleManager manager = new ScheduleManager();
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread writer = new Thread(() -> {
+            Random random = new Random(17);
+            while (running.get()) {
+                randomWrite(random, manager, new ArrayList<>());
+            }
+        });
+        writer.start();
+        try {
+            long lastVersion = -1;
+            for (int read = 0; read < 2000; read++) {
+                ScheduleSnapshot snapshot = manager.snapshot();
+                assertTrue(snapshot.getVersion() >= lastVersion, "versions never go back");
+                lastVersion = snapshot.getVersion();
+                List<Task> tasks = new ArrayList<>();
+                snapshot.tasks().forEach(tasks::add);
+                assertEquals(snapshot.size(), tasks.size(), "iteration matches size");
+                for (int i = 1; i < tasks.size(); i++) {
+                    assertTrue(IntervalIndex.BY_START_TIME.compare(tasks.get(i - 1), tasks.get(i)) < 0, "time order");
+                    assertTrue(!tasks.get(i - 1).conflicts(tasks.get(i)), "a snapshot never holds a conflict");
+                }
+                // A second pass over the same snapshot sees exactly the same tasks
+                assertEquals(tasks, new ArrayList<>(snapshot.tasks()));
+            }
+        } finally {
+            running.set(false);
+            writer.join();
+        }
+    }
+
+    private static void assertSnapshotMatches(Random random, ScheduleSnapshot snapshot, List<Task> reference) {
+        assertEquals(reference.size(), snapshot.size(), "size of version " + snapshot.getVersion());
+        assertEquals(reference, new ArrayList<>(snapshot.tasks()), "tasks of version " + snapshot.getVersion());
+        for (int i = 0; i < reference.size(); i++) {
+            assertEquals(reference.get(i), snapshot.tasks().get(i), "task " + i + " of version " + snapshot.getVersion());
+        }
+        for (int probe = 0; probe < 20; probe++) {
+            LocalTime from = LocalTime.ofSecondOfDay(random.nextInt(24 * 60) * 60L);
+            int limit = random.nextInt(8);
+            List<Task> expected = reference.stream().filter(task -> !task.getStartTime().isBefore(from)).collect(Collectors.toList());
+            assertEquals(expected.subList(0, Math.min(limit, expected.size())), snapshot.page(from, limit), "page from " + from);
+            List<Task> walked = new ArrayList<>();
+            for (Iterator<Task> cursor = snapshot.cursor(from); cursor.hasNext(); ) {
+                walked.add(cursor.next());
+            }
+            assertEquals(expected, walked, "cursor from " + from);
+            if (!reference.isEmpty()) {
+                int index = random.nextInt(reference.size());
+                List<Task> after = reference.subList(index + 1, Math.min(reference.size(), index + 1 + limit));
+                assertEquals(after, snapshot.pageAfter(reference.get(index), limit), "page after " + reference.get(index));
+            }
+        }
+    }
+
+    // Applies the write to the live reference list too; returns whether it changed the schedule
+    private static boolean randomWrite(Random random, ScheduleManager manager, List<Task> live) {
+        String description = "Task " + random.nextInt(DESCRIPTIONS);
+        try {
+            switch (random.nextInt(4)) {
+                case 0: {
+                    Task task = randomTask(random, description);
+                    manager.addTask(task);
+                    live.add(task);
+                    return true;
+                }
+                case 1: {
+                    Task edited = randomTask(random, "Task " + random.nextInt(DESCRIPTIONS));
+                    manager.editTask(description, edited);
+                    live.removeIf(task -> task.getDescription().equals(description));
+                    live.add(edited);
+                    return true;
+                }
+                case 2:
+                    manager.removeTask(description);
+                    live.removeIf(task -> task.getDescription().equals(description));
+                    return true;
+                default:
+                    // Completing a completed task changes nothing
+                    boolean open = !manager.getTask(description).isCompleted();
+                    manager.markTaskAsCompleted(description);
+                    return open;
+            }
+        } catch (TaskConflictException | TaskNotFoundException e) {
+            return false;
+        }
+    }
+
+    private static Task randomTask(Random random, String description) {
+        LocalTime start = LocalTime.ofSecondOfDay(random.nextInt(23 * 60) * 60L);
+        return new Task(description, start, start.plusMinutes(1 + random.nextInt(45)), Priority.MEDIUM);
+    }
+}
@@ -0,0 +1,196 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+// Checks which tasks each sweep moves to the archive against a reference that dates every task by its
+// schedule, that history() returns what was archived, and that a torn archive file recovers its intact records
+class TaskArchiveTest {
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 1);
+    // Held so the levels set below are not lost when the loggers are garbage collected
+    private static final Logger scheduleLogger = Logger.getLogger(ScheduleManager.class.getName());
+    private static final Logger archiveLogger = Logger.getLogger(TaskArchive.class.getName());
+
+    private Path directory;
+
+    @BeforeAll
+    static void quietLogging() {
+        scheduleLogger.setLevel(Level.OFF);
+        archiveLogger.setLevel(Level.OFF);
+    }
+
+    @BeforeEach
+    void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("task-archive");
+    }
+
+    @AfterEach
+    void deleteDirectory() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    @Test
+    void sweepsSelectCompletedAndPastTasksByTheScheduleDate() throws Exception {
+        Random random = new Random(41);
+        for (TaskArchive.Policy policy : TaskArchive.Policy.values()) {
+            for (int round = 0; round < 40; round++) {
+                ScheduleManager manager = new ScheduleManager(DAY);
+                for (int i = 0; i < 60; i++) {
+                    try {
+                        manager.addTask(randomTask(random, "Task " + i));
+                    } catch (TaskConflictException e) {
+                        // Skipped, as the reference is read back from the schedule
+                    }
+                }
+                List<Task> live = new ArrayList<>(manager.viewTasks());
+                List<String> archived = new ArrayList<>();
+                try (TaskArchive archive = TaskArchive.offHeap()) {
+                    archive.configure(policy, 0);
+                    manager.attachArchive(archive);
+                    // The clock moves from the day before the schedule's date to two days after it
+                    LocalDateTime now = DAY.minusDays(1).atTime(12, 0);
+                    for (int sweep = 0; sweep < 12; sweep++) {
+                        for (Task task : live) {
+                            if (random.nextInt(6) == 0) {
+                                manager.markTaskAsCompleted(task.getDescription());
+                            }
+                        }
+                        List<Task> expected = new ArrayList<>();
+                        for (Task task : live) {
+                            boolean completed = policy.archivesCompleted() && task.isCompleted();
+                            boolean past = policy.archivesPast() && !endsAt(task).isAfter(now);
+                            if (completed || past) {
+                                expected.add(task);
+                            }
+                        }
+                        expected.sort(IntervalIndex.BY_START_TIME);
+                        String context = policy + " sweep " + sweep + " at " + now;
+                        assertEquals(expected.size(), manager.archiveTasks(now), context);
+                        live.removeAll(expected);
+                        assertEquals(live, manager.viewTasks(), "live tasks after " + context);
+                        expected.forEach(task -> archived.add(task.toString()));
+                        assertEquals(archived, describe(manager.history(TaskQuery.all())), "history after " + context);
+                        now = now.plusMinutes(random.nextInt(8 * 60));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void historyAppliesTheQueryToArchivedTasks() throws Exception {
+        Random random = new Random(42);
+        ScheduleManager manager = new ScheduleManager(DAY);
+        List<Task> added = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            try {
+                Task task = randomTask(random, "Task " + i);
+                manager.addTask(task);
+                added.add(task);
+            } catch (TaskConflictException e) {
+                // Skipped
+            }
+        }
+        try (TaskArchive archive = TaskArchive.open(directory.resolve("archive.bin"))) {
+            archive.configure(TaskArchive.Policy.COMPLETED, 0);
+            manager.attachArchive(archive);
+            for (int sweep = 0; sweep < 5; sweep++) {
+                for (Task task : manager.viewTasks()) {
+                    if (random.nextInt(4) == 0) {
+                        manager.markTaskAsCompleted(task.getDescription());
+                    }
+                }
+                manager.archiveTasks(DAY.atStartOfDay());
+            }
+            List<Task> archived = added.stream().filter(Task::isCompleted).collect(Collectors.toList());
+            assertEquals(archived.size(), archive.size());
+            for (Priority priority : Priority.values()) {
+                TaskQuery query = TaskQuery.all().between(LocalTime.of(6, 0), LocalTime.of(18, 0)).withPriorities(priority);
+                List<String> expected = manager.history(TaskQuery.all()).stream()
+                    .filter(task -> task.getPriority() == priority)
+                    .filter(task -> task.getStartTime().isBefore(LocalTime.of(18, 0)))
+                    .filter(task -> !task.getStartTime().isBefore(LocalTime.of(6, 0))
+                        || task.getStartTime().isBefore(task.getEndTime()) && task.getEndTime().isAfter(LocalTime.of(6, 0)))
+                    .map(Task::toString).collect(Collectors.toList());
+                assertEquals(expected, describe(manager.history(query)), query.toString());
+            }
+        }
+    }
+
+    @Test
+    void tornTailOfTheArchiveIsCutOff() throws Exception {
+        Path file = directory.resolve("archive.bin");
+        List<Task> first = List.of(task("First", 9), task("Second", 10));
+        try (TaskArchive archive = TaskArchive.open(file)) {
+            archive.append(first);
+        }
+        long intact = Files.size(file);
+        // A record whose length runs past the end of the file, as a crash mid-append leaves
+        Files.write(file, new byte[] {0, 0, 0, 40, 1, 2, 3, 4, 5}, StandardOpenOption.APPEND);
+        try (TaskArchive archive = TaskArchive.open(file)) {
+            assertEquals(2, archive.size());
+            assertEquals(intact, Files.size(file));
+            assertEquals(describe(first), describe(archive.query(TaskQuery.all())));
+            archive.append(List.of(task("Third", 11)));
+        }
+
+        // A complete record whose checksum fails is cut off with everything after it
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length - 3] ^= 1;
+        Files.write(file, bytes);
+        try (TaskArchive archive = TaskArchive.open(file)) {
+            assertEquals(2, archive.size());
+            assertEquals(intact, Files.size(file));
+            archive.append(List.of(task("Fourth", 12)));
+            assertEquals(List.of("First", "Second", "Fourth"),
+                archive.query(TaskQuery.all()).stream().map(Task::getDescription).collect(Collectors.toList()));
+        }
+    }
+
+    // The reference dating: on the schedule's date, or the next day for a task that ends before it starts
+    private static LocalDateTime endsAt(Task task) {
+        LocalDate endDate = task.getEndTime().isBefore(task.getStartTime()) ? DAY.plusDays(1) : DAY;
+        return endDate.atTime(task.getEndTime());
+    }
+
+    private static List<String> describe(List<Task> tasks) {
+        return tasks.stream().map(Task::toString).collect(Collectors.toList());
+    }
+
+    private static List<String> describe(QueryResult result) {
+        return result.stream().map(Task::toString).collect(Collectors.toList());
+    }
+
+    // Mostly ordinary tasks, some running past midnight
+    private static Task randomTask(Random random, String description) {
+        LocalTime start = LocalTime.ofSecondOfDay(random.nextInt(24 * 12) * 300L);
+        LocalTime end = start.plusMinutes(1 + random.nextInt(random.nextInt(8) == 0 ? 6 * 60 : 90));
+        return new Task(description, start, end, Priority.values()[random.nextInt(Priority.values().length)]);
+    }
+
+    private static Task task(String description, int hour) {
+        return new Task(description, LocalTime.of(hour, 0), LocalTime.of(hour, 30), Priority.MEDIUM);
+    }
+}
@@ -0,0 +1,95 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class TaskImporterTest {
+    private final List<Path> files = new ArrayList<>();
+
+    @AfterEach
+    void deleteFiles() throws IOException {
+        for (Path file : files) {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void validFileIsAddedInOneBatch() throws IOException {
+        ScheduleManager manager = new ScheduleManager();
+        ImportResult result = new TaskImporter(manager).importFile(write(".csv",
+            "description,start,end,priority,completed",
+            "Spacecraft Maintenance,09:00,11:00,HIGH,false",
+            "\"Lunch, then rest\",12:00,13:00,MEDIUM"));
+        assertTrue(result.isApplied());
+        assertEquals(2, manager.viewTasks().size());
+        assertEquals(0, result.getErrorCount());
+    }
+
+    @Test
+    void parseErrorRejectsTheWholeFile() throws IOException {
+        ScheduleManager manager = new ScheduleManager();
+        ImportResult result = new TaskImporter(manager).importFile(write(".csv",
+            "Morning Exercise,07:00,08:00,HIGH",
+            "Broken,25:00,26:00,LOW",
+            "Team Meeting,09:00,10:00,MEDIUM"));
+        assertFalse(result.isApplied());
+        assertEquals(0, manager.viewTasks().size());
+        assertEquals(1, result.getErrorCount());
+        assertEquals(2, result.getErrors().get(0).getLine());
+    }
+
+    @Test
+    void conflictRejectsTheWholeFileAndIsReportedByLine() throws Exception {
+        ScheduleManager manager = new ScheduleManager();
+        manager.addTask(new Task("Existing", LocalTime.of(10, 0), LocalTime.of(11, 0), Priority.LOW));
+        ImportResult result = new TaskImporter(manager).importFile(write(".ndjson",
+            "{\"description\":\"Early\",\"start\":\"08:00\",\"end\":\"09:00\",\"priority\":\"LOW\"}",
+            "{\"description\":\"Clash\",\"start\":\"10:30\",\"end\":\"11:30\",\"priority\":\"HIGH\"}"));
+        assertFalse(result.isApplied());
+        assertEquals(1, manager.viewTasks().size());
+        assertEquals(1, result.getErrorCount());
+        assertEquals(2, result.getErrors().get(0).getLine());
+    }
+
+    @Test
+    void ndjsonRejectsAnInvalidCompletedFlag() throws IOException {
+        ScheduleManager manager = new ScheduleManager();
+        ImportResult result = new TaskImporter(manager).importFile(write(".ndjson",
+            "{\"description\":\"Done\",\"start\":\"08:00\",\"end\":\"09:00\",\"priority\":\"LOW\",\"completed\":true}",
+            "{\"description\":\"Typo\",\"start\":\"09:00\",\"end\":\"10:00\",\"priority\":\"LOW\",\"completed\":\"yes\"}"));
+        assertFalse(result.isApplied());
+        assertEquals(2, result.getErrors().get(0).getLine());
+        assertTrue(result.getErrors().get(0).getMessage().startsWith("Invalid completed flag"));
+    }
+
+    @Test
+    void reportedErrorsAreTheFirstRejectedLines() throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < TaskImporter.MAX_REPORTED_ERRORS + 50; i++) {
+            lines.add("Bad " + i + ",xx:00,09:00,LOW");
+        }
+        ImportResult result = new TaskImporter(new ScheduleManager()).importFile(write(".csv", lines.toArray(new String[0])));
+        assertEquals(TaskImporter.MAX_REPORTED_ERRORS + 50, result.getErrorCount());
+        assertEquals(TaskImporter.MAX_REPORTED_ERRORS, result.getErrors().size());
+        for (int i = 0; i < result.getErrors().size(); i++) {
+            assertEquals(i + 1, result.getErrors().get(i).getLine());
+        }
+    }
+
+    private Path write(String suffix, String... lines) throws IOException {
+        Path file = Files.createTempFile("tasks", suffix);
+        files.add(file);
+        Files.write(file, List.of(lines), StandardCharsets.UTF_8);
+        return file;
+    }
+}
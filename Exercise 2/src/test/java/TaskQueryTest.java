@@ -0,0 +1,154 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalTime;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+// Checks ScheduleManager.query (the window's range scan with its leading task, and the merge of priority
+// buckets) against a linear filter of the whole schedule, on random schedules that include zero-length and
+// end-before-start tasks the walk back has to step over
+class TaskQueryTest {
+    // Held so the level set below is not lost when the logger is garbage collected
+    private static final Logger scheduleLogger = Logger.getLogger(ScheduleManager.class.getName());
+
+    @BeforeAll
+    static void quietLogging() {
+        scheduleLogger.setLevel(Level.OFF);
+    }
+
+    @Test
+    void queriesMatchALinearFilter() throws Exception {
+        Random random = new Random(31);
+        Set<String> plans = new HashSet<>();
+        for (int round = 0; round < 200; round++) {
+            ScheduleManager manager = new ScheduleManager();
+            for (int i = 0; i < 80; i++) {
+                try {
+                    manager.addTask(randomTask(random, "Task " + i));
+                } catch (TaskConflictException e) {
+                    // Skipped, as the reference is read back from the schedule
+                }
+            }
+            for (Task task : manager.viewTasks()) {
+                if (random.nextInt(3) == 0) {
+                    manager.markTaskAsCompleted(task.getDescription());
+                } else if (random.nextInt(8) == 0) {
+                    manager.removeTask(task.getDescription());
+                }
+            }
+            List<Task> schedule = manager.viewTasks();
+            for (int i = 0; i < 50; i++) {
+                Probe probe = randomProbe(random);
+                TaskQuery query = probe.query;
+                List<Task> expected = schedule.stream().filter(probe::matches).collect(Collectors.toList());
+                QueryResult result = manager.query(query);
+                assertEquals(expected, result.stream().collect(Collectors.toList()), query + " in round " + round);
+                assertEquals(expected.size(), result.getMatched(), "matched for " + query);
+                assertTrue(result.getExamined() <= schedule.size(), "examined for " + query);
+                plans.add(result.getPlan().startsWith("priority") ? "priority" : "start-time");
+
+                // A consumer that stops early sees a prefix of the same order
+                int limit = random.nextInt(5);
+                List<Task> first = manager.query(query).stream().limit(limit).collect(Collectors.toList());
+                assertEquals(expected.subList(0, Math.min(limit, expected.size())), first, "first " + limit + " of " + query);
+            }
+        }
+        assertEquals(Set.of("priority", "start-time"), plans);
+    }
+
+    // A random query together with the filters it was built from
+    private static final class Probe {
+        LocalTime from;
+        LocalTime to;
+        Set<Priority> priorities = EnumSet.allOf(Priority.class);
+        // Null for both open and completed tasks
+        Boolean completed;
+        TaskQuery query = TaskQuery.all();
+
+        // Written from the filters, not from TaskQuery.matches
+        boolean matches(Task task) {
+            if (!priorities.contains(task.getPriority()) || (completed != null && completed != task.isCompleted())) {
+                return false;
+            }
+            LocalTime start = task.getStartTime();
+            LocalTime end = task.getEndTime();
+            if (to != null && !start.isBefore(to)) {
+                return false;
+            }
+            if (from == null || !start.isBefore(from)) {
+                return true;
+            }
+            // Started before the window: only a task still running at its start
+            return start.isBefore(end) && end.isAfter(from);
+        }
+    }
+
+    private static Probe randomProbe(Random random) {
+        Probe probe = new Probe();
+        if (random.nextInt(4) != 0) {
+            probe.from = random.nextBoolean() ? null : randomTime(random);
+            probe.to = random.nextBoolean() ? null : randomTime(random);
+            if (probe.from != null && probe.to != null && !probe.from.isBefore(probe.to)) {
+                LocalTime swap = probe.from;
+                probe.from = probe.to;
+                probe.to = swap.equals(probe.to) ? null : swap;
+            }
+            probe.query = probe.query.between(probe.from, probe.to);
+        }
+        if (random.nextBoolean()) {
+            probe.priorities = EnumSet.noneOf(Priority.class);
+            do {
+                probe.priorities.add(Priority.values()[random.nextInt(Priority.values().length)]);
+            } while (random.nextInt(3) == 0);
+            probe.query = probe.query.withPriorities(probe.priorities.toArray(new Priority[0]));
+        }
+        switch (random.nextInt(4)) {
+            case 0:
+                probe.completed = false;
+                probe.query = probe.query.open();
+                break;
+            case 1:
+                probe.completed = true;
+                probe.query = probe.query.completed();
+                break;
+            default:
+                break;
+        }
+        return probe;
+    }
+
+    // Mostly ordinary tasks, some zero-length and some ending before they start
+    private static Task randomTask(Random random, String description) {
+        LocalTime start = randomTime(random);
+        LocalTime end;
+        switch (random.nextInt(10)) {
+            case 0:
+                end = start;
+                break;
+            case 1:
+                end = start.minusMinutes(1 + random.nextInt(60));
+                break;
+            default:
+                end = start.plusMinutes(1 + random.nextInt(90));
+                if (end.isBefore(start)) {
+                    end = LocalTime.MAX;
+                }
+                break;
+        }
+        return new Task(description, start, end, Priority.values()[random.nextInt(Priority.values().length)]);
+    }
+
+    private static LocalTime randomTime(Random random) {
+        return LocalTime.ofSecondOfDay(random.nextInt(24 * 12) * 300L);
+    }
+}